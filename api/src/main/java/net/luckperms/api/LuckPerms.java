@@ -42,6 +42,7 @@ import net.luckperms.api.model.user.UserManager;
 import net.luckperms.api.node.NodeBuilderRegistry;
 import net.luckperms.api.node.matcher.NodeMatcherFactory;
 import net.luckperms.api.platform.Health;
+import net.luckperms.api.platform.Metrics;
 import net.luckperms.api.platform.Platform;
 import net.luckperms.api.platform.PlayerAdapter;
 import net.luckperms.api.platform.PluginMetadata;
@@ -232,6 +233,14 @@ public interface LuckPerms {
      */
     @NonNull Health runHealthCheck();
 
+    /**
+     * Gets a snapshot of the performance metrics recorded by the plugin.
+     *
+     * @return the metrics
+     * @since 5.5
+     */
+    @NonNull Metrics getMetrics();
+
     /**
      * Registers a {@link MessengerProvider} for use by the platform.
      *
@@ -107,4 +107,24 @@ public interface ContextCalculator<T> {
         return ImmutableContextSet.empty();
     }
 
+    /**
+     * Gets whether the contexts submitted by this calculator only change when
+     * {@link ContextManager#signalContextUpdate(Object)} is called for the
+     * target subject.
+     *
+     * <p>The contexts submitted by signal-driven calculators are cached until
+     * the subject is signalled, instead of being recalculated roughly once per
+     * tick. Calculators which return {@code true} must therefore signal every
+     * change to the contexts they submit.</p>
+     *
+     * <p>For a {@link StaticContextCalculator}, the contexts are cached until
+     * the LuckPerms configuration is reloaded.</p>
+     *
+     * @return true if this calculator is signal-driven
+     * @since 5.5
+     */
+    default boolean isSignalDriven() {
+        return false;
+    }
+
 }
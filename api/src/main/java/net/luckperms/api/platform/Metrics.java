@@ -0,0 +1,65 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package net.luckperms.api.platform;
+
+import java.util.Map;
+
+/**
+ * Represents a snapshot of the performance metrics recorded by a LuckPerms
+ * implementation, such as permission check throughput, lookup cache
+ * efficiency and recalculation latency.
+ *
+ * @since 5.5
+ */
+public interface Metrics {
+
+    /**
+     * Gets the number of permission checks performed since metrics were
+     * last reset.
+     *
+     * @return the permission check count
+     */
+    long getPermissionCheckCount();
+
+    /**
+     * Gets the proportion of permission checks which were served from a
+     * lookup cache, between 0 and 1.
+     *
+     * @return the permission check cache hit rate
+     */
+    double getPermissionCheckCacheHitRate();
+
+    /**
+     * Gets the full set of recorded metrics.
+     *
+     * <p>The keys and structure of the returned map are an implementation
+     * detail and may change between versions.</p>
+     *
+     * @return the recorded metrics
+     */
+    Map<String, Object> getDetails();
+
+}
@@ -60,7 +60,7 @@ public class BukkitCalculatorFactory implements CalculatorFactory {
         }
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX)) {
-            processors.add(new RegexProcessor());
+            processors.add(new RegexProcessor(this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX_COMBINED)));
         }
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS)) {
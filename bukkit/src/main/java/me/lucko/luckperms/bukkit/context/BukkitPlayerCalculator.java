@@ -101,6 +101,12 @@ public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listen
         }
     }
 
+    @Override
+    public boolean isSignalDriven() {
+        // each of the contexts submitted above is signalled by the listeners below
+        return true;
+    }
+
     @Override
     public @NonNull ContextSet estimatePotentialContexts() {
         ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl();
@@ -142,7 +148,16 @@ public class BukkitPlayerCalculator implements ContextCalculator<Player>, Listen
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onGameModeChange(PlayerGameModeChangeEvent e) {
         if (this.gamemode) {
-            this.plugin.getContextManager().signalContextUpdate(e.getPlayer());
+            Player player = e.getPlayer();
+            this.plugin.getContextManager().signalContextUpdate(player);
+
+            // the event is called before the new game mode is applied, so signal
+            // again afterwards to make sure it is picked up
+            this.plugin.getBootstrap().getScheduler().sync().execute(() -> {
+                if (player.isOnline()) {
+                    this.plugin.getContextManager().signalContextUpdate(player);
+                }
+            });
         }
     }
 }
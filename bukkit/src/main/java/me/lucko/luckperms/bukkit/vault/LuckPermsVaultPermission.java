@@ -60,6 +60,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -451,8 +452,8 @@ public class LuckPermsVaultPermission extends AbstractVaultPermission {
 
             // invalidate caches - they have potentially been affected by
             // this change.
-            this.plugin.getGroupManager().invalidateAllGroupCaches();
-            this.plugin.getUserManager().invalidateAllUserCaches();
+            Set<String> groups = this.plugin.getGroupManager().invalidateDependentCaches(g);
+            this.plugin.getUserManager().invalidateDependentCaches(groups);
 
             // we don't need to join this call - the save operation
             // can happen in the background.
@@ -54,7 +54,7 @@ public class BungeeCalculatorFactory implements CalculatorFactory {
         processors.add(new DirectProcessor());
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX)) {
-            processors.add(new RegexProcessor());
+            processors.add(new RegexProcessor(this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX_COMBINED)));
         }
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS)) {
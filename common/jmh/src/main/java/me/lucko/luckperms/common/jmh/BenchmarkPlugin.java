@@ -0,0 +1,157 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package me.lucko.luckperms.common.jmh;
+
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.cacheddata.SharedPermissionCalculators;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
+import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.config.generic.adapter.SystemPropertyConfigAdapter;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
+import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
+import me.lucko.luckperms.common.plugin.logging.JavaPluginLogger;
+import me.lucko.luckperms.common.plugin.scheduler.AbstractJavaScheduler;
+import me.lucko.luckperms.common.treeview.AsyncPermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import net.luckperms.api.platform.Platform;
+import net.luckperms.api.query.QueryOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Creates a minimal {@link LuckPermsPlugin} for use in benchmarks.
+ *
+ * <p>The plugin itself is a Mockito mock, with only the components used on the
+ * benchmarked paths stubbed to return real instances. The mock is created
+ * "stub only" so that invocations made while benchmarking aren't recorded.</p>
+ *
+ * <p>Configuration values can be set using system properties, in the same way
+ * as a real server, e.g. {@code -Dluckperms.apply-wildcards=false}.</p>
+ */
+public final class BenchmarkPlugin {
+    private BenchmarkPlugin() {}
+
+    /**
+     * Creates a new plugin instance.
+     *
+     * <p>The returned plugin should be passed to {@link #close(LuckPermsPlugin)}
+     * once it is no longer needed.</p>
+     *
+     * @return the plugin
+     */
+    public static LuckPermsPlugin create() {
+        Path dataDirectory;
+        try {
+            dataDirectory = Files.createTempDirectory("luckperms-jmh");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        LuckPermsPlugin plugin = mock(LuckPermsPlugin.class, withSettings().stubOnly());
+        LuckPermsBootstrap bootstrap = mock(LuckPermsBootstrap.class, withSettings().stubOnly());
+        AbstractJavaScheduler scheduler = new AbstractJavaScheduler(bootstrap) {
+            @Override
+            public Executor sync() {
+                return async();
+            }
+        };
+        when(bootstrap.getType()).thenReturn(Platform.Type.STANDALONE);
+        when(bootstrap.getDataDirectory()).thenReturn(dataDirectory);
+        when(bootstrap.getScheduler()).thenReturn(scheduler);
+
+        when(plugin.getBootstrap()).thenReturn(bootstrap);
+        when(plugin.getLogger()).thenReturn(new JavaPluginLogger(Logger.getLogger("luckperms-jmh")));
+        when(plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        when(plugin.getMetrics()).thenReturn(new PluginMetrics());
+
+        LuckPermsConfiguration configuration = new LuckPermsConfiguration(plugin, new SystemPropertyConfigAdapter(plugin));
+        when(plugin.getConfiguration()).thenReturn(configuration);
+
+        doReturn(new StandardGroupManager(plugin)).when(plugin).getGroupManager();
+        when(plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(plugin));
+        when(plugin.getCalculatorFactory()).thenReturn((queryOptions, metadata) -> buildCalculator(plugin, configuration, queryOptions, metadata));
+        when(plugin.getSharedPermissionCalculators()).thenReturn(new SharedPermissionCalculators());
+        when(plugin.getVerboseHandler()).thenReturn(new VerboseHandler(scheduler));
+        when(plugin.getPermissionRegistry()).thenReturn(new AsyncPermissionRegistry(scheduler));
+        return plugin;
+    }
+
+    // same as the standalone platform
+    private static PermissionCalculator buildCalculator(LuckPermsPlugin plugin, LuckPermsConfiguration configuration, QueryOptions queryOptions, CacheMetadata metadata) {
+        List<PermissionProcessor> processors = new ArrayList<>(8);
+
+        processors.add(new DirectProcessor());
+
+        if (configuration.get(ConfigKeys.APPLYING_REGEX)) {
+            processors.add(new RegexProcessor(configuration.get(ConfigKeys.APPLYING_REGEX_COMBINED)));
+        }
+
+        if (configuration.get(ConfigKeys.APPLYING_WILDCARDS)) {
+            processors.add(new WildcardProcessor());
+        }
+
+        if (configuration.get(ConfigKeys.APPLYING_WILDCARDS_SPONGE)) {
+            processors.add(new SpongeWildcardProcessor());
+        }
+
+        return new PermissionCalculator(plugin, metadata, processors);
+    }
+
+    /**
+     * Stops the background tasks started by a plugin created by {@link #create()}.
+     *
+     * @param plugin the plugin
+     */
+    public static void close(LuckPermsPlugin plugin) {
+        plugin.getVerboseHandler().close();
+        ((AsyncPermissionRegistry) plugin.getPermissionRegistry()).close();
+
+        AbstractJavaScheduler scheduler = (AbstractJavaScheduler) plugin.getBootstrap().getScheduler();
+        scheduler.shutdownScheduler();
+        scheduler.shutdownExecutor();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.jmh;
+
+import me.lucko.luckperms.common.cacheddata.CacheMetadata;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.manager.group.GroupManager;
+import me.lucko.luckperms.common.node.factory.NodeBuilders;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Weight;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates the (deterministic) datasets used by the benchmarks.
+ *
+ * <p>Permissions are shaped like those registered by real plugins, e.g.
+ * {@code plugin12.feature3.action7}, and the generated data includes a
+ * configurable proportion of wildcard ({@code plugin12.feature3.*}) and
+ * regex ({@code r=plugin12\.feature[0-4]\..*}) permissions.</p>
+ */
+public final class Datasets {
+    private Datasets() {}
+
+    public static final long SEED = 0x4C75636B5065726DL;
+
+    private static final int PLUGINS = 100;
+    private static final int FEATURES = 20;
+    private static final int ACTIONS = 10;
+
+    public static String randomPermission(Random random) {
+        return "plugin" + random.nextInt(PLUGINS) + ".feature" + random.nextInt(FEATURES) + ".action" + random.nextInt(ACTIONS);
+    }
+
+    public static String randomWildcardPermission(Random random) {
+        if (random.nextBoolean()) {
+            return "plugin" + random.nextInt(PLUGINS) + ".*";
+        } else {
+            return "plugin" + random.nextInt(PLUGINS) + ".feature" + random.nextInt(FEATURES) + ".*";
+        }
+    }
+
+    public static String randomRegexPermission(Random random) {
+        int from = random.nextInt(FEATURES / 2);
+        return "r=plugin" + random.nextInt(PLUGINS) + "\\.feature[" + from + "-" + (from + 4) + "]\\..*";
+    }
+
+    /**
+     * Generates a resolved permission map, as would be passed to a calculator.
+     *
+     * @param size the number of permissions
+     * @param wildcardRatio the proportion of permissions which should be wildcards
+     * @param regexRatio the proportion of permissions which should be regex patterns
+     * @param random the random source
+     * @return the permissions
+     */
+    public static Map<String, Node> permissions(int size, double wildcardRatio, double regexRatio, Random random) {
+        Map<String, Node> map = new HashMap<>();
+        while (map.size() < size) {
+            double type = random.nextDouble();
+            String permission;
+            if (type < regexRatio) {
+                permission = randomRegexPermission(random);
+            } else if (type < regexRatio + wildcardRatio) {
+                permission = randomWildcardPermission(random);
+            } else {
+                permission = randomPermission(random);
+            }
+
+            // roughly 1 in 10 permissions are negated
+            Node node = NodeBuilders.determineMostApplicable(permission).value(random.nextInt(10) != 0).build();
+            map.put(node.getKey(), node);
+        }
+        return map;
+    }
+
+    /**
+     * Generates an array of permissions to query, the length of which is a power of 2.
+     *
+     * @param size the number of queries, rounded up to a power of 2
+     * @param random the random source
+     * @return the queries
+     */
+    public static String[] queries(int size, Random random) {
+        String[] queries = new String[Integer.highestOneBit(size - 1) << 1];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomPermission(random);
+        }
+        return queries;
+    }
+
+    /**
+     * Creates a group inheritance tree in the given plugin's group manager.
+     *
+     * <p>The tree consists of a number of "tracks", each a linear chain of
+     * groups with increasing weight, which all eventually inherit from the
+     * {@code default} group. The returned holder group directly inherits from
+     * the top group of every track.</p>
+     *
+     * @param plugin the plugin
+     * @param tracks the number of tracks
+     * @param depth the number of groups in each track
+     * @param permissionsPerGroup the number of permissions to give each group
+     * @param context the context to set inheritance nodes in (or empty)
+     * @param random the random source
+     * @return the holder group
+     */
+    public static Group groups(LuckPermsPlugin plugin, int tracks, int depth, int permissionsPerGroup, ImmutableContextSet context, Random random) {
+        Group defaultGroup = createGroup(plugin, GroupManager.DEFAULT_GROUP_NAME, 0, permissionsPerGroup, random);
+        Group holder = plugin.getGroupManager().getOrMake("holder");
+
+        for (int track = 0; track < tracks; track++) {
+            Group parent = defaultGroup;
+            for (int level = 0; level < depth; level++) {
+                Group group = createGroup(plugin, "track" + track + "-" + level, level + 1, permissionsPerGroup, random);
+                group.setNode(DataType.NORMAL, Inheritance.builder(parent.getName()).withContext(context).build(), false);
+                parent = group;
+            }
+            holder.setNode(DataType.NORMAL, Inheritance.builder(parent.getName()).withContext(context).build(), false);
+        }
+
+        return holder;
+    }
+
+    private static Group createGroup(LuckPermsPlugin plugin, String name, int weight, int permissions, Random random) {
+        Group group = plugin.getGroupManager().getOrMake(name);
+        List<Node> nodes = new ArrayList<>(permissions(permissions, 0.1, 0.0, random).values());
+        nodes.add(Weight.builder(weight).build());
+        group.setNodes(DataType.NORMAL, nodes, false);
+        return group;
+    }
+
+    public static CacheMetadata metadata(QueryOptions queryOptions) {
+        return new CacheMetadata(HolderType.USER, VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "benchmark"), queryOptions);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.jmh;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.inheritance.InheritanceGraph;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.query.QueryOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link InheritanceGraph#traverse(PermissionHolder)} and the
+ * resolution of inherited nodes over a generated group tree.
+ *
+ * <p>With the default parameters, the holder inherits from 50 tracks of
+ * 20 groups each (1001 groups in total).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InheritanceGraphBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int tracks;
+
+    @Param({"20"})
+    public int depth;
+
+    @Param({"10"})
+    public int permissionsPerGroup;
+
+    /** If inheritance should be set in, and queried with, a server context */
+    @Param({"false", "true"})
+    public boolean contextual;
+
+    private LuckPermsPlugin plugin;
+    private Group holder;
+    private QueryOptions queryOptions;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Datasets.SEED);
+        this.plugin = BenchmarkPlugin.create();
+
+        ImmutableContextSet context = this.contextual ? ImmutableContextSetImpl.of("server", "survival") : ImmutableContextSetImpl.EMPTY;
+        this.holder = Datasets.groups(this.plugin, this.tracks, this.depth, this.permissionsPerGroup, context, random);
+        this.queryOptions = QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder().context(context).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkPlugin.close(this.plugin);
+    }
+
+    @Benchmark
+    public void traverse(Blackhole blackhole) {
+        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(this.queryOptions);
+        for (PermissionHolder holder : graph.traverse(this.holder)) {
+            blackhole.consume(holder);
+        }
+    }
+
+    @Benchmark
+    public List<Node> resolveInheritedNodes() {
+        return this.holder.resolveInheritedNodes(this.queryOptions);
+    }
+
+}
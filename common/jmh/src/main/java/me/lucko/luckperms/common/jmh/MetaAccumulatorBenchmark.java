@@ -0,0 +1,104 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.jmh;
+
+import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
+import me.lucko.luckperms.common.node.types.Meta;
+import me.lucko.luckperms.common.node.types.Prefix;
+import me.lucko.luckperms.common.node.types.Suffix;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import net.luckperms.api.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks accumulating meta, prefix and suffix nodes into a {@link MetaAccumulator},
+ * as happens each time a holder's meta data is calculated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetaAccumulatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodeCount;
+
+    private LuckPermsPlugin plugin;
+    private Node[] nodes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Datasets.SEED);
+        this.plugin = BenchmarkPlugin.create();
+
+        this.nodes = new Node[this.nodeCount];
+        for (int i = 0; i < this.nodes.length; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    this.nodes[i] = Prefix.builder("[prefix" + i + "]", random.nextInt(100)).build();
+                    break;
+                case 1:
+                    this.nodes[i] = Suffix.builder("[suffix" + i + "]", random.nextInt(100)).build();
+                    break;
+                default:
+                    this.nodes[i] = Meta.builder("key" + random.nextInt(20), "value" + i).build();
+                    break;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkPlugin.close(this.plugin);
+    }
+
+    @Benchmark
+    public MetaAccumulator accumulate() {
+        MetaAccumulator accumulator = MetaAccumulator.makeFromConfig(this.plugin);
+        for (Node node : this.nodes) {
+            accumulator.accumulateNode(node);
+        }
+        accumulator.complete();
+        return accumulator;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.jmh;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
+import me.lucko.luckperms.common.node.factory.NodeBuilders;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.Difference;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link NodeMapMutable#add(Node)} and {@link NodeMapMutable#remove(Node)}
+ * against a map which already contains {@code existingSize} nodes.
+ *
+ * <p>Each invocation adds a node and then removes it again, so the size of the
+ * map stays constant.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeMapBenchmark {
+
+    @Param({"10", "1000"})
+    public int existingSize;
+
+    private LuckPermsPlugin plugin;
+    private NodeMapMutable nodeMap;
+    private Node[] nodes;
+    private Node[] contextualNodes;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Datasets.SEED);
+        this.plugin = BenchmarkPlugin.create();
+
+        Group holder = this.plugin.getGroupManager().getOrMake("holder");
+        this.nodeMap = new NodeMapMutable(holder, DataType.NORMAL);
+        for (Node node : Datasets.permissions(this.existingSize, 0.1, 0.0, random).values()) {
+            this.nodeMap.add(node);
+        }
+
+        this.nodes = new Node[1024];
+        this.contextualNodes = new Node[1024];
+        for (int i = 0; i < this.nodes.length; i++) {
+            String permission = "added." + Datasets.randomPermission(random);
+            this.nodes[i] = NodeBuilders.determineMostApplicable(permission).build();
+            this.contextualNodes[i] = NodeBuilders.determineMostApplicable(permission)
+                    .withContext(ImmutableContextSetImpl.of("server", "server" + random.nextInt(4)))
+                    .build();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkPlugin.close(this.plugin);
+    }
+
+    @Benchmark
+    public void addRemove(Blackhole blackhole) {
+        Node node = this.nodes[this.index++ & (this.nodes.length - 1)];
+        Difference<Node> added = this.nodeMap.add(node);
+        Difference<Node> removed = this.nodeMap.remove(node);
+        blackhole.consume(added);
+        blackhole.consume(removed);
+    }
+
+    @Benchmark
+    public void addRemoveContextual(Blackhole blackhole) {
+        Node node = this.contextualNodes[this.index++ & (this.contextualNodes.length - 1)];
+        Difference<Node> added = this.nodeMap.add(node);
+        Difference<Node> removed = this.nodeMap.remove(node);
+        blackhole.consume(added);
+        blackhole.consume(removed);
+    }
+
+}
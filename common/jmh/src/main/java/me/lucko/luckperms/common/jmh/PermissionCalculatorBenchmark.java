@@ -0,0 +1,112 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.jmh;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PermissionCalculator#checkPermission}, for both lookup
+ * cache hits and misses.
+ *
+ * <p>The processors used are determined by the configuration, in the same way
+ * as the standalone platform, e.g. pass {@code -jvmArgs -Dluckperms.apply-regex=false}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionCalculatorBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int sourceSize;
+
+    @Param({"0.1"})
+    public double wildcardRatio;
+
+    @Param({"0.01"})
+    public double regexRatio;
+
+    private LuckPermsPlugin plugin;
+    private PermissionCalculator calculator;
+    private String[] queries;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Datasets.SEED);
+        this.plugin = BenchmarkPlugin.create();
+        this.calculator = this.plugin.getCalculatorFactory().build(QueryOptionsImpl.DEFAULT_CONTEXTUAL, Datasets.metadata(QueryOptionsImpl.DEFAULT_CONTEXTUAL));
+        this.calculator.setSourcePermissions(Datasets.permissions(this.sourceSize, this.wildcardRatio, this.regexRatio, random));
+        this.queries = Datasets.queries(4096, random);
+
+        // populate the lookup cache
+        for (String query : this.queries) {
+            this.calculator.checkPermission(query, CheckOrigin.INTERNAL);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkPlugin.close(this.plugin);
+    }
+
+    private String nextQuery() {
+        return this.queries[this.index++ & (this.queries.length - 1)];
+    }
+
+    @Benchmark
+    public TristateResult hit() {
+        return this.calculator.checkPermission(nextQuery(), CheckOrigin.PLATFORM_API_HAS_PERMISSION);
+    }
+
+    @Benchmark
+    public TristateResult miss() {
+        // the function used to populate the lookup cache on a miss
+        return this.calculator.apply(nextQuery());
+    }
+
+}
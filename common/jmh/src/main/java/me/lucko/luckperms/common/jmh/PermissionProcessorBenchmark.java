@@ -0,0 +1,111 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.jmh;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
+import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
+import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each {@link PermissionProcessor} in isolation.
+ *
+ * <p>The {@code regex-combined} processor is the {@link RegexProcessor} with
+ * patterns combined into a single expression (the {@code apply-regex-combined}
+ * option); compare it with {@code regex} using a larger {@code regexRatio}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionProcessorBenchmark {
+
+    @Param({"direct", "wildcard", "sponge-wildcard", "regex", "regex-combined"})
+    public String processor;
+
+    @Param({"1000"})
+    public int sourceSize;
+
+    @Param({"0.1"})
+    public double wildcardRatio;
+
+    @Param({"0.05"})
+    public double regexRatio;
+
+    private PermissionProcessor permissionProcessor;
+    private String[] queries;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(Datasets.SEED);
+        this.permissionProcessor = createProcessor(this.processor);
+        this.permissionProcessor.setSource(Datasets.permissions(this.sourceSize, this.wildcardRatio, this.regexRatio, random));
+        this.permissionProcessor.refresh();
+        this.queries = Datasets.queries(4096, random);
+    }
+
+    private static PermissionProcessor createProcessor(String name) {
+        switch (name) {
+            case "direct":
+                return new DirectProcessor();
+            case "wildcard":
+                return new WildcardProcessor();
+            case "sponge-wildcard":
+                return new SpongeWildcardProcessor();
+            case "regex":
+                return new RegexProcessor(false);
+            case "regex-combined":
+                return new RegexProcessor(true);
+            default:
+                throw new IllegalArgumentException("Unknown processor: " + name);
+        }
+    }
+
+    @Benchmark
+    public TristateResult hasPermission() {
+        return this.permissionProcessor.hasPermission(TristateResult.UNDEFINED, this.queries[this.index++ & (this.queries.length - 1)]);
+    }
+
+}
@@ -58,6 +58,7 @@ import net.luckperms.api.model.user.UserManager;
 import net.luckperms.api.node.NodeBuilderRegistry;
 import net.luckperms.api.node.matcher.NodeMatcherFactory;
 import net.luckperms.api.platform.Health;
+import net.luckperms.api.platform.Metrics;
 import net.luckperms.api.platform.Platform;
 import net.luckperms.api.platform.PlayerAdapter;
 import net.luckperms.api.platform.PluginMetadata;
@@ -180,6 +181,11 @@ public class LuckPermsApiProvider implements LuckPerms {
         return this.plugin.runHealthCheck();
     }
 
+    @Override
+    public @NonNull Metrics getMetrics() {
+        return this.plugin.getMetrics();
+    }
+
     @Override
     public @NonNull AbstractEventBus<?> getEventBus() {
         return this.plugin.getEventDispatcher().getEventBus();
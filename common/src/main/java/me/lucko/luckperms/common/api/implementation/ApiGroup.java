@@ -34,6 +34,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Objects;
 import java.util.OptionalInt;
+import java.util.Set;
 
 public class ApiGroup extends ApiPermissionHolder implements net.luckperms.api.model.group.Group {
     public static Group cast(net.luckperms.api.model.group.Group group) {
@@ -83,8 +84,8 @@ public class ApiGroup extends ApiPermissionHolder implements net.luckperms.api.m
     protected void onNodeChange() {
         // invalidate caches - they have potentially been affected by
         // this change.
-        this.handle.getPlugin().getGroupManager().invalidateAllGroupCaches();
-        this.handle.getPlugin().getUserManager().invalidateAllUserCaches();
+        Set<String> groups = this.handle.getPlugin().getGroupManager().invalidateDependentCaches(this.handle);
+        this.handle.getPlugin().getUserManager().invalidateDependentCaches(groups);
     }
 
     @Override
@@ -25,6 +25,7 @@
 
 package me.lucko.luckperms.common.backup;
 
+import com.google.common.collect.Iterables;
 import com.google.gson.JsonObject;
 import me.lucko.luckperms.common.http.AbstractHttpClient;
 import me.lucko.luckperms.common.http.UnsuccessfulRequestException;
@@ -53,7 +54,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
@@ -63,12 +63,11 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPOutputStream;
 
@@ -77,6 +76,7 @@ import java.util.zip.GZIPOutputStream;
  */
 public abstract class Exporter implements Runnable {
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z");
+    private static final int USER_PAGE_SIZE = 1000;
 
     protected final LuckPermsPlugin plugin;
     private final Sender executor;
@@ -152,10 +152,34 @@ public abstract class Exporter implements Runnable {
     }
 
     private JsonObject exportUsers() {
-        // Users are migrated in separate threads.
-        // This is because there are likely to be a lot of them, and because we can.
-        // It's a big speed improvement, since the database/files are split up and can handle concurrent reads.
+        this.log.log("Exporting users in pages of " + USER_PAGE_SIZE + ".");
+
+        Map<UUID, JsonObject> out = new TreeMap<>();
+        UserPageExporter exporter = new UserPageExporter(out);
+
+        try {
+            if (this.plugin.getStorage().getImplementation().supportsBulkUserLoads()) {
+                // Users are loaded from storage in pages, rather than finding all of the unique users
+                // up front and then loading them one at a time.
+                this.plugin.getStorage().iterateUsers(USER_PAGE_SIZE, exporter::export).join();
+            } else {
+                // The storage can only load users one at a time, so load each page concurrently.
+                exportUsersConcurrently(exporter);
+            }
+        } catch (CompletionException e) {
+            // abnormal error - export what we have
+            e.printStackTrace();
+        }
+        this.log.log("Exported " + exporter.userCount + " users.");
 
+        JsonObject outJson = new JsonObject();
+        for (Map.Entry<UUID, JsonObject> entry : out.entrySet()) {
+            outJson.add(entry.getKey().toString(), entry.getValue());
+        }
+        return outJson;
+    }
+
+    private void exportUsersConcurrently(UserPageExporter exporter) {
         this.log.log("Finding a list of unique users to export.");
 
         // Find all of the unique users we need to export
@@ -165,19 +189,38 @@ public abstract class Exporter implements Runnable {
 
         // create a threadpool to process the users concurrently
         ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            for (List<UUID> page : Iterables.partition(users, USER_PAGE_SIZE)) {
+                Map<UUID, User> loaded = new ConcurrentHashMap<>();
+                CompletableFutures.allOf(page.stream().map(uuid -> CompletableFuture.runAsync(() -> {
+                    User user = ds.loadUser(uuid, null).join();
+                    if (user != null) {
+                        loaded.put(uuid, user);
+                    }
+                }, executor))).join();
+
+                exporter.export(loaded);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 
-        // A set of futures, which are really just the processes we need to wait for.
-        Set<CompletableFuture<Void>> futures = new HashSet<>();
+    /**
+     * Exports pages of users into the output, reporting progress as it goes.
+     */
+    private final class UserPageExporter {
+        private final Map<UUID, JsonObject> out;
+        private int userCount = 0;
+        private long lastProgress = System.currentTimeMillis();
 
-        AtomicInteger userCount = new AtomicInteger(0);
-        Map<UUID, JsonObject> out = Collections.synchronizedMap(new TreeMap<>());
+        UserPageExporter(Map<UUID, JsonObject> out) {
+            this.out = out;
+        }
 
-        // iterate through each user.
-        for (UUID uuid : users) {
-            // register a task for the user, and schedule it's execution with the pool
-            futures.add(CompletableFuture.runAsync(() -> {
-                User user = this.plugin.getStorage().loadUser(uuid, null).join();
-                out.put(user.getUniqueId(), new JObject()
+        void export(Map<UUID, User> users) {
+            for (User user : users.values()) {
+                this.out.put(user.getUniqueId(), new JObject()
                         .consume(obj -> {
                             user.getUsername().ifPresent(username -> obj.add("username", username));
                             if (!user.getPrimaryGroup().getStoredValue().orElse(GroupManager.DEFAULT_GROUP_NAME).equalsIgnoreCase(GroupManager.DEFAULT_GROUP_NAME)) {
@@ -186,38 +229,17 @@ public abstract class Exporter implements Runnable {
                         })
                         .add("nodes", NodeJsonSerializer.serializeNodes(user.normalData().asSet()))
                         .toJson());
-                this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
-                userCount.incrementAndGet();
-            }, executor));
-        }
-
-        // all of the threads have been scheduled now and are running. we just need to wait for them all to complete
-        CompletableFuture<Void> overallFuture = CompletableFutures.allOf(futures);
-
-        while (true) {
-            try {
-                overallFuture.get(5, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException e) {
-                // abnormal error - just break
-                e.printStackTrace();
-                break;
-            } catch (TimeoutException e) {
-                // still executing - send a progress report and continue waiting
-                this.log.logProgress("Exported " + userCount.get() + " users so far.");
-                continue;
+                Exporter.this.plugin.getUserManager().getHouseKeeper().cleanup(user.getUniqueId());
             }
+            this.userCount += users.size();
 
-            // process is complete
-            break;
-        }
-
-        executor.shutdown();
-
-        JsonObject outJson = new JsonObject();
-        for (Map.Entry<UUID, JsonObject> entry : out.entrySet()) {
-            outJson.add(entry.getKey().toString(), entry.getValue());
+            // send a progress report every 5 seconds
+            long now = System.currentTimeMillis();
+            if (now - this.lastProgress >= TimeUnit.SECONDS.toMillis(5)) {
+                this.lastProgress = now;
+                Exporter.this.log.logProgress("Exported " + this.userCount + " users so far.");
+            }
         }
-        return outJson;
     }
 
     public static final class SaveFile extends Exporter {
@@ -0,0 +1,57 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cache;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * A weak, global interner for permission strings.
+ *
+ * <p>The same few thousand permission strings are held by the nodes and lookup
+ * caches of every online user. Interning them means each distinct string is only
+ * held in memory once, and equality checks between interned strings succeed on the
+ * identity comparison in {@link String#equals(Object)}.</p>
+ *
+ * <p>Entries are weakly referenced, so strings which are no longer used anywhere
+ * (e.g. dynamic, per-entity permissions) can still be garbage collected.</p>
+ */
+public final class StringInterner {
+    private StringInterner() {}
+
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+    /**
+     * Gets the canonical instance of the given string.
+     *
+     * @param string the string
+     * @return the canonical instance
+     */
+    public static String intern(String string) {
+        return INTERNER.intern(string);
+    }
+
+}
@@ -31,7 +31,9 @@ import me.lucko.luckperms.common.cacheddata.type.MonitoredMetaCache;
 import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsInterner;
 import me.lucko.luckperms.common.util.CaffeineFactory;
 import me.lucko.luckperms.common.util.CompletableFutures;
 import net.luckperms.api.cacheddata.CachedData;
@@ -151,20 +153,39 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     
     private PermissionCache calculatePermissions(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
+        long startTime = System.nanoTime();
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
         ConcurrentHashMap<String, Node> sourcePermissions = resolvePermissions(ConcurrentHashMap::new, queryOptions);
+        PermissionCache cache = newPermissionCache(queryOptions, metadata, sourcePermissions);
+
+        this.plugin.getMetrics().recordPermissionDataCalculation(metadata.getHolderType(), System.nanoTime() - startTime);
+        return cache;
+    }
+
+    /**
+     * Creates a {@link PermissionCache} for the resolved permissions.
+     *
+     * @param queryOptions the query options
+     * @param metadata the cache metadata
+     * @param sourcePermissions the resolved permissions
+     * @return the permission cache
+     */
+    protected PermissionCache newPermissionCache(QueryOptions queryOptions, CacheMetadata metadata, ConcurrentHashMap<String, Node> sourcePermissions) {
         return new PermissionCache(queryOptions, metadata, getCalculatorFactory(), sourcePermissions);
     }
     
     private MonitoredMetaCache calculateMeta(QueryOptions queryOptions) {
         Objects.requireNonNull(queryOptions, "queryOptions");
+        long startTime = System.nanoTime();
         CacheMetadata metadata = getMetadataForQueryOptions(queryOptions);
 
         MetaAccumulator accumulator = newAccumulator(queryOptions);
         resolveMeta(accumulator, queryOptions);
+        MonitoredMetaCache cache = new MonitoredMetaCache(this.plugin, queryOptions, metadata, accumulator);
 
-        return new MonitoredMetaCache(this.plugin, queryOptions, metadata, accumulator);
+        this.plugin.getMetrics().recordMetaDataCalculation(metadata.getHolderType(), System.nanoTime() - startTime);
+        return cache;
     }
 
     @Override
@@ -173,6 +194,28 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         this.meta.invalidate();
     }
 
+    /**
+     * Discards cached data following a change to the data it was calculated from.
+     *
+     * <p>If {@link ConfigKeys#REFRESH_CACHED_DATA_ASYNCHRONOUSLY} is enabled, the existing
+     * data is kept and continues to be served while replacements are calculated in
+     * the background. Otherwise, this is the same as {@link #invalidate()}.</p>
+     *
+     * @return a future which completes once the replacement data has been applied
+     */
+    public final CompletableFuture<Void> refresh() {
+        if (this.permission.isEmpty() && this.meta.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (this.plugin.getConfiguration().get(ConfigKeys.REFRESH_CACHED_DATA_ASYNCHRONOUSLY)) {
+            return CompletableFuture.allOf(this.permission.recalculateAll(), this.meta.recalculateAll());
+        } else {
+            invalidate();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     @Override
     public final void invalidatePermissionCalculators() {
         this.permission.cache.values().forEach(PermissionCache::invalidateCache);
@@ -186,6 +229,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
     private static final class AbstractContainer<C extends I, I extends CachedData> implements Container<I> {
         private final Function<QueryOptions, C> cacheLoader;
         private final LoadingMap<QueryOptions, C> cache;
+        private final Map<QueryOptions, Object> pendingRecalculations = new ConcurrentHashMap<>();
 
         public AbstractContainer(Function<QueryOptions, C> cacheLoader) {
             this.cacheLoader = cacheLoader;
@@ -200,7 +244,11 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         public @NonNull C get(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
 
-            C data = this.cache.get(queryOptions);
+            C data = this.cache.getIfPresent(queryOptions);
+            if (data == null) {
+                // store the canonical instance as the key, so lookups with it short-circuit on identity
+                data = this.cache.get(QueryOptionsInterner.intern(queryOptions));
+            }
             ((UsageTracked) data).recordUsage();
             return data;
         }
@@ -214,9 +262,20 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         @Override
         public void recalculate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
-            CompletableFuture.runAsync(() -> {
+            recalculateAsync(queryOptions);
+        }
+
+        private CompletableFuture<Void> recalculateAsync(QueryOptions queryOptions) {
+            // only the most recently requested recalculation for each key is applied,
+            // so an older (slower) one can't replace the result of a newer one
+            Object token = new Object();
+            this.pendingRecalculations.put(queryOptions, token);
+
+            return CompletableFuture.runAsync(() -> {
                 final C value = this.cacheLoader.apply(queryOptions);
-                this.cache.put(queryOptions, value);
+                if (this.pendingRecalculations.remove(queryOptions, token)) {
+                    this.cache.put(queryOptions, value);
+                }
             }, CaffeineFactory.executor());
         }
 
@@ -225,6 +284,7 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
             Objects.requireNonNull(queryOptions, "queryOptions");
 
             // invalidate the previous value until we're done recalculating
+            this.pendingRecalculations.remove(queryOptions);
             this.cache.remove(queryOptions);
 
             // request recalculation from the cache
@@ -233,8 +293,17 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
 
         @Override
         public void recalculate() {
+            recalculateAll();
+        }
+
+        /**
+         * Recalculates all entries in the background.
+         *
+         * @return a future which completes once all recalculated values have been applied
+         */
+        public CompletableFuture<Void> recalculateAll() {
             Set<QueryOptions> keys = this.cache.keySet();
-            keys.forEach(this::recalculate);
+            return CompletableFutures.allOf(keys.stream().map(this::recalculateAsync));
         }
 
         @Override
@@ -246,13 +315,19 @@ public abstract class AbstractCachedDataManager implements CachedDataManager {
         @Override
         public void invalidate(@NonNull QueryOptions queryOptions) {
             Objects.requireNonNull(queryOptions, "queryOptions");
+            this.pendingRecalculations.remove(queryOptions);
             this.cache.remove(queryOptions);
         }
 
         @Override
         public void invalidate() {
+            this.pendingRecalculations.clear();
             this.cache.clear();
         }
+
+        public boolean isEmpty() {
+            return this.cache.isEmpty();
+        }
     }
     
     private MetaAccumulator newAccumulator(QueryOptions queryOptions) {
@@ -0,0 +1,183 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A pool of {@link PermissionCalculator}s which are shared between holders
+ * with identical resolved permissions.
+ *
+ * <p>Most users on a server hold exactly the same permissions (e.g. they only
+ * inherit from the default group). Rather than each of them having their own
+ * source map, calculator and lookup cache, holders whose resolved permissions
+ * have the same fingerprint share a single calculator.</p>
+ *
+ * <p>Calculators are weakly referenced, and are removed from the pool once no
+ * {@link me.lucko.luckperms.common.cacheddata.type.PermissionCache} uses them.</p>
+ */
+public class SharedPermissionCalculators {
+
+    private final Cache<Fingerprint, PermissionCalculator> calculators = CaffeineFactory.newBuilder()
+            .weakValues()
+            .build();
+
+    /**
+     * Gets a calculator for the given resolved permissions, creating one if no
+     * holder with identical data already has one.
+     *
+     * @param holder the holder the permissions were resolved for
+     * @param queryOptions the query options the permissions were resolved with
+     * @param metadata the cache metadata
+     * @param calculatorFactory the factory to create the calculator with
+     * @param permissions the resolved permissions
+     * @return a calculator
+     */
+    public PermissionCalculator get(PermissionHolderIdentifier holder, QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, Map<String, Node> permissions) {
+        Fingerprint fingerprint = new Fingerprint(calculatorFactory, metadata.getHolderType(), queryOptions, holder, permissions);
+        return this.calculators.get(fingerprint, f -> {
+            PermissionCalculator calculator = calculatorFactory.build(queryOptions, metadata);
+            calculator.setSourcePermissions(permissions);
+            return calculator;
+        });
+    }
+
+    /**
+     * Gets the number of distinct calculators currently in the pool.
+     *
+     * @return the number of calculators
+     */
+    public long size() {
+        return this.calculators.estimatedSize();
+    }
+
+    /**
+     * Identifies a set of resolved permissions, and everything else that
+     * determines how a calculator is built for them.
+     *
+     * <p>Nodes are compared using their usual equality, plus their inheritance
+     * origin. Nodes which originate from the holder itself are treated as equal
+     * to nodes which originate from the other holder, so that users who only
+     * differ by identity still match.</p>
+     */
+    private static final class Fingerprint {
+        private final CalculatorFactory calculatorFactory;
+        private final HolderType holderType;
+        private final QueryOptions queryOptions;
+        private final PermissionHolderIdentifier holder;
+        private final Map<String, Node> permissions;
+        private final int hashCode;
+
+        Fingerprint(CalculatorFactory calculatorFactory, HolderType holderType, QueryOptions queryOptions, PermissionHolderIdentifier holder, Map<String, Node> permissions) {
+            this.calculatorFactory = calculatorFactory;
+            this.holderType = holderType;
+            this.queryOptions = queryOptions;
+            this.holder = holder;
+            this.permissions = permissions;
+            this.hashCode = calculateHashCode();
+        }
+
+        private int calculateHashCode() {
+            int permissionsHash = 0;
+            for (Map.Entry<String, Node> e : this.permissions.entrySet()) {
+                Node node = e.getValue();
+                InheritanceOriginMetadata origin = getOrigin(node);
+                int originHash = origin == null || isSelf(origin, this.holder) ? 0 : origin.hashCode();
+                permissionsHash += e.getKey().hashCode() ^ node.hashCode() ^ originHash;
+            }
+
+            int result = System.identityHashCode(this.calculatorFactory);
+            result = 31 * result + Objects.hashCode(this.holderType);
+            result = 31 * result + this.queryOptions.hashCode();
+            result = 31 * result + permissionsHash;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            Fingerprint that = (Fingerprint) o;
+
+            if (this.hashCode != that.hashCode ||
+                    this.calculatorFactory != that.calculatorFactory ||
+                    this.holderType != that.holderType ||
+                    !this.queryOptions.equals(that.queryOptions) ||
+                    this.permissions.size() != that.permissions.size()) {
+                return false;
+            }
+
+            for (Map.Entry<String, Node> e : this.permissions.entrySet()) {
+                Node node = e.getValue();
+                Node other = that.permissions.get(e.getKey());
+                if (other == null || !node.equals(other) || !sameOrigin(node, this.holder, other, that.holder)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        private static boolean sameOrigin(Node node, PermissionHolderIdentifier holder, Node other, PermissionHolderIdentifier otherHolder) {
+            InheritanceOriginMetadata origin = getOrigin(node);
+            InheritanceOriginMetadata otherOrigin = getOrigin(other);
+            if (origin == null || otherOrigin == null) {
+                return origin == otherOrigin;
+            }
+
+            boolean self = isSelf(origin, holder);
+            boolean otherSelf = isSelf(otherOrigin, otherHolder);
+            if (self || otherSelf) {
+                return self && otherSelf && origin.getDataType() == otherOrigin.getDataType();
+            }
+            return origin.equals(otherOrigin);
+        }
+
+        private static InheritanceOriginMetadata getOrigin(Node node) {
+            return node.getMetadata(InheritanceOriginMetadata.KEY).orElse(null);
+        }
+
+        private static boolean isSelf(InheritanceOriginMetadata origin, PermissionHolderIdentifier holder) {
+            return origin.getOrigin().equals(holder);
+        }
+    }
+
+}
@@ -25,12 +25,18 @@
 
 package me.lucko.luckperms.common.cacheddata;
 
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
 import net.luckperms.api.cacheddata.CachedDataManager;
+import net.luckperms.api.node.Node;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Holds an easily accessible cache of a user's data in a number of contexts
  */
@@ -45,4 +51,14 @@ public class UserCachedDataManager extends HolderCachedDataManager<User> impleme
         return new CacheMetadata(HolderType.USER, VerboseCheckTarget.user(this.holder), queryOptions);
     }
 
+    @Override
+    protected PermissionCache newPermissionCache(QueryOptions queryOptions, CacheMetadata metadata, ConcurrentHashMap<String, Node> sourcePermissions) {
+        if (!getPlugin().getConfiguration().get(ConfigKeys.SHARE_IDENTICAL_PERMISSION_DATA)) {
+            return super.newPermissionCache(queryOptions, metadata, sourcePermissions);
+        }
+
+        PermissionCalculator calculator = getPlugin().getSharedPermissionCalculators().get(this.holder.getIdentifier(), queryOptions, metadata, getCalculatorFactory(), sourcePermissions);
+        return new PermissionCache(queryOptions, metadata, calculator, sourcePermissions);
+    }
+
 }
@@ -69,6 +69,19 @@ public final class TristateResult extends AbstractResult<Tristate, Node, Tristat
         }
     }
 
+    /**
+     * Creates a copy of this result, caused by a different node.
+     *
+     * @param node the node
+     * @param overriddenResult the result overridden by the copy
+     * @return the copy
+     */
+    public TristateResult withNode(@Nullable Node node, @Nullable TristateResult overriddenResult) {
+        TristateResult result = new TristateResult(this.result, node, this.processorClass);
+        result.setOverriddenResult(overriddenResult);
+        return result;
+    }
+
     @Override
     public String toString() {
         return "TristateResult(" +
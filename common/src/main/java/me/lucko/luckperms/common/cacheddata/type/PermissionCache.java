@@ -40,8 +40,10 @@ import net.luckperms.api.util.Tristate;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
 /**
  * Holds cached permissions data for a given context
@@ -53,6 +55,11 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
      */
     private final QueryOptions queryOptions;
 
+    /**
+     * The metadata for this cache
+     */
+    private final CacheMetadata metadata;
+
     /**
      * The raw set of permission strings.
      */
@@ -70,8 +77,15 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
      */
     private final PermissionCalculator calculator;
 
+    /**
+     * Maps nodes in the calculator's source map to the equivalent nodes in {@link #permissions},
+     * or null if the calculator is not shared. Populated lazily on first use.
+     */
+    private volatile Map<Node, Node> sharedNodeMapping;
+
     public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, CalculatorFactory calculatorFactory, ConcurrentHashMap<String, Node> sourcePermissions) {
         this.queryOptions = queryOptions;
+        this.metadata = metadata;
         this.permissions = sourcePermissions;
         this.permissionsView = Collections.unmodifiableMap(Maps.transformValues(this.permissions, Node::getValue));
 
@@ -79,6 +93,27 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         this.calculator.setSourcePermissions(this.permissions);
     }
 
+    /**
+     * Creates a permission cache backed by an existing (possibly shared) calculator.
+     *
+     * <p>The calculator's source map may belong to another holder with identical
+     * data. Results are mapped back to the equivalent nodes in this holder's own
+     * source map, so that they report the correct inheritance origin.</p>
+     *
+     * @param queryOptions the query options
+     * @param metadata the metadata for this cache
+     * @param calculator the calculator, with its source permissions already set
+     * @param sourcePermissions the permissions resolved for this holder
+     */
+    public PermissionCache(QueryOptions queryOptions, CacheMetadata metadata, PermissionCalculator calculator, ConcurrentHashMap<String, Node> sourcePermissions) {
+        this.queryOptions = queryOptions;
+        this.metadata = metadata;
+        this.permissions = sourcePermissions;
+        this.permissionsView = Collections.unmodifiableMap(Maps.transformValues(this.permissions, Node::getValue));
+
+        this.calculator = calculator;
+    }
+
     @Override
     public void invalidateCache() {
         this.calculator.invalidateCache();
@@ -97,7 +132,44 @@ public class PermissionCache extends UsageTracked implements CachedPermissionDat
         if (permission == null) {
             throw new NullPointerException("permission");
         }
-        return this.calculator.checkPermission(permission, origin);
+        if (this.calculator.getSourcePermissions() == this.permissions) {
+            return this.calculator.checkPermission(permission, this.metadata, UnaryOperator.identity(), origin);
+        }
+        return this.calculator.checkPermission(permission, this.metadata, this::toOwnResult, origin);
+    }
+
+    private TristateResult toOwnResult(TristateResult result) {
+        Node node = result.node();
+        TristateResult overriddenResult = result.overriddenResult();
+        if (node == null && overriddenResult == null) {
+            return result;
+        }
+
+        Node ownNode = node == null ? null : toOwnNode(node);
+        TristateResult ownOverriddenResult = overriddenResult == null ? null : toOwnResult(overriddenResult);
+        if (ownNode == node && ownOverriddenResult == overriddenResult) {
+            return result;
+        }
+        return result.withNode(ownNode, ownOverriddenResult);
+    }
+
+    private Node toOwnNode(Node node) {
+        Map<Node, Node> mapping = this.sharedNodeMapping;
+        if (mapping == null) {
+            // the shared source map has exactly the same keys as our own,
+            // so pair up the nodes stored under each key
+            mapping = new IdentityHashMap<>();
+            for (Map.Entry<String, Node> e : this.calculator.getSourcePermissions().entrySet()) {
+                Node own = this.permissions.get(e.getKey());
+                if (own != null) {
+                    mapping.put(e.getValue(), own);
+                }
+            }
+            this.sharedNodeMapping = mapping;
+        }
+
+        Node own = mapping.get(node);
+        return own != null ? own : node;
     }
 
     @Override
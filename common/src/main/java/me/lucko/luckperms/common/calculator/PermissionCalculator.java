@@ -26,18 +26,26 @@
 package me.lucko.luckperms.common.calculator;
 
 import me.lucko.luckperms.common.cache.LoadingMap;
+import me.lucko.luckperms.common.cache.StringInterner;
 import me.lucko.luckperms.common.cacheddata.CacheMetadata;
 import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.util.CaffeineFactory;
 import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import net.luckperms.api.node.Node;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 /**
  * Calculates and caches permissions
@@ -47,19 +55,43 @@ public class PermissionCalculator implements Function<String, TristateResult> {
     /** The plugin instance */
     private final LuckPermsPlugin plugin;
 
+    /** The plugin metrics recorder */
+    private final PluginMetrics metrics;
+
     /** Info about the nature of this calculator. */
     private final CacheMetadata metadata;
 
     /** The processors which back this calculator */
     private final PermissionProcessor[] processors;
 
+    /** The source permissions map */
+    private Map<String, Node> sourcePermissions = Collections.emptyMap();
+
     /** Loading cache for permission checks */
-    private final LoadingMap<String, TristateResult> lookupCache = LoadingMap.of(this);
+    private final LoadingMap<String, TristateResult> lookupCache;
+
+    /** Counters for the lookup cache */
+    private final LongAdder lookupCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
 
     public PermissionCalculator(LuckPermsPlugin plugin, CacheMetadata metadata, Collection<PermissionProcessor> processors) {
         this.plugin = plugin;
+        this.metrics = plugin.getMetrics();
         this.metadata = metadata;
         this.processors = processors.toArray(new PermissionProcessor[0]);
+
+        int maximumSize = plugin.getConfiguration().get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE);
+        if (maximumSize > 0) {
+            Map<String, TristateResult> map = CaffeineFactory.newBuilder()
+                    .maximumSize(maximumSize)
+                    .evictionListener((key, value, cause) -> this.evictionCount.increment())
+                    .<String, TristateResult>build()
+                    .asMap();
+            this.lookupCache = LoadingMap.of(map, this);
+        } else {
+            this.lookupCache = LoadingMap.of(new ConcurrentHashMap<>(), this);
+        }
     }
 
     /**
@@ -72,11 +104,38 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      * @return the result
      */
     public TristateResult checkPermission(String permission, CheckOrigin origin) {
+        return checkPermission(permission, this.metadata, UnaryOperator.identity(), origin);
+    }
+
+    /**
+     * Performs a permission check against this calculator, on behalf of the
+     * holder described by the given metadata.
+     *
+     * <p>This is used when a calculator is shared between multiple holders, so
+     * that checks are still reported against the correct holder. The cached
+     * result is passed through the given mapper before it is logged and
+     * returned, so that it can refer to the holder's own nodes.</p>
+     *
+     * @param permission the permission to check
+     * @param metadata the metadata of the holder performing the check
+     * @param resultMapper maps the cached result to the result for the holder
+     * @param origin marks where this check originated from
+     * @return the result
+     */
+    public TristateResult checkPermission(String permission, CacheMetadata metadata, UnaryOperator<TristateResult> resultMapper, CheckOrigin origin) {
         // get the result
-        TristateResult result = this.lookupCache.get(permission);
+        this.lookupCount.increment();
+        this.metrics.recordPermissionCheck(origin);
+        TristateResult result = this.lookupCache.getIfPresent(permission);
+        if (result == null) {
+            // intern the permission before it is stored as a key in the cache, so that
+            // all calculators share the same instance
+            result = this.lookupCache.get(StringInterner.intern(permission));
+        }
+        result = resultMapper.apply(result);
 
         // log this permission lookup to the verbose handler
-        this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, this.metadata.getVerboseCheckInfo(), this.metadata.getQueryOptions(), permission, result);
+        this.plugin.getVerboseHandler().offerPermissionCheckEvent(origin, metadata.getVerboseCheckInfo(), metadata.getQueryOptions(), permission, result);
 
         // return the result
         return result;
@@ -84,9 +143,13 @@ public class PermissionCalculator implements Function<String, TristateResult> {
 
     @Override
     public TristateResult apply(@NonNull String permission) {
+        this.missCount.increment();
+        long startTime = System.nanoTime();
+
         // convert the permission to lowercase, as all values in the backing map are also lowercase.
-        // this allows fast case insensitive lookups
-        permission = permission.toLowerCase(Locale.ROOT);
+        // this allows fast case insensitive lookups. it's then interned, so that comparisons
+        // against the (also interned) node keys in the source map succeed on identity
+        permission = StringInterner.intern(permission.toLowerCase(Locale.ROOT));
 
         // offer the permission to the permission vault
         // we only need to do this once per permission, so it doesn't matter
@@ -97,6 +160,8 @@ public class PermissionCalculator implements Function<String, TristateResult> {
         for (PermissionProcessor processor : this.processors) {
             result = processor.hasPermission(result, permission);
         }
+
+        this.metrics.recordPermissionCalculation(System.nanoTime() - startTime);
         return result;
     }
 
@@ -107,16 +172,71 @@ public class PermissionCalculator implements Function<String, TristateResult> {
      * @param sourceMap the source map
      */
     public synchronized void setSourcePermissions(Map<String, Node> sourceMap) {
+        this.sourcePermissions = sourceMap;
         for (PermissionProcessor processor : this.processors) {
             processor.setSource(sourceMap);
             processor.refresh();
         }
     }
 
+    /**
+     * Gets the source permissions map used by this calculator.
+     *
+     * @return the source map
+     */
+    public Map<String, Node> getSourcePermissions() {
+        return this.sourcePermissions;
+    }
+
     public void invalidateCache() {
         for (PermissionProcessor processor : this.processors) {
             processor.invalidate();
         }
         this.lookupCache.clear();
     }
+
+    /**
+     * Gets the number of permission lookups made against this calculator.
+     *
+     * @return the lookup count
+     */
+    public long getLookupCount() {
+        return this.lookupCount.sum();
+    }
+
+    /**
+     * Gets the number of lookups which were not already in the lookup cache.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /**
+     * Gets the number of lookups which were served from the lookup cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return Math.max(0, getLookupCount() - getMissCount());
+    }
+
+    /**
+     * Gets the number of entries evicted from the lookup cache because it was full.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    /**
+     * Gets the number of entries currently held in the lookup cache.
+     *
+     * @return the cache size
+     */
+    public int getLookupCacheSize() {
+        return this.lookupCache.size();
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A set of regex permissions unioned into a single {@link Pattern}, used by {@link RegexProcessor}.
+ *
+ * <p>Each source pattern is wrapped in a capturing group and joined by alternation, in
+ * order, so the first source pattern able to match the whole permission wins - the same
+ * priority as checking each pattern in turn.</p>
+ */
+final class CombinedRegex {
+
+    /**
+     * Combines the given patterns, preserving their order.
+     *
+     * <p>Runs of patterns which can be safely combined are unioned together. Patterns
+     * which can't (e.g. those using back-references, which depend on group numbering) are
+     * kept on their own.</p>
+     *
+     * @param patterns the patterns and their results, in priority order
+     * @return the combined patterns, in priority order
+     */
+    static List<CombinedRegex> combine(List<Map.Entry<Pattern, TristateResult>> patterns) {
+        List<CombinedRegex> combined = new ArrayList<>();
+        List<Map.Entry<Pattern, TristateResult>> run = new ArrayList<>();
+        for (Map.Entry<Pattern, TristateResult> e : patterns) {
+            if (canCombine(e.getKey())) {
+                run.add(e);
+            } else {
+                flush(run, combined);
+                combined.add(single(e));
+            }
+        }
+        flush(run, combined);
+        return combined;
+    }
+
+    private static void flush(List<Map.Entry<Pattern, TristateResult>> run, List<CombinedRegex> combined) {
+        if (run.isEmpty()) {
+            return;
+        }
+
+        if (run.size() == 1) {
+            combined.add(single(run.get(0)));
+        } else {
+            CombinedRegex union = union(run);
+            if (union != null) {
+                combined.add(union);
+            } else {
+                for (Map.Entry<Pattern, TristateResult> e : run) {
+                    combined.add(single(e));
+                }
+            }
+        }
+        run.clear();
+    }
+
+    private static CombinedRegex single(Map.Entry<Pattern, TristateResult> e) {
+        return new CombinedRegex(e.getKey(), new int[]{0}, new TristateResult[]{e.getValue()});
+    }
+
+    private static CombinedRegex union(List<Map.Entry<Pattern, TristateResult>> run) {
+        StringBuilder sb = new StringBuilder();
+        int[] groups = new int[run.size()];
+        TristateResult[] results = new TristateResult[run.size()];
+
+        int group = 1;
+        for (int i = 0; i < run.size(); i++) {
+            Pattern pattern = run.get(i).getKey();
+            if (i != 0) {
+                sb.append('|');
+            }
+            sb.append('(').append(pattern.pattern()).append(')');
+
+            groups[i] = group;
+            results[i] = run.get(i).getValue();
+            group += 1 + pattern.matcher("").groupCount();
+        }
+
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(sb.toString());
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+
+        if (pattern.matcher("").groupCount() != group - 1) {
+            return null;
+        }
+        return new CombinedRegex(pattern, groups, results);
+    }
+
+    /**
+     * Gets if the pattern can be wrapped in a group and unioned with others
+     * without changing its meaning.
+     *
+     * <p>Inline flags such as {@code (?i)} are fine, as they only apply until the end
+     * of the enclosing group.</p>
+     *
+     * @param pattern the pattern
+     * @return true if it can be combined
+     */
+    static boolean canCombine(Pattern pattern) {
+        String regex = pattern.pattern();
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '#') {
+                // could start a comment in (?x) mode, which would swallow the closing group
+                return false;
+            }
+            if (c == '\\' && i + 1 < regex.length()) {
+                char next = regex.charAt(++i);
+                // back-references (numbered or named), and quoting which could swallow the closing group
+                if ((next >= '1' && next <= '9') || next == 'k' || next == 'Q') {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private final Pattern pattern;
+    /** The group index which captures each source pattern, or 0 if there is only one */
+    private final int[] groups;
+    /** The result for each source pattern */
+    private final TristateResult[] results;
+
+    private CombinedRegex(Pattern pattern, int[] groups, TristateResult[] results) {
+        this.pattern = pattern;
+        this.groups = groups;
+        this.results = results;
+    }
+
+    /**
+     * Matches the permission against the combined pattern.
+     *
+     * @param permission the permission
+     * @return the result of the first source pattern to match, or null if none match
+     */
+    TristateResult match(String permission) {
+        Matcher matcher = this.pattern.matcher(permission);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        for (int i = 0; i < this.groups.length; i++) {
+            if (matcher.start(this.groups[i]) != -1) {
+                return this.results[i];
+            }
+        }
+        return null;
+    }
+
+}
@@ -39,10 +39,31 @@ import java.util.regex.Pattern;
 public class RegexProcessor extends AbstractSourceBasedProcessor implements PermissionProcessor {
     private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(RegexProcessor.class);
 
+    private final boolean combinePatterns;
+
     private List<Map.Entry<Pattern, TristateResult>> regexPermissions = Collections.emptyList();
+    private List<CombinedRegex> combinedRegexPermissions = Collections.emptyList();
+
+    public RegexProcessor() {
+        this(false);
+    }
+
+    public RegexProcessor(boolean combinePatterns) {
+        this.combinePatterns = combinePatterns;
+    }
 
     @Override
     public TristateResult hasPermission(String permission) {
+        if (this.combinePatterns) {
+            for (CombinedRegex regex : this.combinedRegexPermissions) {
+                TristateResult result = regex.match(permission);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return TristateResult.UNDEFINED;
+        }
+
         for (Map.Entry<Pattern, TristateResult> e : this.regexPermissions) {
             if (e.getKey().matcher(permission).matches()) {
                 return e.getValue();
@@ -69,5 +90,9 @@ public class RegexProcessor extends AbstractSourceBasedProcessor implements Perm
             builder.add(Maps.immutableEntry(pattern, value));
         }
         this.regexPermissions = builder.build();
+
+        if (this.combinePatterns) {
+            this.combinedRegexPermissions = CombinedRegex.combine(this.regexPermissions);
+        }
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.node.AbstractNode;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A compressed (radix) trie of wildcard prefixes, used by {@link WildcardProcessor}.
+ *
+ * <p>A lookup walks the permission once from left to right, remembering the
+ * deepest prefix that both has a value and is followed by a
+ * {@link AbstractNode#NODE_SEPARATOR separator} in the permission. No
+ * intermediate strings are allocated.</p>
+ */
+final class WildcardTrie {
+
+    /** An empty trie */
+    static final WildcardTrie EMPTY = new WildcardTrie(new Node("", null, new char[0], new Node[0]));
+
+    /**
+     * Compiles a trie from the given map of prefixes to results.
+     *
+     * @param prefixes the prefixes (the wildcard permission without the trailing {@code .*})
+     * @return a trie
+     */
+    static WildcardTrie compile(Map<String, TristateResult> prefixes) {
+        if (prefixes.isEmpty()) {
+            return EMPTY;
+        }
+
+        Builder root = new Builder();
+        for (Map.Entry<String, TristateResult> e : prefixes.entrySet()) {
+            Builder node = root;
+            String prefix = e.getKey();
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+            }
+            node.value = e.getValue();
+        }
+        return new WildcardTrie(root.compress(new StringBuilder()));
+    }
+
+    private final Node root;
+
+    private WildcardTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Finds the value of the longest prefix of {@code permission} which ends
+     * directly before a separator.
+     *
+     * @param permission the permission
+     * @return the matching value, or null if there is no match
+     */
+    TristateResult longestMatch(String permission) {
+        int length = permission.length();
+        TristateResult match = null;
+
+        Node node = this.root;
+        int i = 0;
+        while (i < length) {
+            node = node.child(permission.charAt(i));
+            if (node == null) {
+                break;
+            }
+
+            String label = node.label;
+            if (!permission.regionMatches(i, label, 0, label.length())) {
+                break;
+            }
+
+            i += label.length();
+            if (node.value != null && i < length && permission.charAt(i) == AbstractNode.NODE_SEPARATOR) {
+                match = node.value;
+            }
+        }
+        return match;
+    }
+
+    private static final class Node {
+        /** The characters on the edge leading to this node */
+        private final String label;
+        /** The value at this node, or null */
+        private final TristateResult value;
+        /** The first character of each child label, sorted */
+        private final char[] keys;
+        /** The children, in the same order as {@link #keys} */
+        private final Node[] children;
+
+        Node(String label, TristateResult value, char[] keys, Node[] children) {
+            this.label = label;
+            this.value = value;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        Node child(char c) {
+            char[] keys = this.keys;
+            if (keys.length < 8) {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] == c) {
+                        return this.children[i];
+                    }
+                }
+                return null;
+            }
+
+            int idx = Arrays.binarySearch(keys, c);
+            return idx < 0 ? null : this.children[idx];
+        }
+    }
+
+    private static final class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private TristateResult value;
+
+        Node compress(StringBuilder label) {
+            // collapse chains of single-child nodes without a value into one edge
+            Builder node = this;
+            while (node.value == null && node.children.size() == 1 && label.length() != 0) {
+                Map.Entry<Character, Builder> only = node.children.firstEntry();
+                label.append(only.getKey().charValue());
+                node = only.getValue();
+            }
+
+            char[] keys = new char[node.children.size()];
+            Node[] children = new Node[keys.length];
+            int i = 0;
+            for (Map.Entry<Character, Builder> e : node.children.entrySet()) {
+                keys[i] = e.getKey();
+                children[i] = e.getValue().compress(new StringBuilder().append(e.getKey().charValue()));
+                i++;
+            }
+            return new Node(label.toString(), node.value, keys, children);
+        }
+    }
+
+}
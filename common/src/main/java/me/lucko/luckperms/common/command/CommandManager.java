@@ -45,6 +45,7 @@ import me.lucko.luckperms.common.commands.misc.EditorCommand;
 import me.lucko.luckperms.common.commands.misc.ExportCommand;
 import me.lucko.luckperms.common.commands.misc.ImportCommand;
 import me.lucko.luckperms.common.commands.misc.InfoCommand;
+import me.lucko.luckperms.common.commands.misc.MetricsCommand;
 import me.lucko.luckperms.common.commands.misc.NetworkSyncCommand;
 import me.lucko.luckperms.common.commands.misc.ReloadConfigCommand;
 import me.lucko.luckperms.common.commands.misc.SearchCommand;
@@ -122,6 +123,7 @@ public class CommandManager {
                 .add(new TreeCommand())
                 .add(new SearchCommand())
                 .add(new NetworkSyncCommand())
+                .add(new MetricsCommand())
                 .add(new ImportCommand())
                 .add(new ExportCommand())
                 .add(new ReloadConfigCommand())
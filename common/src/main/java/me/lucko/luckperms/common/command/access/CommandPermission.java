@@ -37,6 +37,7 @@ public enum CommandPermission {
     EDITOR("editor", Type.NONE, true),
     VERBOSE("verbose", Type.NONE, true),
     VERBOSE_COMMAND_OTHERS("verbose.command.others", Type.NONE, false),
+    METRICS("metrics", Type.NONE, true),
     TREE("tree", Type.NONE, true),
     SEARCH("search", Type.NONE, true),
     IMPORT("import", Type.NONE, false),
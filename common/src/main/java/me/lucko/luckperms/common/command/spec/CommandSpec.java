@@ -50,10 +50,11 @@ public enum CommandSpec {
             arg("type", false),
             arg("filter", false)
     ),
-    VERBOSE("/%s verbose <on|record|off|upload> [filter]",
-            arg("action", "on|record|off|upload|command", true),
+    VERBOSE("/%s verbose <on|record|recordfile|off|upload> [filter]",
+            arg("action", "on|record|recordfile|off|upload|replay|command", true),
             arg("filter", false),
-            arg("commandas", "<me|player> <command>", false)
+            arg("commandas", "<me|player> <command>", false),
+            arg("recording", "<name|latest> [filter]", false)
     ),
     TREE("/%s tree [scope] [player]",
             arg("scope", false),
@@ -64,6 +65,9 @@ public enum CommandSpec {
             arg("page", false)
     ),
     NETWORK_SYNC("/%s networksync"),
+    METRICS("/%s metrics [contexts|reset]",
+            arg("action", "contexts|reset", false)
+    ),
     IMPORT("/%s import <file>",
             arg("file", true),
             arg("replace", "--replace", false),
@@ -37,6 +37,7 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.sender.Sender;
 
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -98,7 +99,7 @@ public final class StorageAssistant {
             return failedFuture(e);
         }
 
-        return invalidateCachesAndPushUpdates(plugin);
+        return invalidateCachesAndPushUpdates(plugin, group);
     }
 
     public static CompletableFuture<Void> save(Track track, Sender sender, LuckPermsPlugin plugin) {
@@ -125,10 +126,21 @@ public final class StorageAssistant {
         }
     }
 
+    public static CompletableFuture<Void> invalidateCachesAndPushUpdates(LuckPermsPlugin plugin, Group group) {
+        Set<String> groups = plugin.getGroupManager().invalidateDependentCaches(group);
+        plugin.getUserManager().invalidateDependentCaches(groups);
+
+        return pushUpdates(plugin);
+    }
+
     public static CompletableFuture<Void> invalidateCachesAndPushUpdates(LuckPermsPlugin plugin) {
         plugin.getGroupManager().invalidateAllGroupCaches();
         plugin.getUserManager().invalidateAllUserCaches();
 
+        return pushUpdates(plugin);
+    }
+
+    private static CompletableFuture<Void> pushUpdates(LuckPermsPlugin plugin) {
         Optional<InternalMessagingService> messagingService = plugin.getMessagingService();
         if (messagingService.isPresent() && plugin.getConfiguration().get(ConfigKeys.AUTO_PUSH_UPDATES)) {
             return messagingService.get().getUpdateBuffer().request();
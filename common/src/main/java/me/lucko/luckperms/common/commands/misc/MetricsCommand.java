@@ -0,0 +1,77 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.commands.misc;
+
+import me.lucko.luckperms.common.command.abstraction.SingleCommand;
+import me.lucko.luckperms.common.command.access.CommandPermission;
+import me.lucko.luckperms.common.command.spec.CommandSpec;
+import me.lucko.luckperms.common.command.tabcomplete.CompletionSupplier;
+import me.lucko.luckperms.common.command.tabcomplete.TabCompleter;
+import me.lucko.luckperms.common.command.utils.ArgumentList;
+import me.lucko.luckperms.common.context.manager.ContextCalculatorMetrics;
+import me.lucko.luckperms.common.locale.Message;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.util.Predicates;
+
+import java.util.List;
+import java.util.Locale;
+
+public class MetricsCommand extends SingleCommand {
+    public MetricsCommand() {
+        super(CommandSpec.METRICS, "Metrics", CommandPermission.METRICS, Predicates.notInRange(0, 1));
+    }
+
+    @Override
+    public void execute(LuckPermsPlugin plugin, Sender sender, ArgumentList args, String label) {
+        if (args.isEmpty()) {
+            Message.METRICS.send(sender, plugin.getMetrics());
+            return;
+        }
+
+        String action = args.get(0).toLowerCase(Locale.ROOT);
+        switch (action) {
+            case "contexts":
+                Message.METRICS_CONTEXT_CALCULATORS.send(sender, plugin.getContextManager().getCalculatorMetrics());
+                break;
+            case "reset":
+                plugin.getMetrics().reset();
+                plugin.getContextManager().getCalculatorMetrics().forEach(ContextCalculatorMetrics::reset);
+                Message.METRICS_RESET.send(sender);
+                break;
+            default:
+                sendUsage(sender, label);
+                break;
+        }
+    }
+
+    @Override
+    public List<String> tabComplete(LuckPermsPlugin plugin, Sender sender, ArgumentList args) {
+        return TabCompleter.create()
+                .at(0, CompletionSupplier.startsWith("contexts", "reset"))
+                .complete(args);
+    }
+}
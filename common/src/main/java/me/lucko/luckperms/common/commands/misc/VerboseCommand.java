@@ -41,8 +41,11 @@ import me.lucko.luckperms.common.verbose.InvalidFilterException;
 import me.lucko.luckperms.common.verbose.VerboseFilter;
 import me.lucko.luckperms.common.verbose.VerboseHandler;
 import me.lucko.luckperms.common.verbose.VerboseListener;
+import me.lucko.luckperms.common.verbose.VerboseRecording;
+import me.lucko.luckperms.common.verbose.VerboseSampler;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -111,7 +114,27 @@ public class VerboseCommand extends SingleCommand {
             return;
         }
 
-        if (mode.equals("on") || mode.equals("true") || mode.equals("record")) {
+        if (mode.equals("replay")) {
+            if (args.size() < 2) {
+                sendDetailedUsage(sender, label);
+                return;
+            }
+
+            String filter = String.join(" ", args.subList(2, args.size()));
+
+            VerboseFilter compiledFilter;
+            try {
+                compiledFilter = VerboseFilter.compile(filter);
+            } catch (InvalidFilterException e) {
+                Message.VERBOSE_INVALID_FILTER.send(sender, filter, e.getCause().getMessage());
+                return;
+            }
+
+            replay(plugin, sender, args.get(1), compiledFilter);
+            return;
+        }
+
+        if (mode.equals("on") || mode.equals("true") || mode.equals("record") || mode.equals("recordfile")) {
             List<String> filters = new ArrayList<>();
             if (args.size() != 1) {
                 filters.addAll(args.subList(1, args.size()));
@@ -127,11 +150,29 @@ public class VerboseCommand extends SingleCommand {
                 return;
             }
 
-            boolean notify = !mode.equals("record");
+            boolean notify = mode.equals("on") || mode.equals("true");
+
+            VerboseRecording recording = null;
+            if (mode.equals("recordfile")) {
+                try {
+                    recording = VerboseRecording.create(getRecordingsDirectory(plugin));
+                } catch (IOException e) {
+                    plugin.getLogger().warn("Unable to create verbose recording", e);
+                    Message.VERBOSE_RECORDING_FAILED.send(sender, getRecordingsDirectory(plugin).toString());
+                    return;
+                }
+            }
 
-            verboseHandler.registerListener(sender, compiledFilter, notify);
+            verboseHandler.setSampler(VerboseSampler.fromConfig(plugin.getConfiguration()));
+            verboseHandler.registerListener(sender, compiledFilter, notify, recording);
 
-            if (notify) {
+            if (recording != null) {
+                if (!filter.isEmpty()) {
+                    Message.VERBOSE_RECORDING_FILE_ON_QUERY.send(sender, filter, recording.getName());
+                } else {
+                    Message.VERBOSE_RECORDING_FILE_ON.send(sender, recording.getName());
+                }
+            } else if (notify) {
                 if (!filter.isEmpty()) {
                     Message.VERBOSE_ON_QUERY.send(sender, filter);
                 } else {
@@ -173,6 +214,9 @@ public class VerboseCommand extends SingleCommand {
                     Message.VERBOSE_RESULTS_URL.send(sender, url);
                     return;
                 }
+            } else if (listener != null && listener.getRecording() != null) {
+                listener.close();
+                Message.VERBOSE_RECORDING_FILE_SAVED.send(sender, listener.getRecording().getName());
             } else {
                 Message.VERBOSE_OFF.send(sender);
             }
@@ -183,10 +227,55 @@ public class VerboseCommand extends SingleCommand {
         sendUsage(sender, label);
     }
 
+    private static Path getRecordingsDirectory(LuckPermsPlugin plugin) {
+        return plugin.getBootstrap().getDataDirectory().resolve("verbose");
+    }
+
+    private static void replay(LuckPermsPlugin plugin, Sender sender, String name, VerboseFilter filter) {
+        Path recordingsDirectory = getRecordingsDirectory(plugin);
+
+        List<String> recordings;
+        try {
+            recordings = VerboseRecording.list(recordingsDirectory);
+        } catch (IOException e) {
+            plugin.getLogger().warn("Unable to list verbose recordings", e);
+            recordings = new ArrayList<>();
+        }
+
+        String recording;
+        if (name.equalsIgnoreCase("latest")) {
+            recording = recordings.isEmpty() ? null : recordings.get(0);
+        } else {
+            recording = recordings.contains(name) ? name : null;
+        }
+
+        if (recording == null) {
+            Message.VERBOSE_RECORDING_NOT_FOUND.send(sender, name);
+            return;
+        }
+
+        Message.VERBOSE_REPLAY_START.send(sender, recording);
+
+        String id;
+        try {
+            id = VerboseListener.uploadRecording(plugin.getBytebin(), recordingsDirectory.resolve(recording), filter, sender);
+        } catch (UnsuccessfulRequestException e) {
+            Message.GENERIC_HTTP_REQUEST_FAILURE.send(sender, e.getResponse().code(), e.getResponse().message());
+            return;
+        } catch (IOException e) {
+            plugin.getLogger().warn("Error uploading data to bytebin", e);
+            Message.GENERIC_HTTP_UNKNOWN_FAILURE.send(sender);
+            return;
+        }
+
+        String url = plugin.getConfiguration().get(ConfigKeys.VERBOSE_VIEWER_URL_PATTERN) + id;
+        Message.VERBOSE_RESULTS_URL.send(sender, url);
+    }
+
     @Override
     public List<String> tabComplete(LuckPermsPlugin plugin, Sender sender, ArgumentList args) {
         return TabCompleter.create()
-                .at(0, CompletionSupplier.startsWith("on", "record", "off", "upload", "paste", "command"))
+                .at(0, CompletionSupplier.startsWith("on", "record", "recordfile", "off", "upload", "paste", "replay", "command"))
                 .complete(args);
     }
 }
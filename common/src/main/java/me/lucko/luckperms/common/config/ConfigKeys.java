@@ -167,6 +167,21 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> DEBUG_LOGINS = booleanKey("debug-logins", false);
 
+    /**
+     * The proportion of checks (1 in n) which are recorded by the verbose system
+     */
+    public static final ConfigKey<Integer> VERBOSE_SAMPLE_RATE = key(c -> Math.max(1, c.getInteger("verbose-sample-rate", 1)));
+
+    /**
+     * The maximum number of checks recorded by the verbose system for each permission/meta key per second. A value <= 0 means no limit.
+     */
+    public static final ConfigKey<Integer> VERBOSE_RATE_LIMIT = key(c -> c.getInteger("verbose-rate-limit", 0));
+
+    /**
+     * The maximum number of stack frames captured for each check recorded by the verbose system
+     */
+    public static final ConfigKey<Integer> VERBOSE_TRACE_DEPTH = key(c -> Math.max(0, c.getInteger("verbose-trace-depth", 64)));
+
     /**
      * If LP should cancel login attempts for players whose permission data could not be loaded.
      */
@@ -266,6 +281,21 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> DISABLE_LUCKPERMS_COMMANDS_CONSOLE = booleanKey("disable-luckperms-commands.console", false);
 
+    /**
+     * The maximum number of permission lookups to cache per calculator. A value <= 0 means no limit.
+     */
+    public static final ConfigKey<Integer> PERMISSION_LOOKUP_CACHE_SIZE = notReloadable(key(c -> c.getInteger("permission-lookup-cache-size", 0)));
+
+    /**
+     * If users with identical resolved permissions should share a single permission calculator
+     */
+    public static final ConfigKey<Boolean> SHARE_IDENTICAL_PERMISSION_DATA = notReloadable(booleanKey("share-identical-permission-data", false));
+
+    /**
+     * If cached data should be recalculated in the background following a change, instead of being invalidated
+     */
+    public static final ConfigKey<Boolean> REFRESH_CACHED_DATA_ASYNCHRONOUSLY = booleanKey("refresh-cached-data-asynchronously", false);
+
     /**
      * If wildcards are being applied
      */
@@ -289,6 +319,11 @@ public final class ConfigKeys {
      */
     public static final ConfigKey<Boolean> APPLYING_REGEX = notReloadable(booleanKey("apply-regex", true));
 
+    /**
+     * If regex permissions should be combined into a single pattern when they are applied
+     */
+    public static final ConfigKey<Boolean> APPLYING_REGEX_COMBINED = notReloadable(booleanKey("apply-regex-combined", false));
+
     /**
      * If shorthand permissions are being applied
      */
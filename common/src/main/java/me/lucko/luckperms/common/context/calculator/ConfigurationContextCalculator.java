@@ -51,6 +51,12 @@ public class ConfigurationContextCalculator implements StaticContextCalculator {
         consumer.accept(this.config.getContextsFile().getStaticContexts());
     }
 
+    @Override
+    public boolean isSignalDriven() {
+        // only changes when the configuration is reloaded, which invalidates all cached contexts
+        return true;
+    }
+
     @Override
     public @NonNull ContextSet estimatePotentialContexts() {
         ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl();
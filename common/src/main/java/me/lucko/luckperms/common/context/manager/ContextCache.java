@@ -0,0 +1,164 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.context.manager;
+
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import net.luckperms.api.context.ContextCalculator;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches {@link QueryOptions} calculated by a {@link ContextManager}.
+ *
+ * <p>Contexts submitted by {@link ContextCalculator#isSignalDriven() signal-driven}
+ * calculators are cached until {@link #invalidate()} is called. The remaining
+ * calculators are polled again once the cached value is older than roughly a tick,
+ * or never if there are none. Their contributions are cached individually, and the
+ * full context set is only rebuilt if one of them has changed.</p>
+ */
+abstract class ContextCache {
+    private static final long EXPIRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50L); // expire roughly every tick
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final ContextManager<?, ?> contextManager;
+
+    // incremented on each invalidation, to detect invalidations during a calculation
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private volatile ImmutableContextSet signalDrivenContexts;
+    private volatile ImmutableContextSet[] polledContexts;
+    private volatile QueryOptions value;
+    private volatile int cacheVersion;
+
+    // when to expire. 0 means "not yet initialized" or invalidated.
+    private volatile long expirationNanos;
+
+    protected ContextCache(ContextManager<?, ?> contextManager) {
+        this.contextManager = contextManager;
+    }
+
+    protected abstract ImmutableContextSet calculateSignalDriven();
+
+    protected abstract ImmutableContextSet[] calculatePolled();
+
+    protected abstract QueryOptions createQueryOptions(ImmutableContextSet contexts);
+
+    public QueryOptions get() {
+        if (isExpired()) {
+            synchronized (this) {
+                if (isExpired()) { // recheck for lost race
+                    return recalculate();
+                }
+            }
+        }
+        return this.value;
+    }
+
+    public void invalidate() {
+        this.generation.incrementAndGet();
+        this.signalDrivenContexts = null;
+        this.expirationNanos = 0;
+    }
+
+    private boolean isExpired() {
+        long nanos = this.expirationNanos;
+        if (nanos == 0 || this.cacheVersion != this.contextManager.getCacheVersion()) {
+            return true;
+        }
+        return nanos != NEVER && System.nanoTime() - nanos >= 0;
+    }
+
+    private QueryOptions recalculate() {
+        int generation = this.generation.get();
+        int cacheVersion = this.contextManager.getCacheVersion();
+        long startTime = System.nanoTime();
+
+        boolean changed = this.value == null || cacheVersion != this.cacheVersion;
+
+        ImmutableContextSet signalDrivenContexts = this.signalDrivenContexts;
+        if (signalDrivenContexts == null || changed) {
+            signalDrivenContexts = calculateSignalDriven();
+            changed = true;
+        }
+
+        ImmutableContextSet[] polledContexts = calculatePolled();
+        if (!changed && !Arrays.equals(polledContexts, this.polledContexts)) {
+            changed = true;
+        }
+
+        QueryOptions value = this.value;
+        if (changed) {
+            // the query options are interned, so if nothing actually changed this
+            // resolves to the previous instance and caches keyed by it stay warm
+            value = createQueryOptions(merge(signalDrivenContexts, polledContexts));
+        }
+
+        long now = System.nanoTime();
+        this.contextManager.plugin.getMetrics().recordContextCalculation(now - startTime);
+
+        long nanos = NEVER;
+        if (polledContexts.length != 0) {
+            nanos = now + EXPIRY_NANOS;
+            // In the very unlikely event that nanos is 0 or NEVER, adjust it;
+            // no one will notice 1 ns of tardiness.
+            if (nanos == 0 || nanos == NEVER) {
+                nanos++;
+            }
+        }
+
+        this.signalDrivenContexts = signalDrivenContexts;
+        this.polledContexts = polledContexts;
+        this.value = value;
+        this.cacheVersion = cacheVersion;
+        this.expirationNanos = nanos;
+
+        // if the cache was invalidated whilst calculating, the result may already be stale
+        if (generation != this.generation.get()) {
+            this.signalDrivenContexts = null;
+            this.expirationNanos = 0;
+        }
+
+        return value;
+    }
+
+    static ImmutableContextSet merge(ImmutableContextSet signalDrivenContexts, ImmutableContextSet[] polledContexts) {
+        if (polledContexts.length == 0) {
+            return signalDrivenContexts;
+        }
+
+        ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl();
+        builder.addAll(signalDrivenContexts);
+        for (ImmutableContextSet contexts : polledContexts) {
+            builder.addAll(contexts);
+        }
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.context.manager;
+
+import me.lucko.luckperms.common.metrics.LatencyHistogram;
+import net.luckperms.api.context.ContextCalculator;
+
+/**
+ * Records how often a registered {@link ContextCalculator} is called, and how long it takes.
+ */
+public final class ContextCalculatorMetrics {
+    private final String name;
+    private final boolean signalDriven;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    ContextCalculatorMetrics(String name, boolean signalDriven) {
+        this.name = name;
+        this.signalDriven = signalDriven;
+    }
+
+    /**
+     * Gets the class name of the calculator.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    public boolean isSignalDriven() {
+        return this.signalDriven;
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return this.latency.snapshot();
+    }
+
+    void record(long nanos) {
+        this.latency.record(nanos);
+    }
+
+    public void reset() {
+        this.latency.reset();
+    }
+}
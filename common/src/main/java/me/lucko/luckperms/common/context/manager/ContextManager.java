@@ -25,25 +25,28 @@
 
 package me.lucko.luckperms.common.context.manager;
 
-import me.lucko.luckperms.common.cache.ExpiringCache;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.context.calculator.ForwardingContextCalculator;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsInterner;
 import net.luckperms.api.context.ContextCalculator;
 import net.luckperms.api.context.ContextConsumer;
 import net.luckperms.api.context.ContextSet;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.context.StaticContextCalculator;
 import net.luckperms.api.query.QueryOptions;
-import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Base implementation of {@link ContextManager}.
@@ -62,6 +65,9 @@ public abstract class ContextManager<S, P extends S> {
     // caches static context lookups
     private final StaticLookupCache staticLookupCache = new StaticLookupCache();
 
+    // incremented to discard all cached contexts, e.g. when calculators are registered
+    private final AtomicInteger cacheVersion = new AtomicInteger();
+
     protected ContextManager(LuckPermsPlugin plugin, Class<S> subjectClass, Class<P> playerClass) {
         this.plugin = plugin;
         this.subjectClass = subjectClass;
@@ -97,7 +103,7 @@ public abstract class ContextManager<S, P extends S> {
     }
 
     public void customizeQueryOptions(S subject, QueryOptions.Builder builder) {
-        // overridden
+        // overridden - the result is cached until the subject's cache is invalidated
     }
 
     public void signalContextUpdate(S subject) {
@@ -114,6 +120,17 @@ public abstract class ContextManager<S, P extends S> {
 
     public abstract void invalidateCache(S subject);
 
+    /**
+     * Discards all cached contexts, including those from signal-driven calculators.
+     */
+    public void invalidateAllCaches() {
+        this.cacheVersion.incrementAndGet();
+    }
+
+    int getCacheVersion() {
+        return this.cacheVersion.get();
+    }
+
     public void registerCalculator(ContextCalculator<? super S> calculator) {
         String calculatorClass = calculator.getClass().getName();
 
@@ -126,10 +143,12 @@ public abstract class ContextManager<S, P extends S> {
         }
 
         this.calculators.add(calculator);
+        invalidateAllCaches();
     }
 
     public void unregisterCalculator(ContextCalculator<? super S> calculator) {
         this.calculators.remove(calculator);
+        invalidateAllCaches();
     }
 
     protected void callContextCalculator(ContextCalculator<? super S> calculator, S subject, ContextConsumer consumer) {
@@ -148,36 +167,105 @@ public abstract class ContextManager<S, P extends S> {
         }
     }
 
+    private void call(RegisteredCalculator<S> calculator, S subject, ContextConsumer consumer) {
+        long startTime = System.nanoTime();
+        callContextCalculator(calculator.calculator, subject, consumer);
+        calculator.metrics.record(System.nanoTime() - startTime);
+    }
+
+    private void callStatic(RegisteredCalculator<S> calculator, ContextConsumer consumer) {
+        long startTime = System.nanoTime();
+        callStaticContextCalculator((StaticContextCalculator) calculator.calculator, consumer);
+        calculator.metrics.record(System.nanoTime() - startTime);
+    }
+
     protected QueryOptions calculate(S subject) {
+        long startTime = System.nanoTime();
+        ImmutableContextSet contexts = ContextCache.merge(calculateSignalDriven(subject), calculatePolled(subject));
+        QueryOptions queryOptions = createQueryOptions(subject, contexts);
+        this.plugin.getMetrics().recordContextCalculation(System.nanoTime() - startTime);
+        return queryOptions;
+    }
+
+    /**
+     * Calculates the contexts submitted by {@link ContextCalculator#isSignalDriven() signal-driven}
+     * calculators, which only need to be recalculated when the subject is signalled.
+     *
+     * @param subject the subject
+     * @return the signal-driven contexts
+     */
+    ImmutableContextSet calculateSignalDriven(S subject) {
         ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
         ContextConsumer consumer = accumulator::add;
 
-        for (ContextCalculator<? super S> calculator : this.calculators.calculators()) {
-            callContextCalculator(calculator, subject, consumer);
+        for (RegisteredCalculator<S> calculator : this.calculators.signalDrivenCalculators()) {
+            call(calculator, subject, consumer);
         }
 
-        QueryOptions.Builder builder = this.plugin.getConfiguration().get(ConfigKeys.GLOBAL_QUERY_OPTIONS).toBuilder().context(accumulator.build());
+        return accumulator.build();
+    }
+
+    /**
+     * Calculates the contexts submitted by each of the calculators which are not
+     * signal-driven, so they can be compared against the previous results individually.
+     *
+     * @param subject the subject
+     * @return the contexts submitted by each polled calculator
+     */
+    ImmutableContextSet[] calculatePolled(S subject) {
+        RegisteredCalculator<S>[] calculators = this.calculators.polledCalculators();
+        ImmutableContextSet[] results = new ImmutableContextSet[calculators.length];
+
+        for (int i = 0; i < calculators.length; i++) {
+            ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
+            call(calculators[i], subject, accumulator::add);
+            results[i] = accumulator.build();
+        }
+
+        return results;
+    }
+
+    QueryOptions createQueryOptions(S subject, ImmutableContextSet contexts) {
+        QueryOptions.Builder builder = this.plugin.getConfiguration().get(ConfigKeys.GLOBAL_QUERY_OPTIONS).toBuilder().context(contexts);
         customizeQueryOptions(subject, builder);
-        return builder.build();
+        return QueryOptionsInterner.intern(builder.build());
     }
 
-    private QueryOptions calculateStatic() {
+    private ImmutableContextSet calculateStaticSignalDriven() {
         ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
         ContextConsumer consumer = accumulator::add;
 
-        for (StaticContextCalculator calculator : this.calculators.staticCalculators()) {
-            callStaticContextCalculator(calculator, consumer);
+        for (RegisteredCalculator<S> calculator : this.calculators.staticSignalDrivenCalculators()) {
+            callStatic(calculator, consumer);
+        }
+
+        return accumulator.build();
+    }
+
+    private ImmutableContextSet[] calculateStaticPolled() {
+        RegisteredCalculator<S>[] calculators = this.calculators.staticPolledCalculators();
+        ImmutableContextSet[] results = new ImmutableContextSet[calculators.length];
+
+        for (int i = 0; i < calculators.length; i++) {
+            ImmutableContextSet.Builder accumulator = new ImmutableContextSetImpl.BuilderImpl();
+            callStatic(calculators[i], accumulator::add);
+            results[i] = accumulator.build();
         }
 
-        QueryOptions.Builder builder = this.plugin.getConfiguration().get(ConfigKeys.GLOBAL_QUERY_OPTIONS).toBuilder().context(accumulator.build());
+        return results;
+    }
+
+    private QueryOptions createStaticQueryOptions(ImmutableContextSet contexts) {
+        QueryOptions.Builder builder = this.plugin.getConfiguration().get(ConfigKeys.GLOBAL_QUERY_OPTIONS).toBuilder().context(contexts);
         customizeStaticQueryOptions(builder);
-        return builder.build();
+        return QueryOptionsInterner.intern(builder.build());
     }
 
     public ImmutableContextSet getPotentialContexts() {
         ImmutableContextSet.Builder builder = new ImmutableContextSetImpl.BuilderImpl();
 
-        for (ContextCalculator<? super S> calculator : this.calculators.calculators()) {
+        for (RegisteredCalculator<S> registered : this.calculators.calculators()) {
+            ContextCalculator<? super S> calculator = registered.calculator;
             ContextSet potentialContexts;
             try {
                 potentialContexts = calculator.estimatePotentialContexts();
@@ -191,14 +279,37 @@ public abstract class ContextManager<S, P extends S> {
         return builder.build();
     }
 
-    private final class StaticLookupCache extends ExpiringCache<QueryOptions> {
+    /**
+     * Gets the call metrics for each registered calculator, ordered by the total time
+     * spent calling them.
+     *
+     * @return the calculator metrics
+     */
+    public List<ContextCalculatorMetrics> getCalculatorMetrics() {
+        return Arrays.stream(this.calculators.calculators())
+                .map(calculator -> calculator.metrics)
+                .sorted(Comparator.comparingLong((ContextCalculatorMetrics m) -> m.getLatency().totalNanos()).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private final class StaticLookupCache extends ContextCache {
         StaticLookupCache() {
-            super(50L, TimeUnit.MILLISECONDS);
+            super(ContextManager.this);
         }
 
         @Override
-        public @NonNull QueryOptions supply() {
-            return calculateStatic();
+        protected ImmutableContextSet calculateSignalDriven() {
+            return calculateStaticSignalDriven();
+        }
+
+        @Override
+        protected ImmutableContextSet[] calculatePolled() {
+            return calculateStaticPolled();
+        }
+
+        @Override
+        protected QueryOptions createQueryOptions(ImmutableContextSet contexts) {
+            return createStaticQueryOptions(contexts);
         }
     }
 
@@ -212,56 +323,89 @@ public abstract class ContextManager<S, P extends S> {
         return calculatorClass.getName();
     }
 
+    private static final class RegisteredCalculator<S> {
+        private final ContextCalculator<? super S> calculator;
+        private final ContextCalculatorMetrics metrics;
+
+        RegisteredCalculator(ContextCalculator<? super S> calculator) {
+            this.calculator = calculator;
+            this.metrics = new ContextCalculatorMetrics(getCalculatorClass(calculator), calculator.isSignalDriven());
+        }
+
+        boolean isSignalDriven() {
+            return this.metrics.isSignalDriven();
+        }
+
+        boolean isStatic() {
+            return this.calculator instanceof StaticContextCalculator;
+        }
+    }
+
     private final class CalculatorList {
-        private final List<ContextCalculator<? super S>> calculators;
-        private final List<StaticContextCalculator> staticCalculators;
+        private final List<RegisteredCalculator<S>> calculators;
 
-        private volatile ContextCalculator<? super S>[] calculatorsArray;
-        private volatile StaticContextCalculator[] staticCalculatorsArray;
+        private volatile RegisteredCalculator<S>[] calculatorsArray;
+        private volatile RegisteredCalculator<S>[] signalDrivenArray;
+        private volatile RegisteredCalculator<S>[] polledArray;
+        private volatile RegisteredCalculator<S>[] staticSignalDrivenArray;
+        private volatile RegisteredCalculator<S>[] staticPolledArray;
 
         CalculatorList() {
             this.calculators = new ArrayList<>();
-            this.staticCalculators = new ArrayList<>();
             bake();
         }
 
-        @SuppressWarnings("unchecked")
         private void bake() {
-            this.calculatorsArray = this.calculators.toArray(new ContextCalculator[0]);
-            this.staticCalculatorsArray = this.staticCalculators.toArray(new StaticContextCalculator[0]);
+            this.calculatorsArray = filter(c -> true);
+            this.signalDrivenArray = filter(RegisteredCalculator::isSignalDriven);
+            this.polledArray = filter(c -> !c.isSignalDriven());
+            this.staticSignalDrivenArray = filter(c -> c.isStatic() && c.isSignalDriven());
+            this.staticPolledArray = filter(c -> c.isStatic() && !c.isSignalDriven());
+        }
+
+        @SuppressWarnings("unchecked")
+        private RegisteredCalculator<S>[] filter(Predicate<RegisteredCalculator<S>> predicate) {
+            return this.calculators.stream().filter(predicate).toArray(RegisteredCalculator[]::new);
         }
 
         public void add(ContextCalculator<? super S> calculator) {
             synchronized (this) {
                 // calculators registered first should have priority (and be checked last.)
-                this.calculators.add(0, calculator);
-
-                if (calculator instanceof StaticContextCalculator) {
-                    StaticContextCalculator staticCalculator = (StaticContextCalculator) calculator;
-                    this.staticCalculators.add(0, staticCalculator);
-                }
-
+                this.calculators.add(0, new RegisteredCalculator<>(calculator));
                 bake();
             }
         }
 
         public void remove(ContextCalculator<? super S> calculator) {
             synchronized (this) {
-                this.calculators.remove(calculator);
-                if (calculator instanceof StaticContextCalculator) {
-                    this.staticCalculators.remove(calculator);
+                for (Iterator<RegisteredCalculator<S>> it = this.calculators.iterator(); it.hasNext(); ) {
+                    if (it.next().calculator.equals(calculator)) {
+                        it.remove();
+                        break;
+                    }
                 }
-
                 bake();
             }
         }
 
-        public ContextCalculator<? super S>[] calculators() {
+        public RegisteredCalculator<S>[] calculators() {
             return this.calculatorsArray;
         }
 
-        public StaticContextCalculator[] staticCalculators() {
-            return this.staticCalculatorsArray;
+        public RegisteredCalculator<S>[] signalDrivenCalculators() {
+            return this.signalDrivenArray;
+        }
+
+        public RegisteredCalculator<S>[] polledCalculators() {
+            return this.polledArray;
+        }
+
+        public RegisteredCalculator<S>[] staticSignalDrivenCalculators() {
+            return this.staticSignalDrivenArray;
+        }
+
+        public RegisteredCalculator<S>[] staticPolledCalculators() {
+            return this.staticPolledArray;
         }
     }
 
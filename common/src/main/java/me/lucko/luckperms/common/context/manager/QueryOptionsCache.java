@@ -25,31 +25,65 @@
 
 package me.lucko.luckperms.common.context.manager;
 
-import me.lucko.luckperms.common.cache.ExpiringCache;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.query.QueryOptions;
-import org.checkerframework.checker.nullness.qual.NonNull;
 
-import java.util.concurrent.TimeUnit;
+import java.lang.ref.WeakReference;
+import java.util.function.Supplier;
 
 /**
  * Implementation of {@link QueryOptionsSupplier} that caches results.
  *
  * @param <T> the player type
  */
-final class QueryOptionsCache<T> extends ExpiringCache<QueryOptions> implements QueryOptionsSupplier {
-    private final T subject;
+final class QueryOptionsCache<T> extends ContextCache implements QueryOptionsSupplier {
+    private final Supplier<T> subject;
     private final ContextManager<T, ?> contextManager;
 
     QueryOptionsCache(T subject, ContextManager<T, ?> contextManager) {
-        super(50L, TimeUnit.MILLISECONDS); // expire roughly every tick
+        this(() -> subject, contextManager);
+    }
+
+    private QueryOptionsCache(Supplier<T> subject, ContextManager<T, ?> contextManager) {
+        super(contextManager);
         this.subject = subject;
         this.contextManager = contextManager;
     }
 
+    /**
+     * Creates a cache which only holds a weak reference to the subject, so it can
+     * be used as the value in a map weakly keyed by the subject.
+     *
+     * @param subject the subject
+     * @param contextManager the context manager
+     * @param <T> the subject type
+     * @return the cache
+     */
+    static <T> QueryOptionsCache<T> weak(T subject, ContextManager<T, ?> contextManager) {
+        return new QueryOptionsCache<>(new WeakReference<>(subject)::get, contextManager);
+    }
+
+    private T subject() {
+        T subject = this.subject.get();
+        if (subject == null) {
+            throw new IllegalStateException("Subject has been garbage collected");
+        }
+        return subject;
+    }
+
+    @Override
+    protected ImmutableContextSet calculateSignalDriven() {
+        return this.contextManager.calculateSignalDriven(this.subject());
+    }
+
+    @Override
+    protected ImmutableContextSet[] calculatePolled() {
+        return this.contextManager.calculatePolled(this.subject());
+    }
+
     @Override
-    protected @NonNull QueryOptions supply() {
-        return this.contextManager.calculate(this.subject);
+    protected QueryOptions createQueryOptions(ImmutableContextSet contexts) {
+        return this.contextManager.createQueryOptions(this.subject(), contexts);
     }
 
     @Override
@@ -34,9 +34,11 @@ import java.util.concurrent.TimeUnit;
 
 public abstract class SimpleContextManager<S, P extends S> extends ContextManager<S, P> {
 
-    private final LoadingCache<S, QueryOptions> contextsCache = CaffeineFactory.newBuilder()
-            .expireAfterWrite(50, TimeUnit.MILLISECONDS)
-            .build(this::calculate);
+    // subjects are weakly referenced (by identity) so they aren't retained after they go away, e.g. when a player quits
+    private final LoadingCache<S, QueryOptionsCache<S>> contextsCache = CaffeineFactory.newBuilder()
+            .weakKeys()
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build(subject -> QueryOptionsCache.weak(subject, this));
 
     protected SimpleContextManager(LuckPermsPlugin plugin, Class<S> subjectClass, Class<P> playerClass) {
         super(plugin, subjectClass, playerClass);
@@ -44,11 +46,14 @@ public abstract class SimpleContextManager<S, P extends S> extends ContextManage
 
     @Override
     public QueryOptions getQueryOptions(S subject) {
-        return this.contextsCache.get(subject);
+        return this.contextsCache.get(subject).getQueryOptions();
     }
 
     @Override
     public void invalidateCache(S subject) {
-        this.contextsCache.invalidate(subject);
+        QueryOptionsCache<S> cache = this.contextsCache.getIfPresent(subject);
+        if (cache != null) {
+            cache.invalidateCache();
+        }
     }
 }
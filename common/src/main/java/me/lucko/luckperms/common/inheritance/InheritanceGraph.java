@@ -35,6 +35,7 @@ import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.QueryOptions;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -57,6 +58,11 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
 
     @Override
     public Iterable<? extends PermissionHolder> successors(PermissionHolder holder) {
+        long version = this.plugin.getInheritanceGraphFactory().getVersion();
+        return holder.getSuccessorCache().get(this.queryOptions, version, () -> resolveSuccessors(holder));
+    }
+
+    private List<Group> resolveSuccessors(PermissionHolder holder) {
         Set<Group> successors = new LinkedHashSet<>();
         for (InheritanceNode n : holder.getOwnInheritanceNodes(this.queryOptions)) {
             Group g = this.plugin.getGroupManager().getIfLoaded(n.getGroupName());
@@ -67,7 +73,7 @@ public class InheritanceGraph implements Graph<PermissionHolder> {
 
         List<Group> successorsSorted = new ArrayList<>(successors);
         successorsSorted.sort(holder.getInheritanceComparator());
-        return successorsSorted;
+        return Collections.unmodifiableList(successorsSorted);
     }
 
     /**
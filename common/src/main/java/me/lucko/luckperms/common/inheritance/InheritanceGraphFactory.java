@@ -29,8 +29,14 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
 import net.luckperms.api.query.QueryOptions;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Provides {@link InheritanceGraph}s.
+ *
+ * <p>Also tracks a version number for the state the graphs are resolved against
+ * (the set of loaded groups and their data), which is used to determine whether
+ * resolved successors held in a {@link SuccessorCache} are still valid.</p>
  */
 public class InheritanceGraphFactory {
     private final LuckPermsPlugin plugin;
@@ -38,6 +44,8 @@ public class InheritanceGraphFactory {
     private final InheritanceGraph nonContextualGraph;
     private final InheritanceGraph defaultContextualGraph;
 
+    private final AtomicLong version = new AtomicLong();
+
     public InheritanceGraphFactory(LuckPermsPlugin plugin) {
         this.plugin = plugin;
         this.nonContextualGraph = new InheritanceGraph(plugin, QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL);
@@ -54,4 +62,21 @@ public class InheritanceGraphFactory {
         }
     }
 
+    /**
+     * Gets the current graph version.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Invalidates all cached successors, following a change to the data
+     * of a group, or the set of loaded groups.
+     */
+    public void invalidate() {
+        this.version.incrementAndGet();
+    }
+
 }
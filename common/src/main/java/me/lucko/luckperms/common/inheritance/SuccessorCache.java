@@ -0,0 +1,130 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.inheritance;
+
+import me.lucko.luckperms.common.model.Group;
+import me.lucko.luckperms.common.util.CaffeineFactory;
+import net.luckperms.api.query.QueryOptions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caches the resolved {@link InheritanceGraph#successors(me.lucko.luckperms.common.model.PermissionHolder) successors}
+ * of a single permission holder, per {@link QueryOptions}.
+ *
+ * <p>Entries are tagged with the {@link InheritanceGraphFactory#getVersion() graph version}
+ * they were computed against, and are recomputed if it has since changed. Changes to
+ * the holder's own data should be followed by a call to {@link #invalidate()}.</p>
+ *
+ * <p>Like cached data, entries which haven't been used in the last 2 minutes are
+ * expired, and the number of entries is bounded. The underlying cache is only created
+ * when successors are first requested.</p>
+ */
+public final class SuccessorCache {
+
+    /** The maximum number of query options to hold successors for */
+    private static final int MAXIMUM_SIZE = 64;
+
+    /**
+     * The cached entries, created on first use so that holders which are never
+     * checked (e.g. users loaded in bulk) don't pay for a cache.
+     */
+    private volatile Map<QueryOptions, Entry> entries = null;
+
+    /** The graph version the entries were last computed against */
+    private volatile long version = Long.MIN_VALUE;
+
+    /**
+     * Incremented each time the cache is invalidated, so that entries computed
+     * concurrently with an invalidation are not retained.
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private Map<QueryOptions, Entry> entries() {
+        Map<QueryOptions, Entry> entries = this.entries;
+        if (entries == null) {
+            synchronized (this) {
+                entries = this.entries;
+                if (entries == null) {
+                    entries = CaffeineFactory.newBuilder()
+                            .maximumSize(MAXIMUM_SIZE)
+                            .expireAfterAccess(2, TimeUnit.MINUTES)
+                            .<QueryOptions, Entry>build()
+                            .asMap();
+                    this.entries = entries;
+                }
+            }
+        }
+        return entries;
+    }
+
+    public List<Group> get(QueryOptions queryOptions, long version, Supplier<List<Group>> loader) {
+        Map<QueryOptions, Entry> entries = entries();
+
+        // entries computed against an older graph version will never be used again
+        if (this.version != version) {
+            this.version = version;
+            entries.clear();
+        }
+
+        int generation = this.generation.get();
+
+        Entry entry = entries.get(queryOptions);
+        if (entry != null && entry.version == version && entry.generation == generation) {
+            return entry.successors;
+        }
+
+        List<Group> successors = loader.get();
+        entries.put(queryOptions, new Entry(successors, version, generation));
+        return successors;
+    }
+
+    public void invalidate() {
+        this.generation.incrementAndGet();
+
+        Map<QueryOptions, Entry> entries = this.entries;
+        if (entries != null) {
+            entries.clear();
+        }
+    }
+
+    private static final class Entry {
+        private final List<Group> successors;
+        private final long version;
+        private final int generation;
+
+        Entry(List<Group> successors, long version, int generation) {
+            this.successors = successors;
+            this.version = version;
+            this.generation = generation;
+        }
+    }
+
+}
@@ -27,6 +27,9 @@ package me.lucko.luckperms.common.locale;
 
 import com.google.common.collect.Maps;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
+import me.lucko.luckperms.common.context.manager.ContextCalculatorMetrics;
+import me.lucko.luckperms.common.metrics.LatencyHistogram;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.PermissionHolder;
@@ -38,6 +41,7 @@ import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
 import me.lucko.luckperms.common.sender.Sender;
 import me.lucko.luckperms.common.storage.StorageMetadata;
 import me.lucko.luckperms.common.util.DurationFormatter;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.ComponentLike;
 import net.kyori.adventure.text.JoinConfiguration;
@@ -67,6 +71,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static net.kyori.adventure.text.Component.empty;
@@ -709,6 +714,61 @@ public interface Message {
             .append(FULL_STOP)
     );
 
+    Args1<String> VERBOSE_RECORDING_FILE_ON = name -> prefixed(translatable()
+            // "&bVerbose recording &aenabled &bfor checks matching &aANY&b, saving to &a{}&b."
+            .key("luckperms.command.verbose.enabled-recording-file")
+            .color(AQUA)
+            .args(translatable("luckperms.command.verbose.enabled-term", GREEN), translatable("luckperms.command.verbose.query-any", GREEN), text(name, GREEN))
+            .append(FULL_STOP)
+    );
+
+    Args2<String, String> VERBOSE_RECORDING_FILE_ON_QUERY = (query, name) -> prefixed(translatable()
+            // "&bVerbose recording &aenabled &bfor checks matching &a{}&b, saving to &a{}&b."
+            .key("luckperms.command.verbose.enabled-recording-file")
+            .color(AQUA)
+            .args(translatable("luckperms.command.verbose.enabled-term", GREEN), text(query, GREEN), text(name, GREEN))
+            .append(FULL_STOP)
+    );
+
+    Args1<String> VERBOSE_RECORDING_FILE_SAVED = name -> prefixed(translatable()
+            // "&bVerbose logging &cdisabled&b, recording saved as &a{}&b."
+            .key("luckperms.command.verbose.recording-saved")
+            .color(AQUA)
+            .args(translatable("luckperms.command.verbose.disabled-term", RED), text(name, GREEN))
+            .append(FULL_STOP)
+    );
+
+    Args1<String> VERBOSE_RECORDING_FAILED = name -> prefixed(translatable()
+            // "&cUnable to write to verbose recording &4{}&c, see the console for details."
+            .key("luckperms.command.verbose.recording-failed")
+            .color(RED)
+            .args(text(name, DARK_RED))
+            .append(FULL_STOP)
+    );
+
+    Args1<String> VERBOSE_RECORDING_NOT_FOUND = name -> prefixed(translatable()
+            // "&cUnable to find a verbose recording named &4{}&c."
+            .key("luckperms.command.verbose.recording-not-found")
+            .color(RED)
+            .args(text(name, DARK_RED))
+            .append(FULL_STOP)
+    );
+
+    Args1<String> VERBOSE_REPLAY_START = name -> prefixed(translatable()
+            // "&bReading verbose recording &a{}&b, uploading results..."
+            .key("luckperms.command.verbose.replay-uploading")
+            .color(AQUA)
+            .args(text(name, GREEN))
+    );
+
+    Args1<Integer> VERBOSE_EVENTS_DROPPED = count -> prefixed(translatable()
+            // "&c{} checks were not recorded because verbose couldn't keep up with them."
+            .key("luckperms.command.verbose.events-dropped")
+            .color(RED)
+            .args(text(count, DARK_RED))
+            .append(FULL_STOP)
+    );
+
     Args0 VERBOSE_UPLOAD_START = () -> prefixed(translatable()
             // "&bVerbose logging &cdisabled&b, uploading results..."
             .key("luckperms.command.verbose.uploading")
@@ -1709,6 +1769,180 @@ public interface Message {
                     ))
     );
 
+    Args1<PluginMetrics> METRICS = metrics -> joinNewline(
+            // "&2Metrics recorded over the last &b{}&2:"
+            // "&f-  &bPermission checks: &a{} &7(&a{}&7 per second)"
+            // "     &3Cache hit rate: &a{}%"
+            // "     &3{origin}: &a{}"
+            // "&f-  &bPermission calculations: &7{} samples, mean &a{}ms&7, p99 &a{}ms&7, max &a{}ms"
+            // "&f-  &bCached data calculations:"
+            // "     &3Permissions ({type}): &7{} samples, mean &a{}ms&7, p99 &a{}ms&7, max &a{}ms"
+            // "     &3Meta ({type}): &7{} samples, mean &a{}ms&7, p99 &a{}ms&7, max &a{}ms"
+            // "&f-  &bContext calculations: &7{} samples, mean &a{}ms&7, p99 &a{}ms&7, max &a{}ms"
+            // "&f-  &bStorage operations: &7{} samples, mean &a{}ms&7, p99 &a{}ms&7, max &a{}ms"
+            // "     &3Failures: &a{}"
+            prefixed(translatable()
+                    .key("luckperms.command.metrics.header")
+                    .color(DARK_GREEN)
+                    .args(text().color(AQUA).append(DurationFormatter.CONCISE_LOW_ACCURACY.format(Duration.ofMillis(metrics.getElapsedTime(TimeUnit.MILLISECONDS)))))
+                    .append(text(':'))),
+            prefixed(text()
+                    .color(AQUA)
+                    .append(text("-  ", WHITE))
+                    .append(translatable("luckperms.command.metrics.permission-checks-key"))
+                    .append(text(": "))
+                    .append(text(metrics.getPermissionCheckCount(), GREEN))
+                    .append(space())
+                    .append(text()
+                            .color(GRAY)
+                            .append(OPEN_BRACKET)
+                            .append(translatable()
+                                    .key("luckperms.command.metrics.per-second")
+                                    .args(text(new DecimalFormat("#.##").format(metrics.getPermissionCheckRate()), GREEN))
+                            )
+                            .append(CLOSE_BRACKET)
+                    )),
+            prefixed(text()
+                    .color(DARK_AQUA)
+                    .append(text("     "))
+                    .append(translatable("luckperms.command.metrics.cache-hit-rate-key"))
+                    .append(text(": "))
+                    .append(text(new DecimalFormat("#.##").format(metrics.getPermissionCheckCacheHitRate() * 100) + "%", GREEN))),
+            prefixed(text()
+                    .apply(builder -> {
+                        boolean first = true;
+                        for (CheckOrigin origin : CheckOrigin.values()) {
+                            long count = metrics.getPermissionCheckCount(origin);
+                            if (count == 0) {
+                                continue;
+                            }
+                            if (!first) {
+                                builder.append(newline());
+                            }
+                            first = false;
+                            builder.append(prefixed(text()
+                                    .color(DARK_AQUA)
+                                    .append(text("     "))
+                                    .append(text(origin.name().toLowerCase(Locale.ROOT)))
+                                    .append(text(": "))
+                                    .append(text(count, GREEN))
+                            ));
+                        }
+                        if (first) {
+                            builder.append(text("     "));
+                            builder.append(translatable("luckperms.command.misc.none", WHITE));
+                        }
+                    })),
+            prefixed(text()
+                    .color(AQUA)
+                    .append(text("-  ", WHITE))
+                    .append(translatable("luckperms.command.metrics.permission-calculations-key"))
+                    .append(text(": "))
+                    .append(formatLatency(metrics.getPermissionCalculations()))),
+            prefixed(text()
+                    .color(AQUA)
+                    .append(text("-  ", WHITE))
+                    .append(translatable("luckperms.command.metrics.cached-data-calculations-key"))
+                    .append(text(':'))),
+            prefixed(text()
+                    .apply(builder -> {
+                        boolean first = true;
+                        for (HolderType holderType : HolderType.values()) {
+                            if (!first) {
+                                builder.append(newline());
+                            }
+                            first = false;
+                            builder.append(prefixed(text()
+                                    .color(DARK_AQUA)
+                                    .append(text("     "))
+                                    .append(translatable()
+                                            .key("luckperms.command.metrics.permission-data-key")
+                                            .args(text(holderType.toString())))
+                                    .append(text(": "))
+                                    .append(formatLatency(metrics.getPermissionDataCalculations(holderType)))
+                            ));
+                            builder.append(newline());
+                            builder.append(prefixed(text()
+                                    .color(DARK_AQUA)
+                                    .append(text("     "))
+                                    .append(translatable()
+                                            .key("luckperms.command.metrics.meta-data-key")
+                                            .args(text(holderType.toString())))
+                                    .append(text(": "))
+                                    .append(formatLatency(metrics.getMetaDataCalculations(holderType)))
+                            ));
+                        }
+                    })),
+            prefixed(text()
+                    .color(AQUA)
+                    .append(text("-  ", WHITE))
+                    .append(translatable("luckperms.command.metrics.context-calculations-key"))
+                    .append(text(": "))
+                    .append(formatLatency(metrics.getContextCalculations()))),
+            prefixed(text()
+                    .color(AQUA)
+                    .append(text("-  ", WHITE))
+                    .append(translatable("luckperms.command.metrics.storage-operations-key"))
+                    .append(text(": "))
+                    .append(formatLatency(metrics.getStorageOperations()))),
+            prefixed(text()
+                    .color(DARK_AQUA)
+                    .append(text("     "))
+                    .append(translatable("luckperms.command.metrics.storage-failures-key"))
+                    .append(text(": "))
+                    .append(text(metrics.getStorageFailureCount(), metrics.getStorageFailureCount() == 0 ? GREEN : RED)))
+    );
+
+    Args1<List<ContextCalculatorMetrics>> METRICS_CONTEXT_CALCULATORS = calculators -> joinNewline(
+            // "&2Context calculators, by total time spent:"
+            // "&f-  &b{name} &7(signal-driven)"
+            // "     &7{} samples, mean &a{}ms&7, p99 &a{}ms&7, max &a{}ms"
+            prefixed(translatable()
+                    .key("luckperms.command.metrics.context-calculators-header")
+                    .color(DARK_GREEN)
+                    .append(text(':'))),
+            prefixed(text()
+                    .apply(builder -> {
+                        boolean first = true;
+                        for (ContextCalculatorMetrics calculator : calculators) {
+                            if (!first) {
+                                builder.append(newline());
+                            }
+                            first = false;
+                            builder.append(prefixed(text()
+                                    .color(AQUA)
+                                    .append(text("-  ", WHITE))
+                                    .append(text(calculator.getName()))
+                                    .append(space())
+                                    .append(text()
+                                            .color(GRAY)
+                                            .append(OPEN_BRACKET)
+                                            .append(translatable(calculator.isSignalDriven()
+                                                    ? "luckperms.command.metrics.context-calculators.signal-driven"
+                                                    : "luckperms.command.metrics.context-calculators.polled"))
+                                            .append(CLOSE_BRACKET)
+                                    )
+                            ));
+                            builder.append(newline());
+                            builder.append(prefixed(text()
+                                    .append(text("     "))
+                                    .append(formatLatency(calculator.getLatency()))
+                            ));
+                        }
+                        if (first) {
+                            builder.append(text("     "));
+                            builder.append(translatable("luckperms.command.misc.none", WHITE));
+                        }
+                    }))
+    );
+
+    Args0 METRICS_RESET = () -> prefixed(translatable()
+            // "&aMetrics reset."
+            .color(GREEN)
+            .key("luckperms.command.metrics.reset")
+            .append(FULL_STOP)
+    );
+
     Args1<Component> CREATE_ERROR = name -> prefixed(translatable()
             // "&cThere was an error whilst creating &4{}&c."
             .key("luckperms.command.generic.create.error")
@@ -4351,6 +4585,20 @@ public interface Message {
         return builder.build();
     }
 
+    static Component formatLatency(LatencyHistogram.Snapshot snapshot) {
+        DecimalFormat format = new DecimalFormat("#.###");
+        return translatable()
+                .key("luckperms.command.metrics.latency")
+                .color(GRAY)
+                .args(
+                        text(snapshot.count(), GREEN),
+                        text(format.format(snapshot.meanMillis()), GREEN),
+                        text(format.format(snapshot.percentileMillis(0.99)), GREEN),
+                        text(format.format(snapshot.maxNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1)), GREEN)
+                )
+                .build();
+    }
+
     static Component formatBoolean(boolean bool) {
         return bool ? text("true", GREEN) : text("false", RED);
     }
@@ -261,7 +261,7 @@ public class LuckPermsMessagingService extends AsyncInterface implements Interna
             }
 
             this.plugin.getLogger().info("[Messaging] Received update ping with id: " + msgId);
-            this.plugin.getSyncTaskBuffer().request()
+            this.plugin.getSyncTaskBuffer().requestChangedGroups()
                     .thenRunAsync(() -> this.plugin.getEventDispatcher().dispatchNetworkPostSync(msgId, SyncType.FULL, true, null));
 
         } else if (message instanceof UserUpdateMessage) {
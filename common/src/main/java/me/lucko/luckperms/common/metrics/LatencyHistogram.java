@@ -0,0 +1,174 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of operation latencies.
+ *
+ * <p>Samples are recorded into buckets with power-of-two upper bounds, so
+ * recording a sample is just a couple of {@link LongAdder} increments, and
+ * percentiles are accurate to within a factor of two.</p>
+ */
+public final class LatencyHistogram {
+
+    /** The number of buckets - the last bucket holds everything above ~4.5 minutes */
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a sample.
+     *
+     * @param nanos the duration of the operation, in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        this.buckets[bucket(nanos)].increment();
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public void reset() {
+        for (LongAdder bucket : this.buckets) {
+            bucket.reset();
+        }
+        this.count.reset();
+        this.totalNanos.reset();
+        this.maxNanos.reset();
+    }
+
+    /**
+     * Takes a point in time snapshot of the histogram.
+     *
+     * @return a snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets[i].sum();
+        }
+        return new Snapshot(counts, this.count.sum(), this.totalNanos.sum(), this.maxNanos.get());
+    }
+
+    private static int bucket(long nanos) {
+        // bucket i holds values in the range [2^(i-1), 2^i)
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * An immutable snapshot of a {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Snapshot(long[] buckets, long count, long totalNanos, long maxNanos) {
+            this.buckets = buckets;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long count() {
+            return this.count;
+        }
+
+        public long totalNanos() {
+            return this.totalNanos;
+        }
+
+        public long maxNanos() {
+            return this.maxNanos;
+        }
+
+        public long meanNanos() {
+            return this.count == 0 ? 0 : this.totalNanos / this.count;
+        }
+
+        /**
+         * Gets an estimate of the given percentile, in nanoseconds.
+         *
+         * <p>The estimate is the upper bound of the bucket containing the
+         * percentile, capped at the largest recorded sample.</p>
+         *
+         * @param percentile the percentile, between 0 and 1
+         * @return the estimate
+         */
+        public long percentileNanos(double percentile) {
+            long total = 0;
+            for (long bucket : this.buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(total * percentile));
+            long seen = 0;
+            for (int i = 0; i < this.buckets.length; i++) {
+                seen += this.buckets[i];
+                if (seen >= target) {
+                    // the last bucket is unbounded
+                    if (i == this.buckets.length - 1) {
+                        return this.maxNanos;
+                    }
+                    return Math.min((1L << i) - 1, this.maxNanos);
+                }
+            }
+            return this.maxNanos;
+        }
+
+        public double meanMillis() {
+            return meanNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public double percentileMillis(double percentile) {
+            return percentileNanos(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+}
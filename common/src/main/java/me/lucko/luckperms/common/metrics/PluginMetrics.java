@@ -0,0 +1,234 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import net.luckperms.api.platform.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records counters and latency histograms for the plugin's hot paths.
+ *
+ * <p>Permission checks themselves are only counted (by {@link CheckOrigin}),
+ * as a cached check is too cheap to time without noticeably slowing it
+ * down. Lookup cache misses, cached data recalculations, context calculations
+ * and storage operations are timed.</p>
+ */
+public class PluginMetrics implements Metrics {
+    private static final CheckOrigin[] ORIGINS = CheckOrigin.values();
+    private static final HolderType[] HOLDER_TYPES = HolderType.values();
+
+    /** Permission checks, indexed by check origin ordinal */
+    private final LongAdder[] permissionChecks = new LongAdder[ORIGINS.length];
+
+    /** Permission lookups which missed the lookup cache and had to be calculated */
+    private final LatencyHistogram permissionCalculations = new LatencyHistogram();
+
+    /** Cached data recalculations, indexed by holder type ordinal */
+    private final LatencyHistogram[] permissionDataCalculations = new LatencyHistogram[HOLDER_TYPES.length];
+    private final LatencyHistogram[] metaDataCalculations = new LatencyHistogram[HOLDER_TYPES.length];
+
+    private final LatencyHistogram contextCalculations = new LatencyHistogram();
+
+    private final LatencyHistogram storageOperations = new LatencyHistogram();
+    private final LongAdder storageFailures = new LongAdder();
+
+    /** The time when metrics were last reset */
+    private volatile long resetTime = System.nanoTime();
+
+    public PluginMetrics() {
+        for (int i = 0; i < this.permissionChecks.length; i++) {
+            this.permissionChecks[i] = new LongAdder();
+        }
+        for (int i = 0; i < HOLDER_TYPES.length; i++) {
+            this.permissionDataCalculations[i] = new LatencyHistogram();
+            this.metaDataCalculations[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordPermissionCheck(CheckOrigin origin) {
+        this.permissionChecks[origin.ordinal()].increment();
+    }
+
+    public void recordPermissionCalculation(long nanos) {
+        this.permissionCalculations.record(nanos);
+    }
+
+    public void recordPermissionDataCalculation(HolderType holderType, long nanos) {
+        this.permissionDataCalculations[holderType.ordinal()].record(nanos);
+    }
+
+    public void recordMetaDataCalculation(HolderType holderType, long nanos) {
+        this.metaDataCalculations[holderType.ordinal()].record(nanos);
+    }
+
+    public void recordContextCalculation(long nanos) {
+        this.contextCalculations.record(nanos);
+    }
+
+    public void recordStorageOperation(long nanos, boolean success) {
+        this.storageOperations.record(nanos);
+        if (!success) {
+            this.storageFailures.increment();
+        }
+    }
+
+    public long getPermissionCheckCount(CheckOrigin origin) {
+        return this.permissionChecks[origin.ordinal()].sum();
+    }
+
+    @Override
+    public long getPermissionCheckCount() {
+        long total = 0;
+        for (LongAdder adder : this.permissionChecks) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public double getPermissionCheckCacheHitRate() {
+        long checks = getPermissionCheckCount();
+        if (checks == 0) {
+            return 0;
+        }
+        long misses = this.permissionCalculations.snapshot().count();
+        return Math.max(0, checks - misses) / (double) checks;
+    }
+
+    /**
+     * Gets the average number of permission checks per second since metrics were last reset.
+     *
+     * @return the check rate
+     */
+    public double getPermissionCheckRate() {
+        double seconds = getElapsedTime(TimeUnit.MILLISECONDS) / 1000d;
+        return seconds <= 0 ? 0 : getPermissionCheckCount() / seconds;
+    }
+
+    public LatencyHistogram.Snapshot getPermissionCalculations() {
+        return this.permissionCalculations.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getPermissionDataCalculations(HolderType holderType) {
+        return this.permissionDataCalculations[holderType.ordinal()].snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getMetaDataCalculations(HolderType holderType) {
+        return this.metaDataCalculations[holderType.ordinal()].snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getContextCalculations() {
+        return this.contextCalculations.snapshot();
+    }
+
+    public LatencyHistogram.Snapshot getStorageOperations() {
+        return this.storageOperations.snapshot();
+    }
+
+    public long getStorageFailureCount() {
+        return this.storageFailures.sum();
+    }
+
+    /**
+     * Gets the time elapsed since metrics were last reset.
+     *
+     * @param unit the unit to return the time in
+     * @return the elapsed time
+     */
+    public long getElapsedTime(TimeUnit unit) {
+        return unit.convert(System.nanoTime() - this.resetTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Clears all recorded metrics.
+     */
+    public void reset() {
+        for (LongAdder adder : this.permissionChecks) {
+            adder.reset();
+        }
+        this.permissionCalculations.reset();
+        for (int i = 0; i < HOLDER_TYPES.length; i++) {
+            this.permissionDataCalculations[i].reset();
+            this.metaDataCalculations[i].reset();
+        }
+        this.contextCalculations.reset();
+        this.storageOperations.reset();
+        this.storageFailures.reset();
+        this.resetTime = System.nanoTime();
+    }
+
+    @Override
+    public Map<String, Object> getDetails() {
+        Map<String, Object> checksByOrigin = new LinkedHashMap<>();
+        for (CheckOrigin origin : ORIGINS) {
+            checksByOrigin.put(origin.name().toLowerCase(Locale.ROOT), getPermissionCheckCount(origin));
+        }
+
+        Map<String, Object> permissionChecks = new LinkedHashMap<>();
+        permissionChecks.put("count", getPermissionCheckCount());
+        permissionChecks.put("perSecond", getPermissionCheckRate());
+        permissionChecks.put("cacheHitRate", getPermissionCheckCacheHitRate());
+        permissionChecks.put("byOrigin", checksByOrigin);
+
+        Map<String, Object> permissionData = new LinkedHashMap<>();
+        Map<String, Object> metaData = new LinkedHashMap<>();
+        for (HolderType holderType : HOLDER_TYPES) {
+            permissionData.put(holderType.toString(), toMap(getPermissionDataCalculations(holderType)));
+            metaData.put(holderType.toString(), toMap(getMetaDataCalculations(holderType)));
+        }
+
+        Map<String, Object> storage = toMap(getStorageOperations());
+        storage.put("failures", getStorageFailureCount());
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("elapsedMillis", getElapsedTime(TimeUnit.MILLISECONDS));
+        map.put("permissionChecks", permissionChecks);
+        map.put("permissionCalculations", toMap(getPermissionCalculations()));
+        map.put("permissionDataCalculations", permissionData);
+        map.put("metaDataCalculations", metaData);
+        map.put("contextCalculations", toMap(getContextCalculations()));
+        map.put("storageOperations", storage);
+        return map;
+    }
+
+    private static Map<String, Object> toMap(LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", snapshot.count());
+        map.put("meanNanos", snapshot.meanNanos());
+        map.put("p50Nanos", snapshot.percentileNanos(0.50));
+        map.put("p99Nanos", snapshot.percentileNanos(0.99));
+        map.put("maxNanos", snapshot.maxNanos());
+        return map;
+    }
+
+}
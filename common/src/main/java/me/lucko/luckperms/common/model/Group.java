@@ -81,6 +81,10 @@ public class Group extends PermissionHolder {
         // invalidate our caches
         this.weightCache.invalidate();
         this.displayNameCache.invalidate();
+
+        // successors resolved for other holders may depend on our
+        // inheritance data or weight
+        getPlugin().getInheritanceGraphFactory().invalidate();
     }
 
     // name getters
@@ -31,7 +31,9 @@ import me.lucko.luckperms.common.cacheddata.result.IntegerResult;
 import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
 import me.lucko.luckperms.common.inheritance.InheritanceComparator;
 import me.lucko.luckperms.common.inheritance.InheritanceGraph;
+import me.lucko.luckperms.common.inheritance.SuccessorCache;
 import me.lucko.luckperms.common.model.nodemap.NodeMap;
+import me.lucko.luckperms.common.model.nodemap.NodeMapCopyOnWrite;
 import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
 import me.lucko.luckperms.common.model.nodemap.RecordedNodeMap;
 import me.lucko.luckperms.common.node.NodeEquality;
@@ -64,6 +66,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.function.IntFunction;
@@ -88,6 +91,9 @@ import java.util.function.Predicate;
  * doing context specific querying should be fast. Caching would be ineffective
  * here, due to the potentially vast amount of contexts being used by nodes,
  * and the potential for very large inheritance trees.</p>
+ *
+ * <p>The exception is the list of groups each holder directly inherits from,
+ * which is cached per query options by a {@link SuccessorCache}.</p>
  */
 public abstract class PermissionHolder {
 
@@ -128,6 +134,11 @@ public abstract class PermissionHolder {
      */
     private final Comparator<? super PermissionHolder> inheritanceComparator;
 
+    /**
+     * Caches the groups this holder directly inherits from, per query options
+     */
+    private final SuccessorCache successorCache = new SuccessorCache();
+
     /**
      * Creates a new instance
      *
@@ -136,11 +147,20 @@ public abstract class PermissionHolder {
     protected PermissionHolder(LuckPermsPlugin plugin, String objectName) {
         this.plugin = plugin;
         this.identifier = new PermissionHolderIdentifier(getType(), objectName);
-        this.normalNodes = new RecordedNodeMap(new NodeMapMutable(this, DataType.NORMAL));
-        this.transientNodes = new NodeMapMutable(this, DataType.TRANSIENT);
+        this.normalNodes = new RecordedNodeMap(createNodeMap(DataType.NORMAL));
+        this.transientNodes = createNodeMap(DataType.TRANSIENT);
         this.inheritanceComparator = InheritanceComparator.getFor(this);
     }
 
+    private NodeMap createNodeMap(DataType type) {
+        // groups are read far more often than they are modified, so
+        // the copy-on-write implementation is a better fit
+        if (getType() == HolderType.GROUP) {
+            return new NodeMapCopyOnWrite(this, type);
+        }
+        return new NodeMapMutable(this, type);
+    }
+
     // getters
 
     public LuckPermsPlugin getPlugin() {
@@ -170,6 +190,10 @@ public abstract class PermissionHolder {
         return this.transientNodes;
     }
 
+    public SuccessorCache getSuccessorCache() {
+        return this.successorCache;
+    }
+
     public PermissionHolderIdentifier getIdentifier() {
         return this.identifier;
     }
@@ -211,8 +235,9 @@ public abstract class PermissionHolder {
     public abstract HolderType getType();
 
     protected void invalidateCache() {
-        getCachedData().invalidate();
-        getPlugin().getEventDispatcher().dispatchDataRecalculate(this);
+        this.successorCache.invalidate();
+        // dispatch once the new data is in place, so listeners don't read the old values
+        getCachedData().refresh().whenComplete((v, ex) -> getPlugin().getEventDispatcher().dispatchDataRecalculate(this));
     }
 
     public void loadNodesFromStorage(Iterable<? extends Node> set) {
@@ -281,6 +306,24 @@ public abstract class PermissionHolder {
         return nodes;
     }
 
+    /**
+     * Gets whether this holder directly inherits from any of the given groups,
+     * in any context.
+     *
+     * @param groupNames the (lowercase) group names
+     * @return true if an inheritance node for one of the groups is present
+     */
+    public boolean inheritsDirectlyFromAny(Set<String> groupNames) {
+        for (DataType dataType : DataType.values()) {
+            for (InheritanceNode n : getData(dataType).inheritanceAsList()) {
+                if (groupNames.contains(n.getGroupName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public List<Node> resolveInheritedNodes(QueryOptions queryOptions) {
         if (!queryOptions.flag(Flag.RESOLVE_INHERITANCE)) {
             return getOwnNodes(queryOptions);
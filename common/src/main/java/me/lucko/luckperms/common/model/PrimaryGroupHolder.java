@@ -92,6 +92,9 @@ public interface PrimaryGroupHolder {
             } else {
                 this.value = value.toLowerCase(Locale.ROOT);
             }
+
+            // the stored value is used when ordering the user's parent groups
+            this.user.getSuccessorCache().invalidate();
         }
     }
 
@@ -27,12 +27,46 @@ package me.lucko.luckperms.common.model.manager.group;
 
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.AbstractManager;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.types.InheritanceNode;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public abstract class AbstractGroupManager<T extends Group> extends AbstractManager<String, Group, T> implements GroupManager<T> {
 
+    @Override
+    public T getOrMake(String id) {
+        T group = getIfLoaded(id);
+        if (group == null) {
+            group = super.getOrMake(id);
+            onLoadedGroupsChange();
+        }
+        return group;
+    }
+
+    @Override
+    public void unload(String id) {
+        if (id != null && isLoaded(id)) {
+            super.unload(id);
+            onLoadedGroupsChange();
+        }
+    }
+
+    /**
+     * Called after a group has been loaded into, or unloaded from this manager.
+     */
+    protected abstract void onLoadedGroupsChange();
+
     @Override
     public T getByDisplayName(String name) {
         // try to get an exact match first
@@ -70,6 +104,51 @@ public abstract class AbstractGroupManager<T extends Group> extends AbstractMana
         getAll().values().forEach(g -> g.getCachedData().invalidate());
     }
 
+    @Override
+    public Set<String> invalidateDependentCaches(Group group) {
+        Set<String> dependents = getDependentGroups(group.getName());
+        for (String name : dependents) {
+            T g = getIfLoaded(name);
+            if (g != null) {
+                g.getCachedData().refresh();
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Gets the names of the groups which inherit from the given group, either
+     * directly or indirectly, in any context. The group itself is included.
+     *
+     * <p>Inheritance is matched regardless of context, so the result is a
+     * superset of the groups affected for any particular set of query options.</p>
+     *
+     * @param groupName the group name
+     * @return the dependent groups
+     */
+    protected Set<String> getDependentGroups(String groupName) {
+        // build a reverse index of parent -> direct children
+        Map<String, List<String>> children = new HashMap<>();
+        for (T group : getAll().values()) {
+            for (DataType dataType : DataType.values()) {
+                for (InheritanceNode n : group.getData(dataType).inheritanceAsList()) {
+                    children.computeIfAbsent(n.getGroupName(), k -> new ArrayList<>()).add(group.getName());
+                }
+            }
+        }
+
+        Set<String> dependents = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(groupName);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (dependents.add(name)) {
+                queue.addAll(children.getOrDefault(name, Collections.emptyList()));
+            }
+        }
+        return dependents;
+    }
+
     @Override
     public void invalidateAllPermissionCalculators() {
         getAll().values().forEach(g -> g.getCachedData().invalidatePermissionCalculators());
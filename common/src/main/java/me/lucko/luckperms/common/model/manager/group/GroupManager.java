@@ -29,6 +29,8 @@ import me.lucko.luckperms.common.calculator.PermissionCalculator;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.manager.Manager;
 
+import java.util.Set;
+
 public interface GroupManager<T extends Group> extends Manager<String, Group, T> {
 
     /**
@@ -49,6 +51,15 @@ public interface GroupManager<T extends Group> extends Manager<String, Group, T>
      */
     void invalidateAllGroupCaches();
 
+    /**
+     * Invalidates the cached data for the given group, and any *loaded* groups
+     * which inherit from it (directly or indirectly, in any context).
+     *
+     * @param group the group which has changed
+     * @return the names of the groups which were invalidated
+     */
+    Set<String> invalidateDependentCaches(Group group);
+
     /**
      * Invalidates the {@link PermissionCalculator}s for *loaded* groups.
      */
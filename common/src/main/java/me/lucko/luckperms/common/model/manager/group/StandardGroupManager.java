@@ -39,4 +39,9 @@ public class StandardGroupManager extends AbstractGroupManager<Group> {
     public Group apply(String name) {
         return new Group(name, this.plugin);
     }
+
+    @Override
+    protected void onLoadedGroupsChange() {
+        this.plugin.getInheritanceGraphFactory().invalidate();
+    }
 }
@@ -175,6 +175,15 @@ public abstract class AbstractUserManager<T extends User> extends AbstractManage
         getAll().values().forEach(u -> u.getCachedData().invalidate());
     }
 
+    @Override
+    public void invalidateDependentCaches(Set<String> groupNames) {
+        for (T user : getAll().values()) {
+            if (user.inheritsDirectlyFromAny(groupNames)) {
+                user.getCachedData().refresh();
+            }
+        }
+    }
+
     @Override
     public void invalidateAllPermissionCalculators() {
         getAll().values().forEach(u -> u.getCachedData().invalidatePermissionCalculators());
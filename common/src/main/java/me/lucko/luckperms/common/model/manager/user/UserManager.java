@@ -30,6 +30,7 @@ import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.model.manager.Manager;
 import net.luckperms.api.node.Node;
 
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -85,6 +86,15 @@ public interface UserManager<T extends User> extends Manager<UUID, User, T> {
      */
     void invalidateAllUserCaches();
 
+    /**
+     * Invalidates the cached data for *loaded* users which directly inherit
+     * from any of the given groups.
+     *
+     * @param groupNames the names of the groups which have changed, including
+     *                   any groups which inherit from them
+     */
+    void invalidateDependentCaches(Set<String> groupNames);
+
     /**
      * Invalidates the {@link PermissionCalculator}s for *loaded* users.
      */
@@ -0,0 +1,144 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.model.nodemap;
+
+import net.luckperms.api.context.Context;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.types.InheritanceNode;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * An index of the context "buckets" in a {@link NodeMapBase}, keyed by the
+ * context entries each bucket contains.
+ *
+ * <p>A non-empty bucket can only be satisfied by a context set which contains at
+ * least one of its entries (regardless of the satisfy mode), so the index can be used
+ * to skip over buckets which the context set definitely does not satisfy, instead of
+ * testing every bucket in the map.</p>
+ *
+ * <p>The index is a snapshot of the buckets in the map: it needs to be rebuilt
+ * when a bucket is added or removed, but not when nodes are added to or removed from
+ * an existing bucket.</p>
+ */
+final class ContextIndex {
+
+    /**
+     * A context bucket in the node map.
+     */
+    static final class Bucket {
+        final ImmutableContextSet context;
+        final SortedSet<Node> nodes;
+        final SortedSet<InheritanceNode> inheritanceNodes; // nullable
+
+        Bucket(ImmutableContextSet context, SortedSet<Node> nodes, SortedSet<InheritanceNode> inheritanceNodes) {
+            this.context = context;
+            this.nodes = nodes;
+            this.inheritanceNodes = inheritanceNodes;
+        }
+    }
+
+    static ContextIndex build(int version, SortedMap<ImmutableContextSet, SortedSet<Node>> map, SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap) {
+        List<Bucket> buckets = new ArrayList<>(map.size());
+        for (Map.Entry<ImmutableContextSet, SortedSet<Node>> e : map.entrySet()) {
+            buckets.add(new Bucket(e.getKey(), e.getValue(), inheritanceMap.get(e.getKey())));
+        }
+        return new ContextIndex(version, buckets.toArray(new Bucket[0]));
+    }
+
+    /** The version of the node map this index was built from */
+    private final int version;
+
+    /** The buckets, in the same order as the map */
+    private final Bucket[] buckets;
+
+    /** The positions of buckets with an empty context set, which are always satisfied */
+    private final BitSet emptyBuckets = new BitSet();
+
+    /** context key -> context value -> positions of the buckets containing the entry */
+    private final Map<String, Map<String, BitSet>> entries = new HashMap<>();
+
+    private ContextIndex(int version, Bucket[] buckets) {
+        this.version = version;
+        this.buckets = buckets;
+
+        for (int i = 0; i < buckets.length; i++) {
+            ImmutableContextSet context = buckets[i].context;
+            if (context.isEmpty()) {
+                this.emptyBuckets.set(i);
+                continue;
+            }
+
+            for (Context entry : context) {
+                this.entries.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .computeIfAbsent(entry.getValue(), v -> new BitSet())
+                        .set(i);
+            }
+        }
+    }
+
+    int version() {
+        return this.version;
+    }
+
+    Bucket[] buckets() {
+        return this.buckets;
+    }
+
+    /**
+     * Gets the positions of the buckets which could be satisfied by the given
+     * context set.
+     *
+     * <p>The result is a superset of the satisfied buckets - candidates still need
+     * to be tested against the context set.</p>
+     *
+     * @param context the context set
+     * @return the positions of the candidate buckets
+     */
+    BitSet candidates(ImmutableContextSet context) {
+        BitSet candidates = (BitSet) this.emptyBuckets.clone();
+        for (Context entry : context) {
+            Map<String, BitSet> values = this.entries.get(entry.getKey());
+            if (values == null) {
+                continue;
+            }
+
+            BitSet positions = values.get(entry.getValue());
+            if (positions != null) {
+                candidates.or(positions);
+            }
+        }
+        return candidates;
+    }
+
+}
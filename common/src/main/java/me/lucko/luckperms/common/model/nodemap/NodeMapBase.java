@@ -34,21 +34,31 @@ import net.luckperms.api.node.Node;
 import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.InheritanceNode;
 import net.luckperms.api.query.Flag;
+import net.luckperms.api.query.QueryMode;
 import net.luckperms.api.query.QueryOptions;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
  * Base implementation of {@link NodeMap} query methods.
  */
 abstract class NodeMapBase implements NodeMap {
+
+    /** Incremented when a context bucket is added to or removed from the maps */
+    private final AtomicInteger version = new AtomicInteger();
+
+    /** An index of the context buckets, lazily (re)built when the version changes */
+    private volatile ContextIndex contextIndex = null;
    
     NodeMapBase() {
 
@@ -60,6 +70,53 @@ abstract class NodeMapBase implements NodeMap {
 
     protected abstract ContextSatisfyMode defaultSatisfyMode();
 
+    /**
+     * Marks that a context bucket has been added to or removed from the maps,
+     * and that the context index needs to be rebuilt.
+     */
+    protected void invalidateContextIndex() {
+        this.version.incrementAndGet();
+    }
+
+    private ContextIndex contextIndex() {
+        ContextIndex index = this.contextIndex;
+        int version = this.version.get();
+        if (index == null || index.version() != version) {
+            // the version is read before the maps, so if they are modified whilst building
+            // the index, it will just be rebuilt again next time
+            index = ContextIndex.build(version, map(), inheritanceMap());
+            this.contextIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the context buckets satisfied by the given query options, in map order.
+     *
+     * @param filter the query options
+     * @return the satisfied buckets
+     */
+    private List<ContextIndex.Bucket> satisfiedBuckets(QueryOptions filter) {
+        ContextIndex index = contextIndex();
+        ContextIndex.Bucket[] buckets = index.buckets();
+        List<ContextIndex.Bucket> satisfied = new ArrayList<>();
+
+        if (filter.mode() != QueryMode.CONTEXTUAL) {
+            Collections.addAll(satisfied, buckets);
+            return satisfied;
+        }
+
+        BitSet candidates = index.candidates(filter.context());
+        ContextSatisfyMode defaultSatisfyMode = defaultSatisfyMode();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            ContextIndex.Bucket bucket = buckets[i];
+            if (filter.satisfies(bucket.context, defaultSatisfyMode)) {
+                satisfied.add(bucket);
+            }
+        }
+        return satisfied;
+    }
+
     @Override
     public boolean isEmpty() {
         return map().isEmpty();
@@ -101,20 +158,15 @@ abstract class NodeMapBase implements NodeMap {
 
     @Override
     public void forEach(QueryOptions filter, Consumer<? super Node> consumer) {
-        for (Map.Entry<ImmutableContextSet, SortedSet<Node>> e : map().entrySet()) {
-            if (!filter.satisfies(e.getKey(), defaultSatisfyMode())) {
-                continue;
-            }
-
-            if (normalNodesExcludeTest(filter, e.getKey())) {
-                if (inheritanceNodesIncludeTest(filter, e.getKey())) {
-                    SortedSet<InheritanceNode> inheritanceNodes = inheritanceMap().get(e.getKey());
-                    if (inheritanceNodes != null) {
-                        inheritanceNodes.forEach(consumer);
+        for (ContextIndex.Bucket bucket : satisfiedBuckets(filter)) {
+            if (normalNodesExcludeTest(filter, bucket.context)) {
+                if (inheritanceNodesIncludeTest(filter, bucket.context)) {
+                    if (bucket.inheritanceNodes != null) {
+                        bucket.inheritanceNodes.forEach(consumer);
                     }
                 }
             } else {
-                e.getValue().forEach(consumer);
+                bucket.nodes.forEach(consumer);
             }
         }
     }
@@ -135,20 +187,15 @@ abstract class NodeMapBase implements NodeMap {
 
     @Override
     public void copyTo(Collection<? super Node> collection, QueryOptions filter) {
-        for (Map.Entry<ImmutableContextSet, SortedSet<Node>> e : map().entrySet()) {
-            if (!filter.satisfies(e.getKey(), defaultSatisfyMode())) {
-                continue;
-            }
-
-            if (normalNodesExcludeTest(filter, e.getKey())) {
-                if (inheritanceNodesIncludeTest(filter, e.getKey())) {
-                    SortedSet<InheritanceNode> inheritanceNodes = inheritanceMap().get(e.getKey());
-                    if (inheritanceNodes != null) {
-                        collection.addAll(inheritanceNodes);
+        for (ContextIndex.Bucket bucket : satisfiedBuckets(filter)) {
+            if (normalNodesExcludeTest(filter, bucket.context)) {
+                if (inheritanceNodesIncludeTest(filter, bucket.context)) {
+                    if (bucket.inheritanceNodes != null) {
+                        collection.addAll(bucket.inheritanceNodes);
                     }
                 }
             } else {
-                collection.addAll(e.getValue());
+                collection.addAll(bucket.nodes);
             }
         }
     }
@@ -161,16 +208,12 @@ abstract class NodeMapBase implements NodeMap {
             return;
         }
         
-        for (Map.Entry<ImmutableContextSet, SortedSet<Node>> e : map().entrySet()) {
-            if (!filter.satisfies(e.getKey(), defaultSatisfyMode())) {
+        for (ContextIndex.Bucket bucket : satisfiedBuckets(filter)) {
+            if (normalNodesExcludeTest(filter, bucket.context)) {
                 continue;
             }
 
-            if (normalNodesExcludeTest(filter, e.getKey())) {
-                continue;
-            }
-
-            for (Node node : e.getValue()) {
+            for (Node node : bucket.nodes) {
                 if (type.matches(node)) {
                     collection.add(type.cast(node));
                 }
@@ -194,13 +237,9 @@ abstract class NodeMapBase implements NodeMap {
 
     @Override
     public void copyInheritanceNodesTo(Collection<? super InheritanceNode> collection, QueryOptions filter) {
-        for (Map.Entry<ImmutableContextSet, SortedSet<InheritanceNode>> e : inheritanceMap().entrySet()) {
-            if (!filter.satisfies(e.getKey(), defaultSatisfyMode())) {
-                continue;
-            }
-
-            if (inheritanceNodesIncludeTest(filter, e.getKey())) {
-                collection.addAll(e.getValue());
+        for (ContextIndex.Bucket bucket : satisfiedBuckets(filter)) {
+            if (bucket.inheritanceNodes != null && inheritanceNodesIncludeTest(filter, bucket.context)) {
+                collection.addAll(bucket.inheritanceNodes);
             }
         }
     }
@@ -0,0 +1,297 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.model.nodemap;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.context.comparator.ContextSetComparator;
+import me.lucko.luckperms.common.model.PermissionHolder;
+import me.lucko.luckperms.common.util.Difference;
+import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.context.ContextSet;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeEqualityPredicate;
+import net.luckperms.api.node.types.InheritanceNode;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A {@link NodeMap} which holds its content in immutable, array-backed sorted maps & sets,
+ * replaced as a whole whenever the map is modified.
+ *
+ * <p>Reads are lock-free and don't have to traverse the concurrent skip lists used by
+ * {@link NodeMapMutable}, and the immutable collections use much less memory. However,
+ * the entire map is copied after it is modified, so this implementation is only suitable
+ * for holders which are read far more frequently than they are modified (e.g. groups).</p>
+ *
+ * <p>Modifications are applied to a working {@link NodeMapMutable} so the semantics of
+ * each operation are exactly the same. The working map is kept until the next read, so
+ * a run of modifications with no reads in between only copies the map once. Removals
+ * which wouldn't change anything are detected without creating a working copy.</p>
+ */
+public class NodeMapCopyOnWrite extends NodeMapBase {
+
+    private static <N extends Node> SortedMap<ImmutableContextSet, SortedSet<N>> emptyMap() {
+        return ImmutableSortedMap.<ImmutableContextSet, SortedSet<N>>orderedBy(ContextSetComparator.reverse()).build();
+    }
+
+    private volatile SortedMap<ImmutableContextSet, SortedSet<Node>> map = emptyMap();
+    private volatile SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap = emptyMap();
+
+    /**
+     * The map modifications have been applied to, if the immutable content hasn't been
+     * rebuilt from it yet, otherwise null.
+     */
+    private volatile NodeMapMutable working = null;
+
+    /**
+     * This lock is used whilst performing mutations, but *not* reads (unless there are
+     * modifications which haven't been copied into the immutable content yet).
+     */
+    private final Lock lock = new ReentrantLock();
+
+    protected final PermissionHolder holder;
+    private final DataType type;
+
+    public NodeMapCopyOnWrite(PermissionHolder holder, DataType type) {
+        this.holder = holder;
+        this.type = type;
+    }
+
+    @Override
+    protected SortedMap<ImmutableContextSet, SortedSet<Node>> map() {
+        if (this.working != null) {
+            applyWorkingCopy();
+        }
+        return this.map;
+    }
+
+    @Override
+    protected SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> inheritanceMap() {
+        if (this.working != null) {
+            applyWorkingCopy();
+        }
+        return this.inheritanceMap;
+    }
+
+    /**
+     * Replaces the immutable content with a copy of the working map, if there is one.
+     */
+    private void applyWorkingCopy() {
+        this.lock.lock();
+        try {
+            NodeMapMutable working = this.working;
+            if (working != null) {
+                this.map = immutableCopy(working.map());
+                this.inheritanceMap = immutableCopy(working.inheritanceMap());
+                this.working = null;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    protected ContextSatisfyMode defaultSatisfyMode() {
+        return this.holder.getPlugin().getConfiguration().get(ConfigKeys.CONTEXT_SATISFY_MODE);
+    }
+
+    /**
+     * Gets the current content, including modifications which haven't been copied into
+     * the immutable content yet, without copying anything.
+     *
+     * @return the current content
+     */
+    private SortedMap<ImmutableContextSet, SortedSet<Node>> content() {
+        NodeMapMutable working = this.working;
+        return working != null ? working.map() : this.map;
+    }
+
+    /**
+     * Gets if any node in the current content matches the given predicate.
+     *
+     * <p>Used to skip creating a working copy for modifications which wouldn't change
+     * anything, e.g. the periodic removal of expired nodes.</p>
+     *
+     * @param predicate the predicate
+     * @return true if a node matches
+     */
+    private boolean anyMatch(Predicate<? super Node> predicate) {
+        for (SortedSet<Node> nodes : content().values()) {
+            if (anyMatch(nodes, predicate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean anyMatch(ImmutableContextSet context, Predicate<? super Node> predicate) {
+        SortedSet<Node> nodes = content().get(context);
+        return nodes != null && anyMatch(nodes, predicate);
+    }
+
+    private static boolean anyMatch(SortedSet<Node> nodes, Predicate<? super Node> predicate) {
+        for (Node node : nodes) {
+            if (predicate.test(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies a modification to the working map, creating it from the current content if
+     * there isn't one. The immutable content is rebuilt from it on the next read.
+     *
+     * @param action the modification
+     * @return the changes made by the modification
+     */
+    private Difference<Node> mutate(Function<NodeMap, Difference<Node>> action) {
+        this.lock.lock();
+        try {
+            NodeMapMutable working = this.working;
+            if (working == null) {
+                working = new NodeMapMutable(this.holder, this.type);
+                working.load(this.map, this.inheritanceMap);
+            }
+
+            Difference<Node> result = action.apply(working);
+            if (!result.isEmpty()) {
+                this.working = working;
+                invalidateContextIndex();
+            }
+            return result;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static <N extends Node> SortedMap<ImmutableContextSet, SortedSet<N>> immutableCopy(SortedMap<ImmutableContextSet, SortedSet<N>> map) {
+        ImmutableSortedMap.Builder<ImmutableContextSet, SortedSet<N>> builder = ImmutableSortedMap.orderedBy(ContextSetComparator.reverse());
+        for (Map.Entry<ImmutableContextSet, SortedSet<N>> e : map.entrySet()) {
+            // buckets are never removed from the mutable map when they become empty, but we can skip them here
+            if (!e.getValue().isEmpty()) {
+                builder.put(e.getKey(), ImmutableSortedSet.copyOfSorted(e.getValue()));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Difference<Node> add(Node nodeWithoutInheritanceOrigin) {
+        return mutate(map -> map.add(nodeWithoutInheritanceOrigin));
+    }
+
+    @Override
+    public Difference<Node> remove(Node node) {
+        if (!anyMatch(node.getContexts(), el -> node.equals(el, NodeEqualityPredicate.IGNORE_EXPIRY_TIME_AND_VALUE))) {
+            return new Difference<>();
+        }
+        return mutate(map -> map.remove(node));
+    }
+
+    @Override
+    public Difference<Node> removeExact(Node node) {
+        SortedSet<Node> nodes = content().get(node.getContexts());
+        if (nodes == null || !nodes.contains(node)) {
+            return new Difference<>();
+        }
+        return mutate(map -> map.removeExact(node));
+    }
+
+    @Override
+    public Difference<Node> removeIf(Predicate<? super Node> predicate) {
+        if (!anyMatch(predicate)) {
+            return new Difference<>();
+        }
+        return mutate(map -> map.removeIf(predicate));
+    }
+
+    @Override
+    public Difference<Node> removeIf(ContextSet contextSet, Predicate<? super Node> predicate) {
+        if (!anyMatch(contextSet.immutableCopy(), predicate)) {
+            return new Difference<>();
+        }
+        return mutate(map -> map.removeIf(contextSet, predicate));
+    }
+
+    @Override
+    public Difference<Node> removeThenAdd(Node nodeToRemove, Node nodeToAdd) {
+        return mutate(map -> map.removeThenAdd(nodeToRemove, nodeToAdd));
+    }
+
+    @Override
+    public Difference<Node> clear() {
+        if (!anyMatch(node -> true)) {
+            return new Difference<>();
+        }
+        return mutate(NodeMap::clear);
+    }
+
+    @Override
+    public Difference<Node> clear(ContextSet contextSet) {
+        if (!anyMatch(contextSet.immutableCopy(), node -> true)) {
+            return new Difference<>();
+        }
+        return mutate(map -> map.clear(contextSet));
+    }
+
+    @Override
+    public Difference<Node> setContent(Iterable<? extends Node> set) {
+        return mutate(map -> map.setContent(set));
+    }
+
+    @Override
+    public Difference<Node> setContent(Stream<? extends Node> stream) {
+        return mutate(map -> map.setContent(stream));
+    }
+
+    @Override
+    public Difference<Node> applyChanges(Difference<Node> changes) {
+        return mutate(map -> map.applyChanges(changes));
+    }
+
+    @Override
+    public Difference<Node> addAll(Iterable<? extends Node> set) {
+        return mutate(map -> map.addAll(set));
+    }
+
+    @Override
+    public Difference<Node> addAll(Stream<? extends Node> stream) {
+        return mutate(map -> map.addAll(stream));
+    }
+
+}
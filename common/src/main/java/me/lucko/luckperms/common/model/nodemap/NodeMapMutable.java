@@ -112,6 +112,30 @@ public class NodeMapMutable extends NodeMapBase {
         return this.holder.getPlugin().getConfiguration().get(ConfigKeys.CONTEXT_SATISFY_MODE);
     }
 
+    /**
+     * Replaces the content of this map with a copy of the given (consistent) maps,
+     * without re-applying the usual checks performed when adding nodes.
+     *
+     * @param map the nodes to load
+     * @param inheritanceMap the inheritance nodes to load
+     */
+    void load(SortedMap<ImmutableContextSet, ? extends SortedSet<Node>> map, SortedMap<ImmutableContextSet, ? extends SortedSet<InheritanceNode>> inheritanceMap) {
+        SortedMap<ImmutableContextSet, SortedSet<Node>> newMap = createMap();
+        map.forEach((context, nodes) -> newMap.put(context, new ConcurrentSkipListSet<>(nodes)));
+
+        SortedMap<ImmutableContextSet, SortedSet<InheritanceNode>> newInheritanceMap = createMap();
+        inheritanceMap.forEach((context, nodes) -> newInheritanceMap.put(context, new ConcurrentSkipListSet<>(nodes)));
+
+        this.lock.lock();
+        try {
+            this.map = newMap;
+            this.inheritanceMap = newInheritanceMap;
+            invalidateContextIndex();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
     private Node addInheritanceOrigin(Node node) {
         Optional<InheritanceOriginMetadata> existing = node.getMetadata(InheritanceOriginMetadata.KEY);
         if (existing.isPresent() && existing.get().equals(this.inheritanceOrigin)) {
@@ -130,7 +154,11 @@ public class NodeMapMutable extends NodeMapBase {
 
         this.lock.lock();
         try {
-            SortedSet<Node> nodes = this.map.computeIfAbsent(context, VALUE_SET_SUPPLIER);
+            SortedSet<Node> nodes = this.map.get(context);
+            if (nodes == null) {
+                nodes = this.map.computeIfAbsent(context, VALUE_SET_SUPPLIER);
+                invalidateContextIndex();
+            }
 
             // add the new node to the set - if it was already there, return
             if (!nodes.add(node)) {
@@ -145,7 +173,11 @@ public class NodeMapMutable extends NodeMapBase {
 
             // update the inheritanceMap too if necessary
             if (node instanceof InheritanceNode) {
-                SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.computeIfAbsent(context, INHERITANCE_VALUE_SET_SUPPLIER);
+                SortedSet<InheritanceNode> inhNodes = this.inheritanceMap.get(context);
+                if (inhNodes == null) {
+                    inhNodes = this.inheritanceMap.computeIfAbsent(context, INHERITANCE_VALUE_SET_SUPPLIER);
+                    invalidateContextIndex();
+                }
                 // remove existing..
                 inhNodes.removeIf(el -> node.equals(el, NodeEqualityPredicate.IGNORE_EXPIRY_TIME_AND_VALUE));
                 // .. & add
@@ -328,6 +360,7 @@ public class NodeMapMutable extends NodeMapBase {
             // by any race conditions between this call to clear and any subsequent call to setContent
             this.map = createMap();
             this.inheritanceMap = createMap();
+            invalidateContextIndex();
         } finally {
             this.lock.unlock();
         }
@@ -346,6 +379,7 @@ public class NodeMapMutable extends NodeMapBase {
             if (removed != null) {
                 result.recordChanges(ChangeType.REMOVE, removed);
                 this.inheritanceMap.remove(context);
+                invalidateContextIndex();
             }
         } finally {
             this.lock.unlock();
@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.node;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.cache.StringInterner;
 import me.lucko.luckperms.common.node.utils.ShorthandParser;
 import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.node.Node;
@@ -67,7 +68,7 @@ public abstract class AbstractNode<N extends ScopedNode<N, B>, B extends NodeBui
     private final int hashCode;
 
     protected AbstractNode(String key, boolean value, long expireAt, ImmutableContextSet contexts, Map<NodeMetadataKey<?>, Object> metadata) {
-        this.key = key;
+        this.key = StringInterner.intern(key);
         this.value = value;
         this.expireAt = expireAt;
         this.contexts = contexts;
@@ -28,6 +28,7 @@ package me.lucko.luckperms.common.plugin;
 import me.lucko.luckperms.common.actionlog.LogDispatcher;
 import me.lucko.luckperms.common.api.ApiRegistrationUtil;
 import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.cacheddata.SharedPermissionCalculators;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
@@ -51,6 +52,7 @@ import me.lucko.luckperms.common.locale.Message;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
 import me.lucko.luckperms.common.messaging.MessagingFactory;
 import me.lucko.luckperms.common.plugin.logging.PluginLogger;
 import me.lucko.luckperms.common.plugin.util.HealthCheckResult;
@@ -96,6 +98,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     private TranslationManager translationManager;
     private AsyncPermissionRegistry permissionRegistry;
     private VerboseHandler verboseHandler;
+    private final PluginMetrics metrics = new PluginMetrics();
 
     // init during enable
     private LogDispatcher logDispatcher;
@@ -111,6 +114,7 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
     private SyncTask.Buffer syncTaskBuffer;
     private InheritanceGraphFactory inheritanceGraphFactory;
     private CalculatorFactory calculatorFactory;
+    private final SharedPermissionCalculators sharedPermissionCalculators = new SharedPermissionCalculators();
     private LuckPermsApiProvider apiProvider;
     private EventDispatcher eventDispatcher;
     private SimpleExtensionManager extensionManager;
@@ -496,6 +500,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.verboseHandler;
     }
 
+    @Override
+    public PluginMetrics getMetrics() {
+        return this.metrics;
+    }
+
     @Override
     public PermissionRegistry getPermissionRegistry() {
         return this.permissionRegistry;
@@ -565,6 +574,11 @@ public abstract class AbstractLuckPermsPlugin implements LuckPermsPlugin {
         return this.calculatorFactory;
     }
 
+    @Override
+    public SharedPermissionCalculators getSharedPermissionCalculators() {
+        return this.sharedPermissionCalculators;
+    }
+
     @Override
     public LuckPermsApiProvider getApiProvider() {
         return this.apiProvider;
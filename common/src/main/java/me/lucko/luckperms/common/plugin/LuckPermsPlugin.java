@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.plugin;
 
 import me.lucko.luckperms.common.actionlog.LogDispatcher;
 import me.lucko.luckperms.common.api.LuckPermsApiProvider;
+import me.lucko.luckperms.common.cacheddata.SharedPermissionCalculators;
 import me.lucko.luckperms.common.calculator.CalculatorFactory;
 import me.lucko.luckperms.common.command.CommandManager;
 import me.lucko.luckperms.common.command.abstraction.Command;
@@ -41,6 +42,7 @@ import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.locale.TranslationManager;
 import me.lucko.luckperms.common.locale.TranslationRepository;
 import me.lucko.luckperms.common.messaging.InternalMessagingService;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.Track;
 import me.lucko.luckperms.common.model.User;
@@ -215,6 +217,13 @@ public interface LuckPermsPlugin {
      */
     CalculatorFactory getCalculatorFactory();
 
+    /**
+     * Gets the pool of permission calculators shared between holders with identical data.
+     *
+     * @return the shared permission calculators
+     */
+    SharedPermissionCalculators getSharedPermissionCalculators();
+
     /**
      * Gets the verbose debug handler instance.
      *
@@ -222,6 +231,13 @@ public interface LuckPermsPlugin {
      */
     VerboseHandler getVerboseHandler();
 
+    /**
+     * Gets the metrics recorder for the plugin's hot paths.
+     *
+     * @return the metrics instance
+     */
+    PluginMetrics getMetrics();
+
     /**
      * Gets the permission registry for the platform.
      *
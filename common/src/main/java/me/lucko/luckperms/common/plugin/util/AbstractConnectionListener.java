@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.plugin.util;
 
 import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.model.data.DataType;
 import net.luckperms.api.platform.Platform;
@@ -65,8 +66,9 @@ public abstract class AbstractConnectionListener {
         // register with the housekeeper to avoid accidental unloads
         this.plugin.getUserManager().getHouseKeeper().registerUsage(uniqueId);
 
-        // save uuid data.
-        PlayerSaveResult saveResult = this.plugin.getStorage().savePlayerData(uniqueId, username).join();
+        // save uuid data and load the user, in one storage operation
+        LoginResult loginResult = this.plugin.getStorage().loadUserForLogin(uniqueId, username).join();
+        PlayerSaveResult saveResult = loginResult.getSaveResult();
 
         // fire UserFirstLogin event
         if (saveResult.includes(PlayerSaveResult.Outcome.CLEAN_INSERT)) {
@@ -98,11 +100,14 @@ public abstract class AbstractConnectionListener {
             this.plugin.getLogger().warn("See here for more info: https://luckperms.net/wiki/Network-Installation#pre-setup");
         }
 
-        User user = this.plugin.getStorage().loadUser(uniqueId, username).join();
+        User user = loginResult.getUser();
         if (user == null) {
             throw new NullPointerException("User is null");
         }
 
+        // fire UserLoad event, after UserFirstLogin as it always has been
+        this.plugin.getEventDispatcher().dispatchUserLoad(user);
+
         final long time = System.currentTimeMillis() - startTime;
         if (time >= 1000) {
             this.plugin.getLogger().warn("Processing login for " + username + " took " + time + "ms.");
@@ -0,0 +1,80 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.query;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.query.QueryMode;
+import net.luckperms.api.query.QueryOptions;
+
+/**
+ * A weak, global interner for {@link ImmutableContextSet}s and {@link QueryOptions}.
+ *
+ * <p>Most subjects share one of a small number of distinct context sets, but each
+ * calculation produces a new instance. Interning them means equal instances resolve to
+ * a single canonical one, so lookups in caches keyed by them succeed on the identity
+ * comparison in {@code equals} instead of comparing the contents.</p>
+ *
+ * <p>Entries are weakly referenced, so instances which are no longer used anywhere
+ * can still be garbage collected.</p>
+ */
+public final class QueryOptionsInterner {
+    private QueryOptionsInterner() {}
+
+    private static final Interner<ImmutableContextSet> CONTEXTS = Interners.newWeakInterner();
+    private static final Interner<QueryOptions> QUERY_OPTIONS = Interners.newWeakInterner();
+
+    /**
+     * Gets the canonical instance of the given context set.
+     *
+     * @param contextSet the context set
+     * @return the canonical instance
+     */
+    public static ImmutableContextSet intern(ImmutableContextSet contextSet) {
+        return CONTEXTS.intern(contextSet);
+    }
+
+    /**
+     * Gets the canonical instance of the given query options.
+     *
+     * <p>The context set of the returned instance is also canonical.</p>
+     *
+     * @param queryOptions the query options
+     * @return the canonical instance
+     */
+    public static QueryOptions intern(QueryOptions queryOptions) {
+        if (queryOptions.mode() == QueryMode.CONTEXTUAL) {
+            ImmutableContextSet context = queryOptions.context();
+            ImmutableContextSet canonicalContext = CONTEXTS.intern(context);
+            if (canonicalContext != context) {
+                queryOptions = queryOptions.toBuilder().context(canonicalContext).build();
+            }
+        }
+        return QUERY_OPTIONS.intern(queryOptions);
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Coalesces login loads which happen at around the same time into batches,
+ * so they can be loaded from storage in bulk.
+ *
+ * <p>When a load is submitted and there is no pending batch, a new batch is
+ * started and scheduled to be flushed after a short window. Any loads submitted
+ * in the meantime join the batch. Batches which reach the maximum size are
+ * flushed straight away.</p>
+ *
+ * <p>If a batch fails to load, each login in it is retried on its own, so that
+ * one bad player doesn't fail the logins of everyone else in the batch.</p>
+ */
+final class LoginBatcher {
+
+    /** How long to wait for other logins to join a batch */
+    static final long WINDOW_MILLIS = 5;
+
+    /** The maximum number of logins to load in one batch */
+    static final int MAX_BATCH_SIZE = 100;
+
+    private final SchedulerAdapter scheduler;
+    private final Function<Map<UUID, String>, CompletableFuture<Map<UUID, LoginResult>>> loader;
+    private final BiFunction<UUID, String, CompletableFuture<LoginResult>> singleLoader;
+
+    /** The pending batch, or null if there isn't one */
+    private Batch batch = null;
+
+    LoginBatcher(SchedulerAdapter scheduler, Function<Map<UUID, String>, CompletableFuture<Map<UUID, LoginResult>>> loader, BiFunction<UUID, String, CompletableFuture<LoginResult>> singleLoader) {
+        this.scheduler = scheduler;
+        this.loader = loader;
+        this.singleLoader = singleLoader;
+    }
+
+    /**
+     * Submits a login to be loaded as part of the next batch.
+     *
+     * @param uniqueId the uuid of the player
+     * @param username the username of the player
+     * @return a future which completes when the user has been loaded
+     */
+    CompletableFuture<LoginResult> submit(UUID uniqueId, String username) {
+        CompletableFuture<LoginResult> future;
+        Batch full = null;
+
+        synchronized (this) {
+            Batch batch = this.batch;
+            if (batch == null) {
+                batch = new Batch();
+                this.batch = batch;
+                Batch scheduled = batch;
+                this.scheduler.asyncLater(() -> flush(scheduled), WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            // if the same player is already waiting in this batch, share the result
+            future = batch.futures.get(uniqueId);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                batch.futures.put(uniqueId, future);
+                batch.usernames.put(uniqueId, username);
+            }
+
+            if (batch.futures.size() >= MAX_BATCH_SIZE) {
+                this.batch = null;
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            Batch toFlush = full;
+            this.scheduler.executeAsync(() -> load(toFlush));
+        }
+        return future;
+    }
+
+    private void flush(Batch batch) {
+        synchronized (this) {
+            // already flushed because it got full
+            if (this.batch != batch) {
+                return;
+            }
+            this.batch = null;
+        }
+        load(batch);
+    }
+
+    private void load(Batch batch) {
+        CompletableFuture<Map<UUID, LoginResult>> results;
+        try {
+            results = this.loader.apply(batch.usernames);
+        } catch (Exception e) {
+            results = new CompletableFuture<>();
+            results.completeExceptionally(e);
+        }
+
+        results.whenComplete((map, ex) -> {
+            for (Map.Entry<UUID, CompletableFuture<LoginResult>> entry : batch.futures.entrySet()) {
+                if (ex != null) {
+                    // retry on its own, so only the logins which fail by themselves are failed
+                    retry(entry.getKey(), batch.usernames.get(entry.getKey()), entry.getValue());
+                } else {
+                    entry.getValue().complete(map.get(entry.getKey()));
+                }
+            }
+        });
+    }
+
+    private void retry(UUID uniqueId, String username, CompletableFuture<LoginResult> future) {
+        CompletableFuture<LoginResult> result;
+        try {
+            result = this.singleLoader.apply(uniqueId, username);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return;
+        }
+
+        result.whenComplete((loginResult, ex) -> {
+            if (ex != null) {
+                future.completeExceptionally(ex);
+            } else {
+                future.complete(loginResult);
+            }
+        });
+    }
+
+    private static final class Batch {
+        private final Map<UUID, String> usernames = new LinkedHashMap<>();
+        private final Map<UUID, CompletableFuture<LoginResult>> futures = new LinkedHashMap<>();
+    }
+
+}
@@ -37,8 +37,10 @@ import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.split.SplitStorage;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
 import me.lucko.luckperms.common.util.AsyncInterface;
+import me.lucko.luckperms.common.util.Throwing;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.event.cause.CreationCause;
 import net.luckperms.api.event.cause.DeletionCause;
@@ -54,6 +56,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -62,11 +65,21 @@ import java.util.concurrent.CompletableFuture;
 public class Storage extends AsyncInterface {
     private final LuckPermsPlugin plugin;
     private final StorageImplementation implementation;
+    private final LoginBatcher loginBatcher;
+
+    /** How many times groups can be reloaded by revision before a full reload is forced */
+    private static final int FULL_GROUP_RELOAD_INTERVAL = 10;
+
+    /** The group revisions seen when groups were last loaded by {@link #loadChangedGroups(boolean)} */
+    private volatile Map<String, Long> groupRevisions = null;
+    /** The number of times groups have been reloaded by revision since the last full reload */
+    private int changedGroupLoads = 0;
 
     public Storage(LuckPermsPlugin plugin, StorageImplementation implementation) {
         super(plugin);
         this.plugin = plugin;
         this.implementation = implementation;
+        this.loginBatcher = new LoginBatcher(plugin.getBootstrap().getScheduler(), this::loadUsersForLogin, this::loadSingleUserForLogin);
     }
 
     public StorageImplementation getImplementation() {
@@ -105,6 +118,35 @@ public class Storage extends AsyncInterface {
         return this.implementation.getMeta();
     }
 
+    @Override
+    protected <T> CompletableFuture<T> future(Callable<T> supplier) {
+        return super.future(() -> {
+            long startTime = System.nanoTime();
+            boolean success = false;
+            try {
+                T result = supplier.call();
+                success = true;
+                return result;
+            } finally {
+                this.plugin.getMetrics().recordStorageOperation(System.nanoTime() - startTime, success);
+            }
+        });
+    }
+
+    @Override
+    protected CompletableFuture<Void> future(Throwing.Runnable runnable) {
+        return super.future(() -> {
+            long startTime = System.nanoTime();
+            boolean success = false;
+            try {
+                runnable.run();
+                success = true;
+            } finally {
+                this.plugin.getMetrics().recordStorageOperation(System.nanoTime() - startTime, success);
+            }
+        });
+    }
+
     public CompletableFuture<Void> logAction(Action entry) {
         return future(() -> this.implementation.logAction(entry));
     }
@@ -127,6 +169,51 @@ public class Storage extends AsyncInterface {
         });
     }
 
+    /**
+     * Saves the player data for a logging in player, and then loads the user.
+     *
+     * <p>The PlayerDataSave event is dispatched here, but the UserLoad event is
+     * not: the caller dispatches it, after UserFirstLogin, to keep the order
+     * the events have always been fired in.</p>
+     *
+     * @param uniqueId the uuid of the player
+     * @param username the username of the player
+     * @return the result
+     */
+    public CompletableFuture<LoginResult> loadUserForLogin(UUID uniqueId, String username) {
+        if (!this.implementation.supportsBulkLoginLoads()) {
+            // nothing to gain from batching, so keep loading logins in parallel
+            return loadSingleUserForLogin(uniqueId, username);
+        }
+
+        // logins which happen at around the same time are batched & loaded together
+        return this.loginBatcher.submit(uniqueId, username);
+    }
+
+    private CompletableFuture<LoginResult> loadSingleUserForLogin(UUID uniqueId, String username) {
+        return future(() -> {
+            LoginResult result = this.implementation.loadUserForLogin(uniqueId, username);
+            dispatchPlayerDataSave(uniqueId, username, result);
+            return result;
+        });
+    }
+
+    private CompletableFuture<Map<UUID, LoginResult>> loadUsersForLogin(Map<UUID, String> players) {
+        return future(() -> {
+            Map<UUID, LoginResult> results = this.implementation.loadUsersForLogin(players);
+            for (Map.Entry<UUID, LoginResult> entry : results.entrySet()) {
+                dispatchPlayerDataSave(entry.getKey(), players.get(entry.getKey()), entry.getValue());
+            }
+            return results;
+        });
+    }
+
+    private void dispatchPlayerDataSave(UUID uniqueId, String username, LoginResult result) {
+        if (result.getSaveResult() != null) {
+            this.plugin.getEventDispatcher().dispatchPlayerDataSave(uniqueId, username, result.getSaveResult());
+        }
+    }
+
     public CompletableFuture<Map<UUID, User>> loadUsers(Set<UUID> uniqueIds) {
         return future(() -> {
             Map<UUID, User> users = this.implementation.loadUsers(uniqueIds);
@@ -145,6 +232,19 @@ public class Storage extends AsyncInterface {
         return future(this.implementation::getUniqueUsers);
     }
 
+    public CompletableFuture<Void> iterateUniqueUsers(Throwing.Predicate<UUID> action) {
+        return future(() -> this.implementation.iterateUniqueUsers(action));
+    }
+
+    public CompletableFuture<Void> iterateUsers(int pageSize, Throwing.Consumer<Map<UUID, User>> action) {
+        return future(() -> this.implementation.iterateUsers(pageSize, users -> {
+            for (User user : users.values()) {
+                this.plugin.getEventDispatcher().dispatchUserLoad(user);
+            }
+            action.accept(users);
+        }));
+    }
+
     public <N extends Node> CompletableFuture<List<NodeEntry<UUID, N>>> searchUserNodes(ConstraintNodeMatcher<N> constraint) {
         return future(() -> {
             List<NodeEntry<UUID, N>> result = this.implementation.searchUserNodes(constraint);
@@ -180,6 +280,54 @@ public class Storage extends AsyncInterface {
         });
     }
 
+    /**
+     * Reloads the groups which have changed in storage since this method was last called,
+     * or all groups if the storage doesn't support revisions.
+     *
+     * <p>Only writers which stamp revisions are detected, so all groups are also reloaded
+     * when requested, and after every {@link #FULL_GROUP_RELOAD_INTERVAL} reloads by revision.
+     * This makes sure changes from other writers are picked up eventually.</p>
+     *
+     * @param fullReload if all groups should be reloaded regardless of their revision
+     * @return a future encapsulating whether any groups were reloaded or unloaded
+     */
+    public CompletableFuture<Boolean> loadChangedGroups(boolean fullReload) {
+        return future(() -> {
+            // fetch the revisions before loading, so changes made whilst loading are picked up next time
+            Map<String, Long> revisions = this.implementation.getGroupRevisions();
+            Map<String, Long> previous = this.groupRevisions;
+
+            boolean changed;
+            if (revisions == null || previous == null || fullReload || ++this.changedGroupLoads >= FULL_GROUP_RELOAD_INTERVAL) {
+                this.implementation.loadAllGroups();
+                this.changedGroupLoads = 0;
+                changed = true;
+            } else {
+                changed = false;
+                for (Map.Entry<String, Long> entry : revisions.entrySet()) {
+                    String name = entry.getKey();
+                    if (entry.getValue().equals(previous.get(name)) && this.plugin.getGroupManager().isLoaded(name)) {
+                        continue;
+                    }
+
+                    Optional<Group> group = this.implementation.loadGroup(name);
+                    if (group.isPresent()) {
+                        this.plugin.getEventDispatcher().dispatchGroupLoad(group.get());
+                    }
+                    changed = true;
+                }
+
+                int loaded = this.plugin.getGroupManager().getAll().size();
+                this.plugin.getGroupManager().retainAll(revisions.keySet());
+                changed |= this.plugin.getGroupManager().getAll().size() != loaded;
+            }
+
+            this.groupRevisions = revisions;
+            this.plugin.getEventDispatcher().dispatchGroupLoadAll();
+            return changed;
+        });
+    }
+
     public CompletableFuture<Void> saveGroup(Group group) {
         return future(() -> this.implementation.saveGroup(group));
     }
@@ -35,12 +35,16 @@ import me.lucko.luckperms.common.model.User;
 import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.StorageMetadata;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.util.Throwing;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -68,10 +72,60 @@ public interface StorageImplementation {
 
     Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception;
 
+    /**
+     * Gets if this implementation's {@link #loadUsers(Set)} loads users in bulk,
+     * rather than one at a time.
+     *
+     * <p>Callers which load many users may load them concurrently instead if
+     * this returns false.</p>
+     *
+     * @return if users can be loaded in bulk
+     */
+    default boolean supportsBulkUserLoads() {
+        return false;
+    }
+
     void saveUser(User user) throws Exception;
 
     Set<UUID> getUniqueUsers() throws Exception;
 
+    /**
+     * Iterates over the unique ids of all users with non-default data, without
+     * holding them all in memory at once.
+     *
+     * @param action the action to call for each uuid, returning false to stop iterating
+     * @throws Exception if an error occurs
+     */
+    default void iterateUniqueUsers(Throwing.Predicate<UUID> action) throws Exception {
+        for (UUID uniqueId : getUniqueUsers()) {
+            if (!action.test(uniqueId)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads all users with non-default data, in pages of at most {@code pageSize} users.
+     *
+     * @param pageSize the maximum number of users to load at once
+     * @param action the action to call for each page of users
+     * @throws Exception if an error occurs
+     */
+    default void iterateUsers(int pageSize, Throwing.Consumer<Map<UUID, User>> action) throws Exception {
+        Set<UUID> page = new HashSet<>();
+        iterateUniqueUsers(uniqueId -> {
+            page.add(uniqueId);
+            if (page.size() >= pageSize) {
+                action.accept(loadUsers(page));
+                page.clear();
+            }
+            return true;
+        });
+        if (!page.isEmpty()) {
+            action.accept(loadUsers(page));
+        }
+    }
+
     <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws Exception;
 
     Group createAndLoadGroup(String name) throws Exception;
@@ -80,6 +134,25 @@ public interface StorageImplementation {
 
     void loadAllGroups() throws Exception;
 
+    /**
+     * Gets the current revision of every group in storage.
+     *
+     * <p>A group's revision changes whenever it is saved, so comparing revisions with
+     * those seen previously shows which groups need to be reloaded. Revisions should
+     * only be compared for equality.</p>
+     *
+     * <p>Every writer must stamp a new revision when it changes a group, including
+     * bulk updates. Changes made by writers which don't (older LuckPerms versions,
+     * direct database edits, external tools) are only picked up by the periodic
+     * full reload.</p>
+     *
+     * @return the revisions keyed by group name, or null if revisions are not supported
+     * @throws Exception if an error occurs
+     */
+    default @Nullable Map<String, Long> getGroupRevisions() throws Exception {
+        return null;
+    }
+
     void saveGroup(Group group) throws Exception;
 
     void deleteGroup(Group group) throws Exception;
@@ -98,6 +171,53 @@ public interface StorageImplementation {
 
     PlayerSaveResult savePlayerData(UUID uniqueId, String username) throws Exception;
 
+    /**
+     * Saves the player data for a logging in player, and then loads the user.
+     *
+     * <p>Implementations should override this to perform both operations in as
+     * few round-trips to the backing storage as possible.</p>
+     *
+     * @param uniqueId the uuid of the player
+     * @param username the username of the player
+     * @return the result
+     * @throws Exception if an error occurs
+     */
+    default LoginResult loadUserForLogin(UUID uniqueId, String username) throws Exception {
+        PlayerSaveResult saveResult = savePlayerData(uniqueId, username);
+        User user = loadUser(uniqueId, username);
+        return new LoginResult(saveResult, user);
+    }
+
+    /**
+     * Performs {@link #loadUserForLogin(UUID, String)} for a batch of players.
+     *
+     * <p>Implementations should override this to load the users in bulk.</p>
+     *
+     * @param players the uuids and usernames of the players
+     * @return the results, keyed by uuid
+     * @throws Exception if an error occurs
+     */
+    default Map<UUID, LoginResult> loadUsersForLogin(Map<UUID, String> players) throws Exception {
+        Map<UUID, LoginResult> results = new HashMap<>();
+        for (Map.Entry<UUID, String> player : players.entrySet()) {
+            results.put(player.getKey(), loadUserForLogin(player.getKey(), player.getValue()));
+        }
+        return results;
+    }
+
+    /**
+     * Gets if this implementation overrides {@link #loadUsersForLogin(Map)} to
+     * load players in bulk.
+     *
+     * <p>Logins are only batched together if this returns true. Otherwise each
+     * login is loaded on its own, in parallel with the others.</p>
+     *
+     * @return if logins can be loaded in bulk
+     */
+    default boolean supportsBulkLoginLoads() {
+        return false;
+    }
+
     void deletePlayerData(UUID uniqueId) throws Exception;
 
     @Nullable UUID getPlayerUniqueId(String username) throws Exception;
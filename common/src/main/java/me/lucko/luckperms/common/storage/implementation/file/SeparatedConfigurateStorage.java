@@ -34,10 +34,12 @@ import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.implementation.file.loader.ConfigurateLoader;
 import me.lucko.luckperms.common.storage.implementation.file.watcher.FileWatcher;
+import me.lucko.luckperms.common.storage.misc.HolderRevisions;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
 import me.lucko.luckperms.common.util.CaffeineFactory;
 import me.lucko.luckperms.common.util.Iterators;
 import me.lucko.luckperms.common.util.MoreFiles;
+import me.lucko.luckperms.common.util.Throwing;
 import me.lucko.luckperms.common.util.Uuids;
 import net.luckperms.api.node.Node;
 import ninja.leaping.configurate.ConfigurationNode;
@@ -47,6 +49,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -262,6 +266,24 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
         }
     }
 
+    @Override
+    public void iterateUniqueUsers(Throwing.Predicate<UUID> action) throws Exception {
+        try (Stream<Path> stream = Files.list(this.users.directory)) {
+            Iterator<UUID> it = stream.filter(this.fileExtensionFilter)
+                    .map(p -> p.getFileName().toString())
+                    .map(s -> s.substring(0, s.length() - this.fileExtension.length()))
+                    .map(Uuids::fromString)
+                    .filter(Objects::nonNull)
+                    .iterator();
+
+            while (it.hasNext()) {
+                if (!action.test(it.next())) {
+                    return;
+                }
+            }
+        }
+    }
+
     @Override
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws IOException {
         List<NodeEntry<UUID, N>> held = new ArrayList<>();
@@ -291,6 +313,26 @@ public class SeparatedConfigurateStorage extends AbstractConfigurateStorage {
         return held;
     }
 
+    @Override
+    public Map<String, Long> getGroupRevisions() throws IOException {
+        // each group is in its own file, so the last modified time works as a revision.
+        // files modified very recently could be modified again without the time changing
+        // (depending on the precision of the file system), so always treat them as changed
+        long recent = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(2);
+        Map<String, Long> revisions = new HashMap<>();
+        try (Stream<Path> stream = Files.list(this.groups.directory)) {
+            for (Iterator<Path> it = stream.filter(this.fileExtensionFilter).iterator(); it.hasNext(); ) {
+                Path file = it.next();
+                String fileName = file.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - this.fileExtension.length());
+
+                long lastModified = Files.getLastModifiedTime(file).toMillis();
+                revisions.put(name, lastModified >= recent ? HolderRevisions.next() : lastModified);
+            }
+        }
+        return revisions;
+    }
+
     @Override
     public void loadAllGroups() throws IOException {
         List<String> groups;
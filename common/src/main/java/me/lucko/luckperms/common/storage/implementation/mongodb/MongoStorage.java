@@ -35,9 +35,13 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
 import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WriteModel;
 import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
 import me.lucko.luckperms.common.actionlog.filter.ActionFilterMongoBuilder;
@@ -56,10 +60,13 @@ import me.lucko.luckperms.common.node.matcher.ConstraintNodeMatcher;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.StorageMetadata;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.HolderRevisions;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
 import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
 import me.lucko.luckperms.common.storage.misc.StorageCredentials;
 import me.lucko.luckperms.common.util.Iterators;
+import me.lucko.luckperms.common.util.Throwing;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.context.Context;
 import net.luckperms.api.context.ContextSet;
@@ -87,6 +94,10 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class MongoStorage implements StorageImplementation {
+
+    /** The maximum number of users to fetch in one query when loading in bulk */
+    private static final int BULK_CHUNK_SIZE = 1000;
+
     private final LuckPermsPlugin plugin;
 
     private final StorageCredentials configuration;
@@ -220,6 +231,7 @@ public class MongoStorage implements StorageImplementation {
                     String holder = d.getString("_id");
                     Document results = processBulkUpdate(d, bulkUpdate, HolderType.GROUP);
                     if (results != null) {
+                        results.append("revision", HolderRevisions.next());
                         c.replaceOne(Filters.eq("_id", holder), results);
                     }
                 }
@@ -247,42 +259,136 @@ public class MongoStorage implements StorageImplementation {
     public User loadUser(UUID uniqueId, String username) {
         User user = this.plugin.getUserManager().getOrMake(uniqueId, username);
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
-        try (MongoCursor<Document> cursor = c.find(Filters.eq("_id", user.getUniqueId())).iterator()) {
-            if (cursor.hasNext()) {
-                // User exists, let's load.
-                Document d = cursor.next();
-                String name = d.getString("name");
 
-                user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
-                user.setUsername(name, true);
+        Document replacement = loadUser(user, c.find(Filters.eq("_id", user.getUniqueId())).first());
+        if (replacement != null) {
+            c.replaceOne(Filters.eq("_id", user.getUniqueId()), replacement);
+        }
+        return user;
+    }
+
+    /**
+     * Loads the user from its document, if there is one.
+     *
+     * @param user the user
+     * @param d the user's document, or null if it doesn't exist
+     * @return a replacement document to write back, if the stored data needs to be updated
+     */
+    private @Nullable Document loadUser(User user, @Nullable Document d) {
+        if (d != null) {
+            // User exists, let's load.
+            String name = d.getString("name");
+
+            user.getPrimaryGroup().setStoredValue(d.getString("primaryGroup"));
+            user.setUsername(name, true);
 
-                user.loadNodesFromStorage(nodesFromDoc(d));
+            user.loadNodesFromStorage(nodesFromDoc(d));
+            this.plugin.getUserManager().giveDefaultIfNeeded(user);
+
+
+            boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
+            if (updatedUsername | user.auditTemporaryNodes()) {
+                return userToDoc(user);
+            }
+        } else {
+            if (this.plugin.getUserManager().isNonDefaultUser(user)) {
+                user.loadNodesFromStorage(Collections.emptyList());
+                user.getPrimaryGroup().setStoredValue(null);
                 this.plugin.getUserManager().giveDefaultIfNeeded(user);
+            }
+        }
+        return null;
+    }
 
+    /**
+     * Loads a number of users in bulk, using one query and one bulk write per chunk.
+     *
+     * @param players the uuids of the users to load, mapped to their username (which may be null)
+     * @return the loaded users
+     */
+    private Map<UUID, User> loadUsers(Map<UUID, String> players) {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
+        Map<UUID, User> users = new HashMap<>();
 
-                boolean updatedUsername = user.getUsername().isPresent() && (name == null || !user.getUsername().get().equalsIgnoreCase(name));
-                if (updatedUsername | user.auditTemporaryNodes()) {
-                    c.replaceOne(Filters.eq("_id", user.getUniqueId()), userToDoc(user));
-                }
-            } else {
-                if (this.plugin.getUserManager().isNonDefaultUser(user)) {
-                    user.loadNodesFromStorage(Collections.emptyList());
-                    user.getPrimaryGroup().setStoredValue(null);
-                    this.plugin.getUserManager().giveDefaultIfNeeded(user);
+        for (List<UUID> chunk : Iterators.divideIterable(players.keySet(), BULK_CHUNK_SIZE)) {
+            Map<UUID, Document> documents = new HashMap<>();
+            try (MongoCursor<Document> cursor = c.find(Filters.in("_id", chunk)).iterator()) {
+                while (cursor.hasNext()) {
+                    Document d = cursor.next();
+                    documents.put(getDocumentId(d), d);
                 }
             }
+
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            for (UUID uniqueId : chunk) {
+                User user = this.plugin.getUserManager().getOrMake(uniqueId, players.get(uniqueId));
+                loadUser(user, documents.get(uniqueId), writes);
+                users.put(uniqueId, user);
+            }
+
+            if (!writes.isEmpty()) {
+                c.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            }
         }
-        return user;
+
+        return users;
+    }
+
+    private Map<UUID, User> loadUsers(MongoCollection<Document> c, Map<UUID, Document> documents) {
+        Map<UUID, User> users = new HashMap<>();
+        List<WriteModel<Document>> writes = new ArrayList<>();
+        for (Map.Entry<UUID, Document> entry : documents.entrySet()) {
+            User user = this.plugin.getUserManager().getOrMake(entry.getKey(), null);
+            loadUser(user, entry.getValue(), writes);
+            users.put(entry.getKey(), user);
+        }
+
+        if (!writes.isEmpty()) {
+            c.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        }
+        return users;
+    }
+
+    private void loadUser(User user, @Nullable Document d, List<WriteModel<Document>> writes) {
+        Document replacement = loadUser(user, d);
+        if (replacement != null) {
+            writes.add(new ReplaceOneModel<>(Filters.eq("_id", user.getUniqueId()), replacement, new ReplaceOptions().upsert(true)));
+        }
+    }
+
+    @Override
+    public boolean supportsBulkUserLoads() {
+        return true;
     }
 
     @Override
-    public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
-        // make this a bulk search?
-        Map<UUID, User> map = new HashMap<>();
+    public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) {
+        Map<UUID, String> players = new HashMap<>();
         for (UUID uniqueId : uniqueIds) {
-            map.put(uniqueId, loadUser(uniqueId, null));
+            players.put(uniqueId, null);
         }
-        return map;
+        return loadUsers(players);
+    }
+
+    @Override
+    public boolean supportsBulkLoginLoads() {
+        return true;
+    }
+
+    @Override
+    public Map<UUID, LoginResult> loadUsersForLogin(Map<UUID, String> players) {
+        Map<UUID, PlayerSaveResult> saveResults = new HashMap<>();
+        for (Map.Entry<UUID, String> player : players.entrySet()) {
+            saveResults.put(player.getKey(), savePlayerData(player.getKey(), player.getValue()));
+        }
+
+        Map<UUID, User> users = loadUsers(players);
+
+        Map<UUID, LoginResult> results = new HashMap<>();
+        for (UUID uniqueId : players.keySet()) {
+            results.put(uniqueId, new LoginResult(saveResults.get(uniqueId), users.get(uniqueId)));
+        }
+        return results;
     }
 
     @Override
@@ -312,6 +418,48 @@ public class MongoStorage implements StorageImplementation {
         return uuids;
     }
 
+    @Override
+    public void iterateUniqueUsers(Throwing.Predicate<UUID> action) throws Exception {
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
+        try (MongoCursor<Document> cursor = c.find().projection(Projections.include("_id")).batchSize(BULK_CHUNK_SIZE).iterator()) {
+            while (cursor.hasNext()) {
+                UUID uniqueId;
+                try {
+                    uniqueId = getDocumentId(cursor.next());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (!action.test(uniqueId)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void iterateUsers(int pageSize, Throwing.Consumer<Map<UUID, User>> action) throws Exception {
+        // load the users straight from the cursor, rather than collecting their ids and querying again
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "users");
+        Map<UUID, Document> page = new HashMap<>();
+        try (MongoCursor<Document> cursor = c.find().batchSize(pageSize).iterator()) {
+            while (cursor.hasNext()) {
+                Document d = cursor.next();
+                try {
+                    page.put(getDocumentId(d), d);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (page.size() >= pageSize) {
+                    action.accept(loadUsers(c, page));
+                    page.clear();
+                }
+            }
+        }
+        if (!page.isEmpty()) {
+            action.accept(loadUsers(c, page));
+        }
+    }
+
     @Override
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
         List<NodeEntry<UUID, N>> held = new ArrayList<>();
@@ -381,6 +529,20 @@ public class MongoStorage implements StorageImplementation {
         this.plugin.getGroupManager().retainAll(groups);
     }
 
+    @Override
+    public Map<String, Long> getGroupRevisions() {
+        Map<String, Long> revisions = new HashMap<>();
+        MongoCollection<Document> c = this.database.getCollection(this.prefix + "groups");
+        try (MongoCursor<Document> cursor = c.find().projection(Projections.include("revision")).iterator()) {
+            while (cursor.hasNext()) {
+                Document d = cursor.next();
+                Long revision = d.getLong("revision");
+                revisions.put(d.getString("_id"), revision == null ? HolderRevisions.UNKNOWN : revision);
+            }
+        }
+        return revisions;
+    }
+
     @Override
     public void saveGroup(Group group) {
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "groups");
@@ -482,8 +644,20 @@ public class MongoStorage implements StorageImplementation {
         username = username.toLowerCase(Locale.ROOT);
         MongoCollection<Document> c = this.database.getCollection(this.prefix + "uuid");
 
-        // find any existing mapping
-        String oldUsername = getPlayerName(uniqueId);
+        // find any existing mapping for the uuid, and any other uuids mapped to the username, in one query
+        String oldUsername = null;
+        Set<UUID> conflicting = new HashSet<>();
+        try (MongoCursor<Document> cursor = c.find(Filters.or(Filters.eq("_id", uniqueId), Filters.eq("name", username))).iterator()) {
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                UUID id = getDocumentId(doc);
+                if (uniqueId.equals(id)) {
+                    oldUsername = doc.getString("name");
+                } else {
+                    conflicting.add(id);
+                }
+            }
+        }
 
         // do the insert
         if (!username.equalsIgnoreCase(oldUsername)) {
@@ -492,14 +666,6 @@ public class MongoStorage implements StorageImplementation {
 
         PlayerSaveResultImpl result = PlayerSaveResultImpl.determineBaseResult(username, oldUsername);
 
-        Set<UUID> conflicting = new HashSet<>();
-        try (MongoCursor<Document> cursor = c.find(Filters.eq("name", username)).iterator()) {
-            while (cursor.hasNext()) {
-                conflicting.add(getDocumentId(cursor.next()));
-            }
-        }
-        conflicting.remove(uniqueId);
-
         if (!conflicting.isEmpty()) {
             // remove the mappings for conflicting uuids
             c.deleteMany(Filters.or(conflicting.stream().map(u -> Filters.eq("_id", u)).collect(Collectors.toList())));
@@ -580,7 +746,9 @@ public class MongoStorage implements StorageImplementation {
                 .map(MongoStorage::nodeToDoc)
                 .collect(Collectors.toList());
 
-        return new Document("_id", group.getName()).append("permissions", nodes);
+        return new Document("_id", group.getName())
+                .append("permissions", nodes)
+                .append("revision", HolderRevisions.next());
     }
 
     private static Document trackToDoc(Track track) {
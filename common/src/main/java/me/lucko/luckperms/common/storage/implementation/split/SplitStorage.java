@@ -38,7 +38,9 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.StorageMetadata;
 import me.lucko.luckperms.common.storage.StorageType;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
+import me.lucko.luckperms.common.util.Throwing;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.node.Node;
@@ -148,6 +150,11 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.USER).loadUsers(uniqueIds);
     }
 
+    @Override
+    public boolean supportsBulkUserLoads() {
+        return implFor(SplitStorageType.USER).supportsBulkUserLoads();
+    }
+
     @Override
     public void saveUser(User user) throws Exception {
         implFor(SplitStorageType.USER).saveUser(user);
@@ -158,6 +165,16 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.USER).getUniqueUsers();
     }
 
+    @Override
+    public void iterateUniqueUsers(Throwing.Predicate<UUID> action) throws Exception {
+        implFor(SplitStorageType.USER).iterateUniqueUsers(action);
+    }
+
+    @Override
+    public void iterateUsers(int pageSize, Throwing.Consumer<Map<UUID, User>> action) throws Exception {
+        implFor(SplitStorageType.USER).iterateUsers(pageSize, action);
+    }
+
     @Override
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws Exception {
         return implFor(SplitStorageType.USER).searchUserNodes(constraint);
@@ -178,6 +195,11 @@ public class SplitStorage implements StorageImplementation {
         implFor(SplitStorageType.GROUP).loadAllGroups();
     }
 
+    @Override
+    public Map<String, Long> getGroupRevisions() throws Exception {
+        return implFor(SplitStorageType.GROUP).getGroupRevisions();
+    }
+
     @Override
     public void saveGroup(Group group) throws Exception {
         implFor(SplitStorageType.GROUP).saveGroup(group);
@@ -223,6 +245,30 @@ public class SplitStorage implements StorageImplementation {
         return implFor(SplitStorageType.UUID).savePlayerData(uniqueId, username);
     }
 
+    @Override
+    public LoginResult loadUserForLogin(UUID uniqueId, String username) throws Exception {
+        StorageImplementation userImpl = implFor(SplitStorageType.USER);
+        if (userImpl == implFor(SplitStorageType.UUID)) {
+            return userImpl.loadUserForLogin(uniqueId, username);
+        }
+        return StorageImplementation.super.loadUserForLogin(uniqueId, username);
+    }
+
+    @Override
+    public Map<UUID, LoginResult> loadUsersForLogin(Map<UUID, String> players) throws Exception {
+        StorageImplementation userImpl = implFor(SplitStorageType.USER);
+        if (userImpl == implFor(SplitStorageType.UUID)) {
+            return userImpl.loadUsersForLogin(players);
+        }
+        return StorageImplementation.super.loadUsersForLogin(players);
+    }
+
+    @Override
+    public boolean supportsBulkLoginLoads() {
+        StorageImplementation userImpl = implFor(SplitStorageType.USER);
+        return userImpl == implFor(SplitStorageType.UUID) && userImpl.supportsBulkLoginLoads();
+    }
+
     @Override
     public void deletePlayerData(UUID uniqueId) throws Exception {
         implFor(SplitStorageType.UUID).deletePlayerData(uniqueId);
@@ -48,9 +48,12 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.storage.StorageMetadata;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
 import me.lucko.luckperms.common.storage.implementation.sql.connection.ConnectionFactory;
+import me.lucko.luckperms.common.storage.misc.HolderRevisions;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
 import me.lucko.luckperms.common.storage.misc.NodeEntry;
 import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
 import me.lucko.luckperms.common.util.Difference;
+import me.lucko.luckperms.common.util.Throwing;
 import me.lucko.luckperms.common.util.Uuids;
 import me.lucko.luckperms.common.util.gson.GsonProvider;
 import net.luckperms.api.actionlog.Action;
@@ -72,6 +75,7 @@ import java.sql.Statement;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -92,6 +96,7 @@ public class SqlStorage implements StorageImplementation {
     private static final String USER_PERMISSIONS_DELETE = "DELETE FROM '{prefix}user_permissions' WHERE uuid=?";
     private static final String USER_PERMISSIONS_INSERT = "INSERT INTO '{prefix}user_permissions' (uuid, permission, value, server, world, expiry, contexts) VALUES(?, ?, ?, ?, ?, ?, ?)";
     private static final String USER_PERMISSIONS_SELECT_DISTINCT = "SELECT DISTINCT uuid FROM '{prefix}user_permissions'";
+    private static final String USER_PERMISSIONS_SELECT_DISTINCT_AFTER = "SELECT DISTINCT uuid FROM '{prefix}user_permissions' WHERE uuid > ? ORDER BY uuid LIMIT ";
     private static final String USER_PERMISSIONS_SELECT_PERMISSION = "SELECT uuid, id, permission, value, server, world, expiry, contexts FROM '{prefix}user_permissions' WHERE ";
 
     private static final String PLAYER_SELECT_UUID_BY_USERNAME = "SELECT uuid FROM '{prefix}players' WHERE username=? LIMIT 1";
@@ -123,6 +128,15 @@ public class SqlStorage implements StorageImplementation {
     private static final String GROUP_INSERT_DEFAULT = "INSERT INTO '{prefix}groups' (name) VALUES(?) ON DUPLICATE KEY UPDATE name=name";
     private static final String GROUP_DELETE = "DELETE FROM '{prefix}groups' WHERE name=?";
 
+    private static final String GROUP_REVISIONS_SELECT_ALL = "SELECT g.name, r.revision FROM '{prefix}groups' g LEFT JOIN '{prefix}group_revisions' r ON g.name = r.name";
+    private static final Map<String, String> GROUP_REVISION_UPSERT = ImmutableMap.of(
+            "H2", "MERGE INTO '{prefix}group_revisions' (name, revision) VALUES(?, ?)",
+            "SQLite", "INSERT OR REPLACE INTO '{prefix}group_revisions' (name, revision) VALUES(?, ?)",
+            "PostgreSQL", "INSERT INTO '{prefix}group_revisions' (name, revision) VALUES(?, ?) ON CONFLICT (name) DO UPDATE SET revision=EXCLUDED.revision"
+    );
+    private static final String GROUP_REVISION_UPSERT_DEFAULT = "INSERT INTO '{prefix}group_revisions' (name, revision) VALUES(?, ?) ON DUPLICATE KEY UPDATE revision=VALUES(revision)";
+    private static final String GROUP_REVISION_DELETE = "DELETE FROM '{prefix}group_revisions' WHERE name=?";
+
     private static final String TRACK_INSERT = "INSERT INTO '{prefix}tracks' (name, 'groups') VALUES(?, ?)";
     private static final String TRACK_SELECT = "SELECT 'groups' FROM '{prefix}tracks' WHERE name=?";
     private static final String TRACK_SELECT_ALL = "SELECT * FROM '{prefix}tracks'";
@@ -133,6 +147,9 @@ public class SqlStorage implements StorageImplementation {
     private static final String ACTION_SELECT_ALL = "SELECT * FROM '{prefix}actions'";
     private static final String ACTION_COUNT = "SELECT COUNT(*) FROM '{prefix}actions'";
 
+    /** The number of uuids to fetch per query when iterating over users */
+    private static final int ITERATE_PAGE_SIZE = 1000;
+
     private final LuckPermsPlugin plugin;
     
     private final ConnectionFactory connectionFactory;
@@ -348,6 +365,9 @@ public class SqlStorage implements StorageImplementation {
                         ps.execute();
                     }
                 }
+
+                // we don't know exactly which groups were affected, so mark them all as changed
+                updateGroupRevisions(c, selectGroups(c));
             }
         }
     }
@@ -365,6 +385,11 @@ public class SqlStorage implements StorageImplementation {
         return createUser(uniqueId, username, playerData, nodes, true);
     }
 
+    @Override
+    public boolean supportsBulkUserLoads() {
+        return true;
+    }
+
     @Override
     public Map<UUID, User> loadUsers(Set<UUID> uniqueIds) throws Exception {
         Map<UUID, List<Node>> nodesMap;
@@ -463,6 +488,39 @@ public class SqlStorage implements StorageImplementation {
         return uuids;
     }
 
+    @Override
+    public void iterateUniqueUsers(Throwing.Predicate<UUID> action) throws Exception {
+        // page through the uuids in order, so only one page is held in memory (and the
+        // connection is released) whilst the action is running
+        String last = "";
+        while (true) {
+            List<String> page = new ArrayList<>(ITERATE_PAGE_SIZE);
+            try (Connection c = this.connectionFactory.getConnection()) {
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(USER_PERMISSIONS_SELECT_DISTINCT_AFTER) + ITERATE_PAGE_SIZE)) {
+                    ps.setString(1, last);
+                    ps.setFetchSize(ITERATE_PAGE_SIZE);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            page.add(rs.getString("uuid"));
+                        }
+                    }
+                }
+            }
+
+            for (String uuidString : page) {
+                UUID uuid = Uuids.fromString(uuidString);
+                if (uuid != null && !action.test(uuid)) {
+                    return;
+                }
+            }
+
+            if (page.size() < ITERATE_PAGE_SIZE) {
+                return;
+            }
+            last = page.get(page.size() - 1);
+        }
+    }
+
     @Override
     public <N extends Node> List<NodeEntry<UUID, N>> searchUserNodes(ConstraintNodeMatcher<N> constraint) throws SQLException {
         ConstraintSqlBuilder sqlBuilder = new ConstraintSqlBuilder();
@@ -501,6 +559,7 @@ public class SqlStorage implements StorageImplementation {
                 ps.setString(1, name);
                 ps.execute();
             }
+            updateGroupRevisions(c, Collections.singleton(name));
         }
 
         return loadGroup(name).get();
@@ -551,6 +610,7 @@ public class SqlStorage implements StorageImplementation {
         if (!changes.isEmpty()) {
             try (Connection c = this.connectionFactory.getConnection()) {
                 updateGroupPermissions(c, group.getName(), changes.getAdded(), changes.getRemoved());
+                updateGroupRevisions(c, Collections.singleton(group.getName()));
             }
         }
     }
@@ -564,11 +624,31 @@ public class SqlStorage implements StorageImplementation {
                 ps.setString(1, group.getName());
                 ps.execute();
             }
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(GROUP_REVISION_DELETE))) {
+                ps.setString(1, group.getName());
+                ps.execute();
+            }
         }
 
         this.plugin.getGroupManager().unload(group.getName());
     }
 
+    @Override
+    public Map<String, Long> getGroupRevisions() throws SQLException {
+        Map<String, Long> revisions = new HashMap<>();
+        try (Connection c = this.connectionFactory.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(GROUP_REVISIONS_SELECT_ALL))) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        // groups which haven't been saved since revisions were introduced have no revision (0)
+                        revisions.put(rs.getString("name").toLowerCase(Locale.ROOT), rs.getLong("revision"));
+                    }
+                }
+            }
+        }
+        return revisions;
+    }
+
     @Override
     public <N extends Node> List<NodeEntry<String, N>> searchGroupNodes(ConstraintNodeMatcher<N> constraint) throws SQLException {
         ConstraintSqlBuilder sqlBuilder = new ConstraintSqlBuilder();
@@ -674,26 +754,97 @@ public class SqlStorage implements StorageImplementation {
 
     @Override
     public PlayerSaveResult savePlayerData(UUID uniqueId, String username) throws SQLException {
-        username = username.toLowerCase(Locale.ROOT);
-        String oldUsername = null;
+        try (Connection c = this.connectionFactory.getConnection()) {
+            return savePlayerData(c, uniqueId, username, selectPlayerData(c, uniqueId));
+        }
+    }
 
+    @Override
+    public LoginResult loadUserForLogin(UUID uniqueId, String username) throws SQLException {
+        PlayerSaveResult saveResult;
+        SqlPlayerData playerData;
+        List<Node> nodes;
+
+        // save the player data and load the user using a single connection
         try (Connection c = this.connectionFactory.getConnection()) {
             SqlPlayerData existingPlayerData = selectPlayerData(c, uniqueId);
+            saveResult = savePlayerData(c, uniqueId, username, existingPlayerData);
+
+            // we already know what the player data looks like now, so no need to select it again
+            String savedUsername = username.toLowerCase(Locale.ROOT);
             if (existingPlayerData == null) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_INSERT))) {
-                    ps.setString(1, uniqueId.toString());
-                    ps.setString(2, username);
-                    ps.setString(3, GroupManager.DEFAULT_GROUP_NAME);
-                    ps.execute();
-                }
+                playerData = new SqlPlayerData(GroupManager.DEFAULT_GROUP_NAME, savedUsername);
             } else {
-                oldUsername = existingPlayerData.username;
-                if (!username.equals(oldUsername)) {
-                    try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_UPDATE_USERNAME_FOR_UUID))) {
-                        ps.setString(1, username);
-                        ps.setString(2, uniqueId.toString());
-                        ps.execute();
-                    }
+                playerData = new SqlPlayerData(existingPlayerData.primaryGroup, savedUsername);
+            }
+
+            nodes = selectUserPermissions(c, uniqueId);
+        }
+
+        User user = createUser(uniqueId, username, playerData, nodes, true);
+        return new LoginResult(saveResult, user);
+    }
+
+    @Override
+    public boolean supportsBulkLoginLoads() {
+        return true;
+    }
+
+    @Override
+    public Map<UUID, LoginResult> loadUsersForLogin(Map<UUID, String> players) throws SQLException {
+        if (players.size() == 1) {
+            Map.Entry<UUID, String> player = players.entrySet().iterator().next();
+            return Collections.singletonMap(player.getKey(), loadUserForLogin(player.getKey(), player.getValue()));
+        }
+
+        Map<UUID, PlayerSaveResult> saveResults = new HashMap<>();
+        Map<UUID, SqlPlayerData> playerDataMap = new HashMap<>();
+        Map<UUID, List<Node>> nodesMap;
+
+        // save the player data and load the users using a single connection, selecting in bulk
+        try (Connection c = this.connectionFactory.getConnection()) {
+            Map<UUID, SqlPlayerData> existingPlayerDataMap = selectPlayerData(c, players.keySet());
+
+            for (Map.Entry<UUID, String> player : players.entrySet()) {
+                UUID uniqueId = player.getKey();
+                SqlPlayerData existingPlayerData = existingPlayerDataMap.get(uniqueId);
+                saveResults.put(uniqueId, savePlayerData(c, uniqueId, player.getValue(), existingPlayerData));
+
+                String savedUsername = player.getValue().toLowerCase(Locale.ROOT);
+                String primaryGroup = existingPlayerData == null ? GroupManager.DEFAULT_GROUP_NAME : existingPlayerData.primaryGroup;
+                playerDataMap.put(uniqueId, new SqlPlayerData(primaryGroup, savedUsername));
+            }
+
+            nodesMap = selectUserPermissions(c, players.keySet());
+        }
+
+        Map<UUID, LoginResult> results = new HashMap<>();
+        for (Map.Entry<UUID, String> player : players.entrySet()) {
+            UUID uniqueId = player.getKey();
+            User user = createUser(uniqueId, player.getValue(), playerDataMap.get(uniqueId), nodesMap.get(uniqueId), true);
+            results.put(uniqueId, new LoginResult(saveResults.get(uniqueId), user));
+        }
+        return results;
+    }
+
+    private PlayerSaveResult savePlayerData(Connection c, UUID uniqueId, String username, SqlPlayerData existingPlayerData) throws SQLException {
+        username = username.toLowerCase(Locale.ROOT);
+        String oldUsername = null;
+
+        if (existingPlayerData == null) {
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_INSERT))) {
+                ps.setString(1, uniqueId.toString());
+                ps.setString(2, username);
+                ps.setString(3, GroupManager.DEFAULT_GROUP_NAME);
+                ps.execute();
+            }
+        } else {
+            oldUsername = existingPlayerData.username;
+            if (!username.equals(oldUsername)) {
+                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_UPDATE_USERNAME_FOR_UUID))) {
+                    ps.setString(1, username);
+                    ps.setString(2, uniqueId.toString());
+                    ps.execute();
                 }
             }
         }
@@ -701,26 +852,22 @@ public class SqlStorage implements StorageImplementation {
         PlayerSaveResultImpl result = PlayerSaveResultImpl.determineBaseResult(username, oldUsername);
 
         Set<UUID> conflicting = new HashSet<>();
-        try (Connection c = this.connectionFactory.getConnection()) {
-            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_SELECT_ALL_UUIDS_BY_USERNAME))) {
-                ps.setString(1, username);
-                ps.setString(2, uniqueId.toString());
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        conflicting.add(UUID.fromString(rs.getString("uuid")));
-                    }
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_SELECT_ALL_UUIDS_BY_USERNAME))) {
+            ps.setString(1, username);
+            ps.setString(2, uniqueId.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    conflicting.add(UUID.fromString(rs.getString("uuid")));
                 }
             }
         }
 
         if (!conflicting.isEmpty()) {
             // remove the mappings for conflicting uuids
-            try (Connection c = this.connectionFactory.getConnection()) {
-                try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_DELETE_ALL_UUIDS_BY_USERNAME))) {
-                    ps.setString(1, username);
-                    ps.setString(2, uniqueId.toString());
-                    ps.execute();
-                }
+            try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(PLAYER_DELETE_ALL_UUIDS_BY_USERNAME))) {
+                ps.setString(1, username);
+                ps.setString(2, uniqueId.toString());
+                ps.execute();
             }
             result = result.withOtherUuidsPresent(conflicting);
         }
@@ -1070,6 +1217,22 @@ public class SqlStorage implements StorageImplementation {
         }
     }
 
+    private void updateGroupRevisions(Connection c, Collection<String> groups) throws SQLException {
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        String query = GROUP_REVISION_UPSERT.getOrDefault(this.connectionFactory.getImplementationName(), GROUP_REVISION_UPSERT_DEFAULT);
+        try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(query))) {
+            for (String group : groups) {
+                ps.setString(1, group);
+                ps.setLong(2, HolderRevisions.next());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
     private void deleteGroupPermissions(Connection c, String group) throws SQLException {
         try (PreparedStatement ps = c.prepareStatement(this.statementProcessor.process(GROUP_PERMISSIONS_DELETE))) {
             ps.setString(1, group);
@@ -0,0 +1,59 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage.misc;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates revision stamps for permission holders in storage.
+ *
+ * <p>A holder's revision is replaced whenever it is saved, so that other
+ * instances can tell which holders have changed without loading them. Since
+ * several instances may write to the same storage, revisions are random rather
+ * than incrementing, and should only ever be compared for equality.</p>
+ */
+public final class HolderRevisions {
+    private HolderRevisions() {}
+
+    /**
+     * The revision of a holder which hasn't been saved since revisions were introduced.
+     */
+    public static final long UNKNOWN = 0;
+
+    /**
+     * Generates a new revision.
+     *
+     * @return the revision
+     */
+    public static long next() {
+        long revision;
+        do {
+            revision = ThreadLocalRandom.current().nextLong();
+        } while (revision == UNKNOWN);
+        return revision;
+    }
+
+}
@@ -30,7 +30,9 @@ import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import net.luckperms.api.event.cause.CreationCause;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * System wide sync task for LuckPerms.
@@ -40,8 +42,16 @@ import java.util.concurrent.TimeUnit;
 public class SyncTask implements Runnable {
     private final LuckPermsPlugin plugin;
 
+    /** If all groups should be reloaded, not just those with a changed revision */
+    private final boolean fullGroupReload;
+
     public SyncTask(LuckPermsPlugin plugin) {
+        this(plugin, true);
+    }
+
+    public SyncTask(LuckPermsPlugin plugin, boolean fullGroupReload) {
         this.plugin = plugin;
+        this.fullGroupReload = fullGroupReload;
     }
 
     /**
@@ -55,10 +65,11 @@ public class SyncTask implements Runnable {
             return;
         }
 
-        // Reload all groups
-        this.plugin.getStorage().loadAllGroups().join();
+        // Reload groups (or only those which have changed)
+        boolean groupsChanged = this.plugin.getStorage().loadChangedGroups(this.fullGroupReload).join();
         if (!this.plugin.getGroupManager().isLoaded(GroupManager.DEFAULT_GROUP_NAME)) {
             this.plugin.getStorage().createAndLoadGroup(GroupManager.DEFAULT_GROUP_NAME, CreationCause.INTERNAL).join();
+            groupsChanged = true;
         }
 
         // Reload all tracks
@@ -69,8 +80,11 @@ public class SyncTask implements Runnable {
 
         this.plugin.performPlatformDataSync();
 
-        // Just to be sure...
-        this.plugin.getGroupManager().invalidateAllGroupCaches();
+        // Just to be sure... (group caches depend on their parents, so only need
+        // invalidating if a group has actually changed)
+        if (groupsChanged) {
+            this.plugin.getGroupManager().invalidateAllGroupCaches();
+        }
         this.plugin.getUserManager().invalidateAllUserCaches();
 
         this.plugin.getEventDispatcher().dispatchPostSync();
@@ -79,14 +93,42 @@ public class SyncTask implements Runnable {
     public static class Buffer extends BufferedRequest<Void> {
         private final LuckPermsPlugin plugin;
 
+        /** If any request since the last sync needs all groups to be reloaded */
+        private final AtomicBoolean fullGroupReload = new AtomicBoolean(false);
+
         public Buffer(LuckPermsPlugin plugin) {
             super(500L, TimeUnit.MILLISECONDS, plugin.getBootstrap().getScheduler());
             this.plugin = plugin;
         }
 
+        @Override
+        public CompletableFuture<Void> request() {
+            this.fullGroupReload.set(true);
+            return super.request();
+        }
+
+        @Override
+        public Void requestDirectly() {
+            this.fullGroupReload.set(true);
+            return super.requestDirectly();
+        }
+
+        /**
+         * Makes a request to the buffer, which only reloads groups that have
+         * changed revision, unless another request needs a full reload.
+         *
+         * <p>Used for update pings from other servers, which stamp revisions
+         * when they save groups.</p>
+         *
+         * @return the future
+         */
+        public CompletableFuture<Void> requestChangedGroups() {
+            return super.request();
+        }
+
         @Override
         protected Void perform() {
-            new SyncTask(this.plugin).run();
+            new SyncTask(this.plugin, this.fullGroupReload.getAndSet(false)).run();
             return null;
         }
     }
@@ -28,20 +28,56 @@ package me.lucko.luckperms.common.treeview;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * A {@link PermissionRegistry} which batches offered permissions and inserts
+ * them into the tree asynchronously.
+ *
+ * <p>Offers are de-duplicated in a small buffer owned by the offering thread,
+ * so the (frequent) repeated offers of the same permission never reach a shared
+ * data structure. The buffers are drained in bulk by a worker task.</p>
+ *
+ * <p>The number of full buffers waiting to be drained is bounded, and any further
+ * batches are dropped until the next flush.</p>
+ */
 public class AsyncPermissionRegistry extends PermissionRegistry implements AutoCloseable {
 
-    /** A queue of permission strings to be added to the tree */
-    private final Queue<String> queue;
+    /** The maximum number of distinct permissions to buffer per thread before handing off */
+    private static final int BUFFER_SIZE = 128;
+    /** The maximum number of handed off batches to hold between flushes */
+    private static final int MAX_OVERFLOW_BATCHES = 64;
+
+    /** The buffers owned by each thread which has offered a permission */
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    /** The buffer for the current thread */
+    private final ThreadLocal<Buffer> localBuffer = ThreadLocal.withInitial(this::createBuffer);
+    /** Batches of permissions handed off by threads whose buffer filled up */
+    private final Queue<Collection<String>> overflow = new ConcurrentLinkedQueue<>();
+    /** The number of batches in the overflow queue */
+    private final AtomicInteger overflowSize = new AtomicInteger();
+    /** The number of permissions dropped because the overflow queue was full */
+    private final AtomicLong dropped = new AtomicLong();
     /** The tick task */
     private final SchedulerTask task;
 
     public AsyncPermissionRegistry(SchedulerAdapter scheduler) {
-        this.queue = new ConcurrentLinkedQueue<>();
-        this.task = scheduler.asyncRepeating(this::tick, 1, TimeUnit.SECONDS);
+        this.task = scheduler.asyncRepeating(this::flush, 1, TimeUnit.SECONDS);
+    }
+
+    private Buffer createBuffer() {
+        Buffer buffer = new Buffer(Thread.currentThread());
+        this.buffers.add(buffer);
+        return buffer;
     }
 
     @Override
@@ -49,13 +85,66 @@ public class AsyncPermissionRegistry extends PermissionRegistry implements AutoC
         if (permission == null) {
             throw new NullPointerException("permission");
         }
-        this.queue.offer(permission);
+
+        // most offered permissions are already known - don't bother buffering them
+        if (isKnown(permission)) {
+            return;
+        }
+
+        Collection<String> batch = this.localBuffer.get().add(permission);
+        if (batch != null) {
+            handOff(batch);
+        }
     }
 
-    private void tick() {
-        for (String e; (e = this.queue.poll()) != null; ) {
+    private void handOff(Collection<String> batch) {
+        // drop the batch if too many are already waiting for the next flush.
+        // the permissions aren't known yet, so they'll be offered again the next time they're checked
+        if (this.overflowSize.incrementAndGet() > MAX_OVERFLOW_BATCHES) {
+            this.overflowSize.decrementAndGet();
+            this.dropped.addAndGet(batch.size());
+            return;
+        }
+        this.overflow.add(batch);
+    }
+
+    /**
+     * Gets the number of offered permissions which have been dropped because
+     * too many were pending between flushes.
+     *
+     * @return the number of dropped permissions
+     */
+    long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Drains all buffered permissions and inserts them into the tree.
+     */
+    void flush() {
+        Set<String> permissions = new HashSet<>();
+
+        for (Collection<String> batch; (batch = this.overflow.poll()) != null; ) {
+            this.overflowSize.decrementAndGet();
+            permissions.addAll(batch);
+        }
+
+        for (Iterator<Buffer> it = this.buffers.iterator(); it.hasNext(); ) {
+            Buffer buffer = it.next();
+            buffer.drainTo(permissions);
+
+            // the owning thread has gone away, so the buffer can be forgotten
+            if (buffer.isOrphaned()) {
+                it.remove();
+            }
+        }
+
+        for (String permission : permissions) {
+            if (isKnown(permission)) {
+                continue;
+            }
             try {
-                doInsert(e);
+                doInsert(permission);
             } catch (Exception ex) {
                 // ignore
             }
@@ -67,4 +156,44 @@ public class AsyncPermissionRegistry extends PermissionRegistry implements AutoC
         this.task.cancel();
     }
 
+    /**
+     * A small set of pending permissions, written to by a single thread and
+     * drained by the worker.
+     */
+    private static final class Buffer {
+        private final WeakReference<Thread> owner;
+        private Set<String> pending = new HashSet<>();
+
+        Buffer(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        /**
+         * Adds a permission to the buffer.
+         *
+         * @param permission the permission
+         * @return the buffered batch if the buffer is now full and should be handed off, otherwise null
+         */
+        synchronized Collection<String> add(String permission) {
+            if (!this.pending.add(permission) || this.pending.size() < BUFFER_SIZE) {
+                return null;
+            }
+            Collection<String> batch = this.pending;
+            this.pending = new HashSet<>();
+            return batch;
+        }
+
+        synchronized void drainTo(Collection<String> collection) {
+            if (!this.pending.isEmpty()) {
+                collection.addAll(this.pending);
+                this.pending.clear();
+            }
+        }
+
+        boolean isOrphaned() {
+            Thread thread = this.owner.get();
+            return thread == null || !thread.isAlive();
+        }
+    }
+
 }
@@ -25,22 +25,32 @@
 
 package me.lucko.luckperms.common.treeview;
 
-import com.google.common.base.Splitter;
+import me.lucko.luckperms.common.cache.StringInterner;
 import me.lucko.luckperms.common.util.ImmutableCollectors;
 
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Stores a collection of all permissions known to the platform.
  */
 public class PermissionRegistry {
-    private static final Splitter DOT_SPLIT = Splitter.on('.').omitEmptyStrings();
+
+    /**
+     * The maximum number of permissions to remember as already offered. Beyond this,
+     * offers still work, they just have to walk the tree.
+     */
+    private static final int MAX_KNOWN = 50000;
 
     /** The root node in the tree */
     private final TreeNode rootNode = new TreeNode();
 
+    /** Permission strings which have already been processed, so don't need to be again */
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+
     public TreeNode getRootNode() {
         return this.rootNode;
     }
@@ -51,6 +61,17 @@ public class PermissionRegistry {
                 .collect(ImmutableCollectors.toList());
     }
 
+    /**
+     * Gets if the permission has already been processed by the registry, in which case
+     * offering it again would have no effect.
+     *
+     * @param permission the permission
+     * @return true if the permission is known
+     */
+    protected boolean isKnown(String permission) {
+        return this.known.contains(permission);
+    }
+
     /**
      * Offer a permission to the registry (to be potentially inserted asynchronously).
      *
@@ -70,6 +91,10 @@ public class PermissionRegistry {
             throw new NullPointerException("permission");
         }
 
+        if (isKnown(permission)) {
+            return;
+        }
+
         try {
             doInsert(permission);
         } catch (Exception ex) {
@@ -78,18 +103,29 @@ public class PermissionRegistry {
     }
 
     protected void doInsert(String permission) {
-        permission = permission.toLowerCase(Locale.ROOT);
-
-        // split the permission up into parts
-        Iterable<String> parts = DOT_SPLIT.split(permission);
+        String lowercasePermission = permission.toLowerCase(Locale.ROOT);
 
-        // insert the permission into the node structure
+        // insert the permission into the node structure, one part at a time
         TreeNode current = this.rootNode;
-        for (String part : parts) {
-            current = current.tryInsert(part);
-            if (current == null) {
-                return;
+        int start = 0;
+        int length = lowercasePermission.length();
+        while (start < length && current != null) {
+            int end = lowercasePermission.indexOf('.', start);
+            if (end == -1) {
+                end = length;
             }
+
+            // skip empty parts
+            if (end != start) {
+                current = current.tryInsert(lowercasePermission.substring(start, end));
+            }
+            start = end + 1;
+        }
+
+        // remember the permission, even if it wasn't (fully) inserted due to the tree
+        // size limits, since trying again would have the same result
+        if (this.known.size() < MAX_KNOWN) {
+            this.known.add(StringInterner.intern(permission));
         }
     }
 
@@ -26,11 +26,13 @@
 package me.lucko.luckperms.common.treeview;
 
 import com.google.common.collect.Maps;
+import me.lucko.luckperms.common.cache.StringInterner;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Represents one "branch" or "level" of the node tree
@@ -59,7 +61,9 @@ public class TreeNode {
         }
     }
 
-    private Map<String, TreeNode> children = null;
+    private static final AtomicReferenceFieldUpdater<TreeNode, Map> CHILDREN_UPDATER = AtomicReferenceFieldUpdater.newUpdater(TreeNode.class, Map.class, "children");
+
+    private volatile Map<String, TreeNode> children = null;
 
     private final int level;
 
@@ -72,20 +76,31 @@ public class TreeNode {
         this.level = parent.level + 1;
     }
 
-    // lazy init
-    private synchronized Map<String, TreeNode> getChildMap() {
-        if (this.children == null) {
-            this.children = new ConcurrentHashMap<>();
+    // lazy init, without locking - if two threads race, the loser's map is discarded
+    @SuppressWarnings("unchecked")
+    private Map<String, TreeNode> getChildMap() {
+        Map<String, TreeNode> children = this.children;
+        if (children == null) {
+            // most nodes only have a handful of children, so start small
+            CHILDREN_UPDATER.compareAndSet(this, null, new ConcurrentHashMap<>(2));
+            children = this.children;
         }
-        return this.children;
+        return children;
     }
 
     public @Nullable TreeNode tryInsert(String s) {
         Map<String, TreeNode> childMap = getChildMap();
+
+        // fast path: the child already exists
+        TreeNode child = childMap.get(s);
+        if (child != null) {
+            return child;
+        }
+
         if (!allowInsert(this)) {
             return null;
         }
-        return childMap.computeIfAbsent(s, x -> new TreeNode(this));
+        return childMap.computeIfAbsent(StringInterner.intern(s), x -> new TreeNode(this));
     }
 
     public Optional<Map<String, TreeNode>> getChildren() {
@@ -93,18 +108,20 @@ public class TreeNode {
     }
 
     public int getChildrenSize() {
-        if (this.children == null) {
+        Map<String, TreeNode> children = this.children;
+        if (children == null) {
             return 0;
         } else {
-            return this.children.size();
+            return children.size();
         }
     }
 
     public ImmutableTreeNode makeImmutableCopy() {
-        if (this.children == null) {
+        Map<String, TreeNode> children = this.children;
+        if (children == null) {
             return new ImmutableTreeNode(null);
         } else {
-            return new ImmutableTreeNode(this.children.entrySet().stream()
+            return new ImmutableTreeNode(children.entrySet().stream()
                     .map(e -> Maps.immutableEntry(
                             e.getKey(),
                             e.getValue().makeImmutableCopy()
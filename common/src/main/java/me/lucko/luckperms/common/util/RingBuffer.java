@@ -0,0 +1,140 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue backed by an array.
+ *
+ * <p>Each slot in the array has a sequence number, which producers and consumers use
+ * to claim the slot (after D. Vyukov's bounded MPMC queue). Unlike an unbounded queue,
+ * {@link #offer(Object)} fails instead of growing when the queue is full.</p>
+ *
+ * @param <E> the element type
+ */
+public final class RingBuffer<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param capacity the capacity, rounded up to the next power of two
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Adds an element to the queue, if there is space.
+     *
+     * @param element the element
+     * @return true if the element was added, false if the queue was full
+     */
+    public boolean offer(E element) {
+        long index = this.producerIndex.get();
+        while (true) {
+            int slot = (int) (index & this.mask);
+            long diff = this.sequences.get(slot) - index;
+
+            if (diff == 0) {
+                // the slot is free - try to claim it
+                if (this.producerIndex.compareAndSet(index, index + 1)) {
+                    this.elements.set(slot, element);
+                    this.sequences.set(slot, index + 1);
+                    return true;
+                }
+                index = this.producerIndex.get();
+            } else if (diff < 0) {
+                // the slot hasn't been consumed since the last time around - the queue is full
+                return false;
+            } else {
+                // another producer claimed the slot
+                index = this.producerIndex.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the head of the queue.
+     *
+     * @return the element, or null if the queue is empty
+     */
+    public E poll() {
+        long index = this.consumerIndex.get();
+        while (true) {
+            int slot = (int) (index & this.mask);
+            long diff = this.sequences.get(slot) - (index + 1);
+
+            if (diff == 0) {
+                // the slot has been filled - try to claim it
+                if (this.consumerIndex.compareAndSet(index, index + 1)) {
+                    E element = this.elements.get(slot);
+                    this.elements.set(slot, null);
+                    this.sequences.set(slot, index + this.mask + 1);
+                    return element;
+                }
+                index = this.consumerIndex.get();
+            } else if (diff < 0) {
+                // the slot hasn't been filled yet - the queue is empty
+                return null;
+            } else {
+                // another consumer claimed the slot
+                index = this.consumerIndex.get();
+            }
+        }
+    }
+
+    /**
+     * Gets the (approximate) number of elements in the queue.
+     *
+     * @return the size
+     */
+    public int size() {
+        long size = this.producerIndex.get() - this.consumerIndex.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+}
@@ -36,4 +36,9 @@ public interface Throwing {
     interface Consumer<T> {
         void accept(T t) throws Exception;
     }
+
+    @FunctionalInterface
+    interface Predicate<T> {
+        boolean test(T t) throws Exception;
+    }
 }
@@ -25,11 +25,11 @@
 
 package me.lucko.luckperms.common.verbose;
 
-import me.lucko.luckperms.common.verbose.event.VerboseEvent;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.AST;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.LexerException;
 import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.ParserException;
+import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
 
 /**
  * Represents a verbose filter expression.
@@ -68,7 +68,7 @@ public final class VerboseFilter {
      * @param data the check data
      * @return if the check data passes the filter
      */
-    public boolean evaluate(VerboseEvent data) {
+    public boolean evaluate(VariableEvaluator data) {
         try {
             return this.ast.eval(data);
         } catch (Exception e) {
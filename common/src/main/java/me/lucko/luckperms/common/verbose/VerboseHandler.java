@@ -30,6 +30,7 @@ import me.lucko.luckperms.common.cacheddata.result.TristateResult;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 import me.lucko.luckperms.common.sender.Sender;
+import me.lucko.luckperms.common.util.RingBuffer;
 import me.lucko.luckperms.common.verbose.event.CheckOrigin;
 import me.lucko.luckperms.common.verbose.event.MetaCheckEvent;
 import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
@@ -37,11 +38,10 @@ import me.lucko.luckperms.common.verbose.event.VerboseEvent;
 import net.luckperms.api.query.QueryOptions;
 
 import java.util.Map;
-import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Accepts {@link VerboseEvent}s and passes them onto registered {@link VerboseListener}s.
@@ -50,16 +50,23 @@ public class VerboseHandler implements AutoCloseable {
 
     /** A map of currently registered listeners */
     private final Map<UUID, VerboseListener> listeners;
+    /** The maximum number of events which can be waiting to be handled */
+    private static final int QUEUE_CAPACITY = 1 << 14;
+
     /** A queue of verbose events to be handled */
-    private final Queue<VerboseEvent> queue;
+    private final RingBuffer<VerboseEvent> queue;
+    /** The number of events which couldn't be added to the queue because it was full */
+    private final AtomicInteger dropped = new AtomicInteger(0);
     /** If there are any listeners registered */
     private boolean listening = false;
+    /** Decides which checks are recorded */
+    private volatile VerboseSampler sampler = VerboseSampler.ALL;
     /** The tick task */
     private final SchedulerTask task;
 
     public VerboseHandler(SchedulerAdapter scheduler) {
         this.listeners = new ConcurrentHashMap<>();
-        this.queue = new ConcurrentLinkedQueue<>();
+        this.queue = new RingBuffer<>(QUEUE_CAPACITY);
         this.task = scheduler.asyncRepeating(this::tick, 100, TimeUnit.MILLISECONDS);
     }
 
@@ -81,12 +88,18 @@ public class VerboseHandler implements AutoCloseable {
             return;
         }
 
+        // decide whether to record the check before allocating anything for it
+        VerboseSampler sampler = this.sampler;
+        if (!sampler.sample()) {
+            return;
+        }
+
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
+        StackTraceElement[] trace = sampler.captureTrace(1);
         String thread = Thread.currentThread().getName();
 
         // add the check data to a queue to be processed later.
-        this.queue.offer(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, permission, result));
+        enqueue(new PermissionCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, permission, result));
     }
 
     /**
@@ -107,12 +120,30 @@ public class VerboseHandler implements AutoCloseable {
             return;
         }
 
+        // decide whether to record the check before allocating anything for it
+        VerboseSampler sampler = this.sampler;
+        if (!sampler.sample()) {
+            return;
+        }
+
         long time = System.currentTimeMillis();
-        Throwable trace = new Throwable();
+        StackTraceElement[] trace = sampler.captureTrace(1);
         String thread = Thread.currentThread().getName();
 
         // add the check data to a queue to be processed later.
-        this.queue.offer(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, key, result));
+        enqueue(new MetaCheckEvent(origin, checkTarget, checkQueryOptions, time, trace, thread, key, result));
+    }
+
+    /**
+     * Sets the sampler used to decide which checks are recorded.
+     *
+     * <p>The sample rate applies to all listeners. Each listener registered after this
+     * call gets its own rate limiter from the sampler.</p>
+     *
+     * @param sampler the sampler
+     */
+    public void setSampler(VerboseSampler sampler) {
+        this.sampler = sampler;
     }
 
     /**
@@ -123,10 +154,25 @@ public class VerboseHandler implements AutoCloseable {
      * @param notify if the sender should be notified in chat on each check
      */
     public void registerListener(Sender sender, VerboseFilter filter, boolean notify) {
+        registerListener(sender, filter, notify, null);
+    }
+
+    /**
+     * Registers a new listener for the given player.
+     *
+     * @param sender the sender to notify, if notify is true
+     * @param filter the filter string
+     * @param notify if the sender should be notified in chat on each check
+     * @param recording the recording to stream checks to, or null to keep them in memory
+     */
+    public void registerListener(Sender sender, VerboseFilter filter, boolean notify, VerboseRecording recording) {
         // flush out anything before this listener was added
         flush();
 
-        this.listeners.put(sender.getUniqueId(), new VerboseListener(sender, filter, notify));
+        VerboseListener previous = this.listeners.put(sender.getUniqueId(), new VerboseListener(sender, filter, notify, recording, this.sampler.newRateLimiter()));
+        if (previous != null) {
+            previous.close();
+        }
         this.listening = true;
     }
 
@@ -145,7 +191,13 @@ public class VerboseHandler implements AutoCloseable {
 
     private void tick() {
         // remove listeners where the sender is no longer valid
-        this.listeners.values().removeIf(l -> !l.getNotifiedSender().isValid());
+        this.listeners.values().removeIf(l -> {
+            if (l.getNotifiedSender().isValid()) {
+                return false;
+            }
+            l.close();
+            return true;
+        });
 
         // handle all events in the queue
         flush();
@@ -163,11 +215,30 @@ public class VerboseHandler implements AutoCloseable {
                 listener.acceptEvent(e);
             }
         }
+
+        // listeners are told even if nothing was dropped, so they can report
+        // any drops they have been holding back
+        int dropped = this.dropped.getAndSet(0);
+        for (VerboseListener listener : this.listeners.values()) {
+            listener.acceptDroppedEvents(dropped);
+        }
+    }
+
+    private void enqueue(VerboseEvent event) {
+        // if the queue is full, drop the event instead of letting the queue grow
+        // without limit - the listeners are told how many were dropped when flushed
+        if (!this.queue.offer(event)) {
+            this.dropped.incrementAndGet();
+        }
     }
 
     @Override
     public void close() {
         this.task.cancel();
+
+        // write out anything pending, and close any recordings
+        flush();
+        this.listeners.values().forEach(VerboseListener::close);
     }
 
 }
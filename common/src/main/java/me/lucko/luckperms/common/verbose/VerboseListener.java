@@ -55,6 +55,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -78,6 +79,8 @@ public class VerboseListener {
     private static final int STACK_TRUNCATION_CHAT = 15;
     // how many lines should we include in each stack trace in the web output
     private static final int STACK_TRUNCATION_WEB = 40;
+    // the minimum time between notifications about dropped events
+    private static final long DROPPED_REPORT_INTERVAL_MILLIS = 5000;
 
     private static final StackTracePrinter FILTERING_PRINTER = StackTracePrinter.builder()
             .ignoreClassStartingWith("me.lucko.luckperms.")
@@ -114,13 +117,29 @@ public class VerboseListener {
     // the number of events we have processed and accepted, based on the filter rules for this
     // listener
     private final AtomicInteger matchedCounter = new AtomicInteger(0);
+    // the number of events which were dropped by the handler before reaching this listener
+    private final AtomicInteger droppedCounter = new AtomicInteger(0);
+    // the number of dropped events which the sender hasn't been notified about yet
+    private int unreportedDropped = 0;
+    // the time the sender was last notified about dropped events
+    private long lastDroppedReport = 0;
     // the events which passed the filter, up to a max size of #DATA_TRUNCATION
     private final List<VerboseEvent> results = new ArrayList<>(DATA_TRUNCATION / 10);
+    // the recording to stream events which passed the filter to, instead of keeping them in memory (nullable)
+    private VerboseRecording recording;
+    // limits the number of events which passed the filter that are recorded for each key
+    private final VerboseSampler.RateLimiter rateLimiter;
 
     public VerboseListener(Sender notifiedSender, VerboseFilter filter, boolean notify) {
+        this(notifiedSender, filter, notify, null, VerboseSampler.RateLimiter.UNLIMITED);
+    }
+
+    public VerboseListener(Sender notifiedSender, VerboseFilter filter, boolean notify, VerboseRecording recording, VerboseSampler.RateLimiter rateLimiter) {
         this.notifiedSender = notifiedSender;
         this.filter = filter;
         this.notify = notify;
+        this.recording = recording;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
@@ -137,11 +156,18 @@ public class VerboseListener {
             return;
         }
 
+        // only rate limit the events we're actually interested in
+        if (!this.rateLimiter.tryAcquire(getKey(event), event.getCheckTime())) {
+            return;
+        }
+
         // increment the matched filter
         this.matchedCounter.incrementAndGet();
 
-        // record the check, if we have space for it
-        if (this.results.size() < DATA_TRUNCATION) {
+        // record the check, either to disk or in memory if we have space for it
+        if (this.recording != null) {
+            writeToRecording(event);
+        } else if (this.results.size() < DATA_TRUNCATION) {
             this.results.add(event);
         }
 
@@ -151,6 +177,56 @@ public class VerboseListener {
         }
     }
 
+    private static String getKey(VerboseEvent event) {
+        if (event instanceof PermissionCheckEvent) {
+            return ((PermissionCheckEvent) event).getPermission();
+        } else if (event instanceof MetaCheckEvent) {
+            return ((MetaCheckEvent) event).getKey();
+        } else {
+            throw new IllegalArgumentException("Unknown event type: " + event);
+        }
+    }
+
+    private void writeToRecording(VerboseEvent event) {
+        try {
+            this.recording.write(event, event.toJson(shouldFilterStackTrace(event) ? WEB_FILTERED_PRINTER : WEB_UNFILTERED_PRINTER));
+        } catch (IOException e) {
+            e.printStackTrace();
+            this.notifiedSender.sendMessage(Message.VERBOSE_RECORDING_FAILED.build(this.recording.getName()));
+
+            // stop recording, but keep what we have so far
+            close();
+            this.recording = null;
+        }
+    }
+
+    /**
+     * Accepts a report that some events were dropped before they could be passed
+     * to this listener, because the handler's queue was full.
+     *
+     * <p>This is called each time the handler flushes, even if no events were dropped.
+     * Notifications are sent at most once every {@link #DROPPED_REPORT_INTERVAL_MILLIS},
+     * with the total dropped since the last one, so the sender isn't flooded with
+     * messages whilst the server is overloaded.</p>
+     *
+     * @param count the number of events which were dropped
+     */
+    public void acceptDroppedEvents(int count) {
+        this.droppedCounter.addAndGet(count);
+
+        if (!this.notify) {
+            return;
+        }
+
+        this.unreportedDropped += count;
+        long now = System.currentTimeMillis();
+        if (this.unreportedDropped != 0 && now - this.lastDroppedReport >= DROPPED_REPORT_INTERVAL_MILLIS) {
+            this.notifiedSender.sendMessage(Message.VERBOSE_EVENTS_DROPPED.build(this.unreportedDropped));
+            this.unreportedDropped = 0;
+            this.lastDroppedReport = now;
+        }
+    }
+
     private void sendNotification(VerboseEvent event) {
         // form a text component from the check trace
         Component component;
@@ -243,33 +319,65 @@ public class VerboseListener {
      * @return the url
      */
     public String uploadPasteData(BytebinClient bytebin) throws IOException, UnsuccessfulRequestException {
-        // retrieve variables
-        String startDate = DATE_FORMAT.format(this.startTime);
-        String endDate = DATE_FORMAT.format(Instant.now());
-        String duration = DurationFormatter.CONCISE.formatString(Duration.between(this.startTime, Instant.now()));
-        boolean truncated = this.matchedCounter.get() > this.results.size();
-
-        JObject metadata = new JObject()
-                .add("startTime", startDate)
-                .add("endTime", endDate)
-                .add("duration", duration)
+        JArray data = new JArray();
+        boolean truncated;
+
+        if (this.recording != null) {
+            close();
+            RecordingExport export = RecordingExport.read(this.recording.getDirectory(), VerboseFilter.acceptAll());
+            data = export.data;
+            truncated = this.matchedCounter.get() > data.toJson().size();
+        } else {
+            for (VerboseEvent event : this.results) {
+                data.add(event.toJson(shouldFilterStackTrace(event) ? WEB_FILTERED_PRINTER : WEB_UNFILTERED_PRINTER));
+            }
+            truncated = this.matchedCounter.get() > this.results.size();
+            this.results.clear();
+        }
+
+        JObject metadata = createMetadata(this.startTime, Instant.now(), this.matchedCounter.get(), this.counter.get(), this.droppedCounter.get(), this.notifiedSender, this.filter, truncated);
+        return upload(bytebin, metadata, data);
+    }
+
+    /**
+     * Uploads the events in a recording which match the given filter to a paste and returns the url
+     *
+     * @param bytebin the bytebin instance to upload with
+     * @param directory the recording directory
+     * @param filter the filter
+     * @param uploader the sender uploading the recording
+     * @return the url
+     */
+    public static String uploadRecording(BytebinClient bytebin, Path directory, VerboseFilter filter, Sender uploader) throws IOException, UnsuccessfulRequestException {
+        RecordingExport export = RecordingExport.read(directory, filter);
+
+        Instant startTime = export.startTime == Long.MAX_VALUE ? Instant.now() : Instant.ofEpochMilli(export.startTime);
+        Instant endTime = export.endTime == Long.MIN_VALUE ? startTime : Instant.ofEpochMilli(export.endTime);
+
+        JObject metadata = createMetadata(startTime, endTime, export.matched, export.total, 0, uploader, filter, export.matched > DATA_TRUNCATION)
+                .add("recording", directory.getFileName().toString());
+        return upload(bytebin, metadata, export.data);
+    }
+
+    private static JObject createMetadata(Instant startTime, Instant endTime, int matched, int total, int dropped, Sender uploader, VerboseFilter filter, boolean truncated) {
+        return new JObject()
+                .add("startTime", DATE_FORMAT.format(startTime))
+                .add("endTime", DATE_FORMAT.format(endTime))
+                .add("duration", DurationFormatter.CONCISE.formatString(Duration.between(startTime, endTime)))
                 .add("count", new JObject()
-                        .add("matched", this.matchedCounter.get())
-                        .add("total", this.counter.get())
+                        .add("matched", matched)
+                        .add("total", total)
+                        .add("dropped", dropped)
                 )
                 .add("uploader", new JObject()
-                        .add("name", this.notifiedSender.getNameWithLocation())
-                        .add("uuid", this.notifiedSender.getUniqueId().toString())
+                        .add("name", uploader.getNameWithLocation())
+                        .add("uuid", uploader.getUniqueId().toString())
                 )
-                .add("filter", this.filter.toString())
+                .add("filter", filter.toString())
                 .add("truncated", truncated);
+    }
 
-        JArray data = new JArray();
-        for (VerboseEvent event : this.results) {
-            data.add(event.toJson(shouldFilterStackTrace(event) ? WEB_FILTERED_PRINTER : WEB_UNFILTERED_PRINTER));
-        }
-        this.results.clear();
-
+    private static String upload(BytebinClient bytebin, JObject metadata, JArray data) throws IOException, UnsuccessfulRequestException {
         JsonObject payload = new JObject()
                 .add("metadata", metadata)
                 .add("data", data)
@@ -285,6 +393,52 @@ public class VerboseListener {
         return bytebin.postContent(bytesOut.toByteArray(), AbstractHttpClient.JSON_TYPE).key();
     }
 
+    /**
+     * The events read from a recording which matched a filter, up to a max size of #DATA_TRUNCATION
+     */
+    private static final class RecordingExport {
+        private final JArray data = new JArray();
+        private int matched = 0;
+        private int total = 0;
+        private long startTime = Long.MAX_VALUE;
+        private long endTime = Long.MIN_VALUE;
+
+        static RecordingExport read(Path directory, VerboseFilter filter) throws IOException {
+            RecordingExport export = new RecordingExport();
+            VerboseRecording.read(directory, entry -> {
+                export.total++;
+                if (!filter.evaluate(entry)) {
+                    return;
+                }
+
+                export.matched++;
+                export.startTime = Math.min(export.startTime, entry.getCheckTime());
+                export.endTime = Math.max(export.endTime, entry.getCheckTime());
+                if (export.matched <= DATA_TRUNCATION) {
+                    export.data.add(entry.toJson());
+                }
+            });
+            return export;
+        }
+    }
+
+    /**
+     * Closes the recording this listener is streaming events to, if any.
+     */
+    public void close() {
+        if (this.recording != null) {
+            try {
+                this.recording.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public VerboseRecording getRecording() {
+        return this.recording;
+    }
+
     public Sender getNotifiedSender() {
         return this.notifiedSender;
     }
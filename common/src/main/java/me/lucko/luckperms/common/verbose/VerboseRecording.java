@@ -0,0 +1,339 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.verbose;
+
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.util.gson.GsonProvider;
+import me.lucko.luckperms.common.verbose.event.MetaCheckEvent;
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEventType;
+import me.lucko.luckperms.common.verbose.expression.BooleanExpressionCompiler.VariableEvaluator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A verbose recording, streamed to disk as it is captured.
+ *
+ * <p>Each recording is a directory containing a sequence of gzip compressed segment
+ * files. Segments are rotated once they reach {@link #SEGMENT_SIZE} bytes, and only the
+ * most recent {@link #MAX_SEGMENTS} segments are kept, so a long recording uses a
+ * bounded amount of disk space (and a constant amount of memory).</p>
+ *
+ * <p>Each event is written as a length-prefixed record, containing the properties needed
+ * to filter it followed by its JSON form (as sent to the verbose viewer). A record which
+ * was only partially written (e.g. if the server crashed) is ignored when reading, as is
+ * anything following a corrupt record in the same segment.</p>
+ */
+public final class VerboseRecording implements AutoCloseable {
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")
+            .withZone(ZoneId.systemDefault());
+
+    private static final String SEGMENT_EXTENSION = ".lpverbose.gz";
+
+    // the (uncompressed) size of each segment before it is rotated
+    private static final long SEGMENT_SIZE = 32 * 1024 * 1024;
+    // the maximum number of segments to keep for each recording
+    private static final int MAX_SEGMENTS = 32;
+    // the maximum size of a single record, anything larger is assumed to be corrupt
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Creates a new recording in the given directory.
+     *
+     * @param recordingsDirectory the directory to store recordings in
+     * @return the recording
+     * @throws IOException if an error occurs creating the recording
+     */
+    public static VerboseRecording create(Path recordingsDirectory) throws IOException {
+        String name = NAME_FORMAT.format(Instant.now());
+        Path directory = recordingsDirectory.resolve(name);
+        for (int i = 1; Files.exists(directory); i++) {
+            directory = recordingsDirectory.resolve(name + "-" + i);
+        }
+
+        Files.createDirectories(directory);
+        return new VerboseRecording(directory);
+    }
+
+    /**
+     * Lists the names of the recordings in the given directory.
+     *
+     * @param recordingsDirectory the directory recordings are stored in
+     * @return the recording names, most recent first
+     * @throws IOException if an error occurs listing the directory
+     */
+    public static List<String> list(Path recordingsDirectory) throws IOException {
+        if (!Files.isDirectory(recordingsDirectory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> stream = Files.list(recordingsDirectory)) {
+            return stream.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads the events in a recording, in the order they were recorded.
+     *
+     * @param directory the recording directory
+     * @param consumer the consumer to pass the events to
+     * @throws IOException if an error occurs reading the recording
+     */
+    public static void read(Path directory, Consumer<? super Entry> consumer) throws IOException {
+        for (Path segment : listSegments(directory)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(segment))))) {
+                while (true) {
+                    Entry entry;
+                    try {
+                        entry = readEntry(in);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    consumer.accept(entry);
+                }
+            } catch (EOFException | ZipException | CorruptRecordException e) {
+                // the segment was never closed, or is corrupt - skip the rest of it
+            }
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.filter(path -> path.getFileName().toString().endsWith(SEGMENT_EXTENSION))
+                    .sorted(Comparator.comparingLong(VerboseRecording::segmentIndex))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long segmentIndex(Path segment) {
+        String fileName = segment.getFileName().toString();
+        try {
+            return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private final Path directory;
+    private final Deque<Path> segments = new ArrayDeque<>();
+    private long segmentIndex = 0;
+    private DataOutputStream out = null;
+    private long segmentBytes = 0;
+    private long count = 0;
+
+    private VerboseRecording(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    public String getName() {
+        return this.directory.getFileName().toString();
+    }
+
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Writes an event to the recording.
+     *
+     * @param event the event
+     * @param json the JSON form of the event
+     * @throws IOException if an error occurs writing the event
+     */
+    public synchronized void write(VerboseEvent event, JsonObject json) throws IOException {
+        byte[] record = encode(event, json);
+
+        if (this.out == null || this.segmentBytes >= SEGMENT_SIZE) {
+            rotate();
+        }
+
+        this.out.writeInt(record.length);
+        this.out.write(record);
+        this.segmentBytes += Integer.BYTES + record.length;
+        this.count++;
+    }
+
+    private void rotate() throws IOException {
+        if (this.out != null) {
+            this.out.close();
+            this.out = null;
+        }
+
+        while (this.segments.size() >= MAX_SEGMENTS) {
+            Files.deleteIfExists(this.segments.removeFirst());
+        }
+
+        Path segment = this.directory.resolve((this.segmentIndex++) + SEGMENT_EXTENSION);
+        this.segments.addLast(segment);
+        this.out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(segment))));
+        this.segmentBytes = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.out != null) {
+            this.out.close();
+            this.out = null;
+        }
+    }
+
+    private static byte[] encode(VerboseEvent event, JsonObject json) throws IOException {
+        String key;
+        String result;
+        if (event instanceof PermissionCheckEvent) {
+            key = ((PermissionCheckEvent) event).getPermission();
+            result = ((PermissionCheckEvent) event).getResult().result().name();
+        } else if (event instanceof MetaCheckEvent) {
+            key = ((MetaCheckEvent) event).getKey();
+            result = String.valueOf(((MetaCheckEvent) event).getResult().result());
+        } else {
+            throw new IllegalArgumentException("Unknown event type: " + event);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(event.getType().ordinal());
+        out.writeLong(event.getCheckTime());
+        writeString(out, event.getCheckTarget().describe());
+        writeString(out, key);
+        writeString(out, result);
+        writeString(out, GsonProvider.normal().toJson(json));
+        return bytes.toByteArray();
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        byte[] record = new byte[checkLength(in.readInt(), MAX_RECORD_SIZE)];
+        in.readFully(record);
+
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(record));
+        int typeOrdinal = data.readUnsignedByte();
+        if (typeOrdinal >= VerboseEventType.values().length) {
+            throw new CorruptRecordException("Unknown event type: " + typeOrdinal);
+        }
+        VerboseEventType type = VerboseEventType.values()[typeOrdinal];
+        long time = data.readLong();
+        String checkTarget = readString(data);
+        String key = readString(data);
+        String result = readString(data);
+        String json = readString(data);
+        return new Entry(type, time, checkTarget, key, result, json);
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        // strings are only read from an in-memory record, so available() is the remaining record size
+        byte[] bytes = new byte[checkLength(in.readInt(), in.available())];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checkLength(int length, int max) throws CorruptRecordException {
+        if (length < 0 || length > max) {
+            throw new CorruptRecordException("Invalid length: " + length + " (max " + max + ")");
+        }
+        return length;
+    }
+
+    /**
+     * Thrown when a record read from a segment is corrupt.
+     */
+    private static final class CorruptRecordException extends IOException {
+        CorruptRecordException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * An event read from a recording.
+     */
+    public static final class Entry implements VariableEvaluator {
+        private final VerboseEventType type;
+        private final long checkTime;
+        private final String checkTarget;
+        private final String key;
+        private final String result;
+        private final String json;
+
+        Entry(VerboseEventType type, long checkTime, String checkTarget, String key, String result, String json) {
+            this.type = type;
+            this.checkTime = checkTime;
+            this.checkTarget = checkTarget;
+            this.key = key;
+            this.result = result;
+            this.json = json;
+        }
+
+        public long getCheckTime() {
+            return this.checkTime;
+        }
+
+        public JsonObject toJson() {
+            return GsonProvider.parser().parse(this.json).getAsJsonObject();
+        }
+
+        @Override
+        public boolean eval(String variable) {
+            return VerboseEvent.eval(variable, this.type, this.checkTarget, this.key, this.result);
+        }
+    }
+
+}
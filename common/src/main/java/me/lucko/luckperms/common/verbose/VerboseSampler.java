@@ -0,0 +1,156 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.verbose;
+
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which checks are recorded by the {@link VerboseHandler}, and captures
+ * their stack traces.
+ *
+ * <p>Sampling decisions are made before anything is allocated for the check, so the
+ * checks which aren't recorded are (almost) free.</p>
+ *
+ * <p>The rate limit is applied separately by each listener, using its own
+ * {@link RateLimiter}, after the listener's filter has matched the check. This way
+ * checks which a listener isn't interested in don't use up its budget.</p>
+ */
+public final class VerboseSampler {
+
+    /** A sampler which records every check, with a full stack trace */
+    public static final VerboseSampler ALL = new VerboseSampler(1, 0, Integer.MAX_VALUE);
+
+    public static VerboseSampler fromConfig(LuckPermsConfiguration configuration) {
+        return new VerboseSampler(
+                configuration.get(ConfigKeys.VERBOSE_SAMPLE_RATE),
+                configuration.get(ConfigKeys.VERBOSE_RATE_LIMIT),
+                configuration.get(ConfigKeys.VERBOSE_TRACE_DEPTH)
+        );
+    }
+
+    private static final StackTraceElement[] EMPTY_TRACE = new StackTraceElement[0];
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    /** Record 1 in every n checks */
+    private final int sampleRate;
+    /** The maximum number of checks to record per key, per second */
+    private final int rateLimit;
+    /** The maximum number of stack frames to capture */
+    private final int traceDepth;
+
+    public VerboseSampler(int sampleRate, int rateLimit, int traceDepth) {
+        this.sampleRate = sampleRate;
+        this.rateLimit = rateLimit;
+        this.traceDepth = traceDepth;
+    }
+
+    /**
+     * Gets if a check should be recorded, according to the sample rate.
+     *
+     * @return true if the check should be recorded
+     */
+    public boolean sample() {
+        return this.sampleRate <= 1 || ThreadLocalRandom.current().nextInt(this.sampleRate) == 0;
+    }
+
+    /**
+     * Creates a new rate limiter for a listener.
+     *
+     * @return the rate limiter
+     */
+    public RateLimiter newRateLimiter() {
+        return this.rateLimit > 0 ? new RateLimiter(this.rateLimit) : RateLimiter.UNLIMITED;
+    }
+
+    /**
+     * Captures the stack trace of the caller, up to the configured depth.
+     *
+     * @param skipFrames the number of frames to skip, in addition to this method
+     * @return the stack trace
+     */
+    public StackTraceElement[] captureTrace(int skipFrames) {
+        if (this.traceDepth <= 0) {
+            return EMPTY_TRACE;
+        }
+        return STACK_WALKER.walk(frames -> frames
+                .skip(skipFrames + 1)
+                .limit(this.traceDepth)
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .toArray(StackTraceElement[]::new)
+        );
+    }
+
+    /**
+     * Limits the number of checks recorded for each key, per second.
+     *
+     * <p>Counts are only held for the current second, so the number of keys
+     * tracked is bounded by the number of distinct keys checked in one second.</p>
+     */
+    public static final class RateLimiter {
+        /** A rate limiter which accepts every check */
+        public static final RateLimiter UNLIMITED = new RateLimiter(0);
+
+        private final int limit;
+        private final Map<String, int[]> counts = new HashMap<>();
+        private long second = Long.MIN_VALUE;
+
+        RateLimiter(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Gets if a check for the given key, made at the given time, should be recorded.
+         *
+         * @param key the permission or meta key
+         * @param time the time of the check, in milliseconds
+         * @return true if the check should be recorded
+         */
+        public synchronized boolean tryAcquire(String key, long time) {
+            if (this.limit <= 0) {
+                return true;
+            }
+
+            long second = time / 1000;
+            if (second != this.second) {
+                this.second = second;
+                this.counts.clear();
+            }
+
+            int[] count = this.counts.computeIfAbsent(key, k -> new int[1]);
+            if (count[0] >= this.limit) {
+                return false;
+            }
+            count[0]++;
+            return true;
+        }
+    }
+
+}
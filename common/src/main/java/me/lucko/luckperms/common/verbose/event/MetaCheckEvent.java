@@ -32,8 +32,6 @@ import me.lucko.luckperms.common.util.gson.JObject;
 import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
 import net.luckperms.api.query.QueryOptions;
 
-import java.util.Locale;
-
 public class MetaCheckEvent extends VerboseEvent {
 
     /**
@@ -46,7 +44,7 @@ public class MetaCheckEvent extends VerboseEvent {
      */
     private final StringResult<?> result;
 
-    public MetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String key, StringResult<?> result) {
+    public MetaCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, StackTraceElement[] checkTrace, String checkThread, String key, StringResult<?> result) {
         super(origin, checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
         this.key = key;
         this.result = result;
@@ -101,10 +99,7 @@ public class MetaCheckEvent extends VerboseEvent {
 
     @Override
     public boolean eval(String variable) {
-        return variable.equals("meta") ||
-                getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getKey().toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
-                String.valueOf(getResult().result()).equalsIgnoreCase(variable);
+        return eval(variable, VerboseEventType.META, getCheckTarget().describe(), getKey(), String.valueOf(getResult().result()));
     }
 
 }
@@ -46,7 +46,7 @@ public class PermissionCheckEvent extends VerboseEvent {
      */
     private final TristateResult result;
 
-    public PermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread, String permission, TristateResult result) {
+    public PermissionCheckEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, StackTraceElement[] checkTrace, String checkThread, String permission, TristateResult result) {
         super(origin, checkTarget, checkQueryOptions, checkTime, checkTrace, checkThread);
         this.permission = permission;
         this.result = result;
@@ -104,10 +104,7 @@ public class PermissionCheckEvent extends VerboseEvent {
 
     @Override
     public boolean eval(String variable) {
-        return variable.equals("permission") ||
-                getCheckTarget().describe().equalsIgnoreCase(variable) ||
-                getPermission().toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
-                getResult().result().name().equalsIgnoreCase(variable);
+        return eval(variable, VerboseEventType.PERMISSION, getCheckTarget().describe(), getPermission(), getResult().result().name());
     }
 
 }
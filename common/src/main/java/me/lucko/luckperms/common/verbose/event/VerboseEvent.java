@@ -66,16 +66,16 @@ public abstract class VerboseEvent implements VariableEvaluator {
     private final long checkTime;
 
     /**
-     * The throwable created when the check took place
+     * The stack trace captured when the check took place
      */
-    private final Throwable checkTrace;
+    private final StackTraceElement[] checkTrace;
 
     /**
      * The name of the thread where the check took place
      */
     private final String checkThread;
 
-    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, Throwable checkTrace, String checkThread) {
+    protected VerboseEvent(CheckOrigin origin, VerboseCheckTarget checkTarget, QueryOptions checkQueryOptions, long checkTime, StackTraceElement[] checkTrace, String checkThread) {
         this.origin = origin;
         this.checkTarget = checkTarget;
         this.checkQueryOptions = checkQueryOptions;
@@ -103,7 +103,7 @@ public abstract class VerboseEvent implements VariableEvaluator {
     }
 
     public StackTraceElement[] getCheckTrace() {
-        return this.checkTrace.getStackTrace();
+        return this.checkTrace;
     }
 
     public String getCheckThread() {
@@ -112,6 +112,23 @@ public abstract class VerboseEvent implements VariableEvaluator {
 
     public abstract VerboseEventType getType();
 
+    /**
+     * Evaluates a filter variable against the properties of an event.
+     *
+     * @param variable the variable
+     * @param type the type of the event
+     * @param checkTarget the description of the check target
+     * @param key the permission or meta key which was checked
+     * @param result the result of the check
+     * @return the result of the evaluation
+     */
+    public static boolean eval(String variable, VerboseEventType type, String checkTarget, String key, String result) {
+        return variable.equals(type.toString()) ||
+                checkTarget.equalsIgnoreCase(variable) ||
+                key.toLowerCase(Locale.ROOT).startsWith(variable.toLowerCase(Locale.ROOT)) ||
+                result.equalsIgnoreCase(variable);
+    }
+
     protected abstract void serializeTo(JObject object);
 
     public JsonObject toJson(StackTracePrinter tracePrinter) {
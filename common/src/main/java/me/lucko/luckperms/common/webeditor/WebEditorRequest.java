@@ -56,6 +56,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,7 +65,6 @@ import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 
 /**
@@ -248,21 +248,32 @@ public class WebEditorRequest {
     }
 
     private static void findMatchingOfflineUsers(Map<UUID, User> users, ConstraintNodeMatcher<Node> matcher, LuckPermsPlugin plugin) {
-        Stream<UUID> stream;
+        int limit = MAX_USERS - users.size();
+        if (limit <= 0) {
+            return;
+        }
+
+        Set<UUID> uuids;
         if (matcher == null) {
-            stream = plugin.getStorage().getUniqueUsers().join().stream();
+            // stream the unique users, stopping once we have enough
+            Set<UUID> found = new HashSet<>();
+            plugin.getStorage().iterateUniqueUsers(uuid -> {
+                if (!users.containsKey(uuid)) {
+                    found.add(uuid);
+                }
+                return found.size() < limit;
+            }).join();
+            uuids = found;
         } else {
-            stream = plugin.getStorage().searchUserNodes(matcher).join().stream()
+            uuids = plugin.getStorage().searchUserNodes(matcher).join().stream()
                     .map(NodeEntry::getHolder)
-                    .distinct();
+                    .distinct()
+                    .filter(uuid -> !users.containsKey(uuid))
+                    .sorted()
+                    .limit(limit)
+                    .collect(Collectors.toSet());
         }
 
-        Set<UUID> uuids = stream
-                .filter(uuid -> !users.containsKey(uuid))
-                .sorted()
-                .limit(MAX_USERS - users.size())
-                .collect(Collectors.toSet());
-
         if (uuids.isEmpty()) {
             return;
         }
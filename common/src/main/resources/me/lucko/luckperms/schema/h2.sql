@@ -39,6 +39,12 @@ CREATE TABLE `{prefix}groups` (
   PRIMARY KEY (`name`)
 );
 
+CREATE TABLE `{prefix}group_revisions` (
+  `name`     VARCHAR(36) NOT NULL,
+  `revision` BIGINT      NOT NULL,
+  PRIMARY KEY (`name`)
+);
+
 CREATE TABLE `{prefix}actions` (
   `id`         INT AUTO_INCREMENT NOT NULL,
   `time`       BIGINT             NOT NULL,
@@ -35,6 +35,11 @@ CREATE TABLE "{prefix}groups" (
   "name" VARCHAR(36) PRIMARY KEY NOT NULL
 );
 
+CREATE TABLE "{prefix}group_revisions" (
+  "name"     VARCHAR(36) PRIMARY KEY NOT NULL,
+  "revision" BIGINT                  NOT NULL
+);
+
 CREATE TABLE "{prefix}actions" (
   "id"         SERIAL PRIMARY KEY       NOT NULL,
   "time"       BIGINT                   NOT NULL,
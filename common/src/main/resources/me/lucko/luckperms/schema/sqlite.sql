@@ -37,6 +37,12 @@ CREATE TABLE `{prefix}groups` (
   PRIMARY KEY (`name`)
 );
 
+CREATE TABLE `{prefix}group_revisions` (
+  `name`     VARCHAR(36) NOT NULL,
+  `revision` BIGINT      NOT NULL,
+  PRIMARY KEY (`name`)
+);
+
 CREATE TABLE `{prefix}actions` (
   `id`         INTEGER PRIMARY KEY NOT NULL,
   `time`       BIGINT              NOT NULL,
@@ -0,0 +1,190 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.cacheddata.type.MetaAccumulator;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
+import net.luckperms.api.metastacking.MetaStackDefinition;
+import net.luckperms.api.node.ChatMetaType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.query.QueryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CachedDataRefreshTest {
+
+    private static final QueryOptions QUERY_OPTIONS = QueryOptionsImpl.DEFAULT_CONTEXTUAL;
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.plugin.getMetrics()).thenReturn(new PluginMetrics());
+        lenient().when(this.configuration.get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE)).thenReturn(0);
+    }
+
+    @Test
+    public void testRefreshInvalidates() {
+        when(this.configuration.get(ConfigKeys.REFRESH_CACHED_DATA_ASYNCHRONOUSLY)).thenReturn(false);
+
+        TestCachedDataManager manager = new TestCachedDataManager(this.plugin);
+        manager.permissions = ImmutableList.of(Permission.builder().permission("test.one").build());
+
+        PermissionCache first = manager.getPermissionData(QUERY_OPTIONS);
+        assertEquals(ImmutableMap.of("test.one", true), first.getPermissionMap());
+
+        manager.permissions = ImmutableList.of(Permission.builder().permission("test.two").build());
+        manager.refresh();
+
+        PermissionCache second = manager.getPermissionData(QUERY_OPTIONS);
+        assertNotSame(first, second);
+        assertEquals(ImmutableMap.of("test.two", true), second.getPermissionMap());
+    }
+
+    @Test
+    public void testRefreshInBackground() throws Exception {
+        when(this.configuration.get(ConfigKeys.REFRESH_CACHED_DATA_ASYNCHRONOUSLY)).thenReturn(true);
+
+        TestCachedDataManager manager = new TestCachedDataManager(this.plugin);
+        manager.permissions = ImmutableList.of(Permission.builder().permission("test.one").build());
+
+        PermissionCache first = manager.getPermissionData(QUERY_OPTIONS);
+        assertEquals(ImmutableMap.of("test.one", true), first.getPermissionMap());
+
+        // block the background recalculation until we've checked the old value is still served
+        CountDownLatch latch = new CountDownLatch(1);
+        manager.latch = latch;
+        manager.permissions = ImmutableList.of(Permission.builder().permission("test.two").build());
+        CompletableFuture<Void> future = manager.refresh();
+
+        assertSame(first, manager.getPermissionData(QUERY_OPTIONS));
+        assertFalse(future.isDone());
+        latch.countDown();
+
+        // the future only completes once the new value has been applied
+        future.get(10, TimeUnit.SECONDS);
+
+        PermissionCache second = manager.getPermissionData(QUERY_OPTIONS);
+        assertNotSame(first, second);
+        assertEquals(ImmutableMap.of("test.two", true), second.getPermissionMap());
+    }
+
+    @Test
+    public void testRefreshWhenEmpty() {
+        // nothing has been calculated yet, so there's nothing to do
+        TestCachedDataManager manager = new TestCachedDataManager(this.plugin);
+        assertTrue(manager.refresh().isDone());
+        assertTrue(manager.permissions.isEmpty());
+    }
+
+    private static final class TestCachedDataManager extends AbstractCachedDataManager {
+        private final CalculatorFactory calculatorFactory;
+        private volatile ImmutableList<Node> permissions = ImmutableList.of();
+        private volatile CountDownLatch latch = null;
+
+        TestCachedDataManager(LuckPermsPlugin plugin) {
+            super(plugin);
+            this.calculatorFactory = (queryOptions, metadata) -> new PermissionCalculator(plugin, metadata, ImmutableList.of(new DirectProcessor()));
+        }
+
+        @Override
+        protected CacheMetadata getMetadataForQueryOptions(QueryOptions queryOptions) {
+            return new CacheMetadata(HolderType.USER, VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, "test"), queryOptions);
+        }
+
+        @Override
+        protected QueryOptions getQueryOptions() {
+            return QUERY_OPTIONS;
+        }
+
+        @Override
+        protected CalculatorFactory getCalculatorFactory() {
+            return this.calculatorFactory;
+        }
+
+        @Override
+        protected MetaStackDefinition getDefaultMetaStackDefinition(ChatMetaType type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected <M extends Map<String, Node>> M resolvePermissions(IntFunction<M> mapFactory, QueryOptions queryOptions) {
+            CountDownLatch latch = this.latch;
+            if (latch != null) {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            M map = mapFactory.apply(this.permissions.size());
+            for (Node node : this.permissions) {
+                map.put(node.getKey(), node);
+            }
+            return map;
+        }
+
+        @Override
+        protected void resolveMeta(MetaAccumulator accumulator, QueryOptions queryOptions) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.cacheddata;
+
+import com.google.common.collect.ImmutableList;
+import me.lucko.luckperms.common.cacheddata.type.PermissionCache;
+import me.lucko.luckperms.common.calculator.CalculatorFactory;
+import me.lucko.luckperms.common.calculator.PermissionCalculator;
+import me.lucko.luckperms.common.calculator.processor.DirectProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.model.InheritanceOrigin;
+import me.lucko.luckperms.common.model.PermissionHolderIdentifier;
+import me.lucko.luckperms.common.node.types.Inheritance;
+import me.lucko.luckperms.common.node.types.Permission;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.treeview.PermissionRegistry;
+import me.lucko.luckperms.common.verbose.VerboseCheckTarget;
+import me.lucko.luckperms.common.verbose.VerboseHandler;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.metadata.types.InheritanceOriginMetadata;
+import net.luckperms.api.query.QueryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class SharedPermissionCalculatorsTest {
+
+    private static final PermissionHolderIdentifier DEFAULT_GROUP = new PermissionHolderIdentifier(HolderType.GROUP, "default");
+    private static final PermissionHolderIdentifier ADMIN_GROUP = new PermissionHolderIdentifier(HolderType.GROUP, "admin");
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    private CalculatorFactory calculatorFactory;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getVerboseHandler()).thenReturn(mock(VerboseHandler.class));
+        lenient().when(this.plugin.getPermissionRegistry()).thenReturn(mock(PermissionRegistry.class));
+        lenient().when(this.plugin.getMetrics()).thenReturn(new PluginMetrics());
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE)).thenReturn(0);
+        this.calculatorFactory = (queryOptions, metadata) -> new PermissionCalculator(this.plugin, metadata, ImmutableList.of(new DirectProcessor()));
+    }
+
+    private static PermissionHolderIdentifier newUser() {
+        return new PermissionHolderIdentifier(HolderType.USER, UUID.randomUUID().toString());
+    }
+
+    private static Node withOrigin(Node node, PermissionHolderIdentifier origin) {
+        return node.toBuilder().withMetadata(InheritanceOriginMetadata.KEY, new InheritanceOrigin(origin, DataType.NORMAL)).build();
+    }
+
+    private static Map<String, Node> resolve(PermissionHolderIdentifier user, PermissionHolderIdentifier group, String... permissions) {
+        Map<String, Node> map = new HashMap<>();
+        Node inheritance = withOrigin(Inheritance.builder(group.getName()).build(), user);
+        map.put(inheritance.getKey(), inheritance);
+        for (String permission : permissions) {
+            Node node = withOrigin(Permission.builder().permission(permission).build(), group);
+            map.put(node.getKey(), node);
+        }
+        return map;
+    }
+
+    private static CacheMetadata metadata(PermissionHolderIdentifier user, QueryOptions queryOptions) {
+        return new CacheMetadata(HolderType.USER, VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, user.getName()), queryOptions);
+    }
+
+    private PermissionCalculator get(SharedPermissionCalculators shared, PermissionHolderIdentifier user, QueryOptions queryOptions, Map<String, Node> permissions) {
+        return shared.get(user, queryOptions, metadata(user, queryOptions), this.calculatorFactory, permissions);
+    }
+
+    private PermissionCache cache(SharedPermissionCalculators shared, PermissionHolderIdentifier user, Map<String, Node> permissions) {
+        QueryOptions queryOptions = QueryOptionsImpl.DEFAULT_CONTEXTUAL;
+        PermissionCalculator calculator = get(shared, user, queryOptions, permissions);
+        return new PermissionCache(queryOptions, metadata(user, queryOptions), calculator, new ConcurrentHashMap<>(permissions));
+    }
+
+    private static PermissionHolderIdentifier origin(Node node) {
+        return (PermissionHolderIdentifier) node.metadata(InheritanceOriginMetadata.KEY).getOrigin();
+    }
+
+    @Test
+    public void testIdenticalDataShared() {
+        SharedPermissionCalculators shared = new SharedPermissionCalculators();
+
+        PermissionHolderIdentifier user1 = newUser();
+        PermissionHolderIdentifier user2 = newUser();
+
+        PermissionCalculator calculator1 = get(shared, user1, QueryOptionsImpl.DEFAULT_CONTEXTUAL, resolve(user1, DEFAULT_GROUP, "test.one", "test.two"));
+        PermissionCalculator calculator2 = get(shared, user2, QueryOptionsImpl.DEFAULT_CONTEXTUAL, resolve(user2, DEFAULT_GROUP, "test.one", "test.two"));
+        assertSame(calculator1, calculator2);
+    }
+
+    @Test
+    public void testDifferentDataNotShared() {
+        SharedPermissionCalculators shared = new SharedPermissionCalculators();
+
+        PermissionHolderIdentifier user1 = newUser();
+        PermissionHolderIdentifier user2 = newUser();
+        PermissionHolderIdentifier user3 = newUser();
+        PermissionHolderIdentifier user4 = newUser();
+
+        PermissionCalculator calculator1 = get(shared, user1, QueryOptionsImpl.DEFAULT_CONTEXTUAL, resolve(user1, DEFAULT_GROUP, "test.one", "test.two"));
+
+        // different permissions
+        assertNotSame(calculator1, get(shared, user2, QueryOptionsImpl.DEFAULT_CONTEXTUAL, resolve(user2, DEFAULT_GROUP, "test.one")));
+
+        // same permissions, but inherited from a different group
+        assertNotSame(calculator1, get(shared, user3, QueryOptionsImpl.DEFAULT_CONTEXTUAL, resolve(user3, ADMIN_GROUP, "test.one", "test.two")));
+
+        // same permissions, different query options
+        assertNotSame(calculator1, get(shared, user4, QueryOptionsImpl.DEFAULT_NON_CONTEXTUAL, resolve(user4, DEFAULT_GROUP, "test.one", "test.two")));
+    }
+
+    @Test
+    public void testSharedResultsHaveOwnOrigin() {
+        SharedPermissionCalculators shared = new SharedPermissionCalculators();
+
+        PermissionHolderIdentifier user1 = newUser();
+        PermissionHolderIdentifier user2 = newUser();
+
+        PermissionCache cache1 = cache(shared, user1, resolve(user1, DEFAULT_GROUP, "test.one"));
+        PermissionCache cache2 = cache(shared, user2, resolve(user2, DEFAULT_GROUP, "test.one"));
+        assertSame(cache1.getCalculator(), cache2.getCalculator());
+
+        // nodes set on the user itself report that user as their origin
+        assertEquals(user1, origin(cache1.checkPermission("group.default", CheckOrigin.INTERNAL).node()));
+        assertEquals(user2, origin(cache2.checkPermission("group.default", CheckOrigin.INTERNAL).node()));
+
+        // nodes inherited from a group still report the group
+        assertEquals(DEFAULT_GROUP, origin(cache1.checkPermission("test.one", CheckOrigin.INTERNAL).node()));
+        assertEquals(DEFAULT_GROUP, origin(cache2.checkPermission("test.one", CheckOrigin.INTERNAL).node()));
+    }
+
+}
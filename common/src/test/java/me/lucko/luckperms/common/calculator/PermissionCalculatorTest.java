@@ -35,6 +35,9 @@ import me.lucko.luckperms.common.calculator.processor.PermissionProcessor;
 import me.lucko.luckperms.common.calculator.processor.RegexProcessor;
 import me.lucko.luckperms.common.calculator.processor.SpongeWildcardProcessor;
 import me.lucko.luckperms.common.calculator.processor.WildcardProcessor;
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
@@ -60,6 +63,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 
@@ -101,11 +105,15 @@ public class PermissionCalculatorTest {
             ));
 
     @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
 
     @BeforeEach
     public void setupMocks() {
         lenient().when(this.plugin.getVerboseHandler()).thenReturn(mock(VerboseHandler.class));
         lenient().when(this.plugin.getPermissionRegistry()).thenReturn(mock(PermissionRegistry.class));
+        lenient().when(this.plugin.getMetrics()).thenReturn(new PluginMetrics());
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.configuration.get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE)).thenReturn(0);
     }
 
     private PermissionCalculator createCalculator(PermissionProcessor... processors) {
@@ -205,7 +213,12 @@ public class PermissionCalculatorTest {
             "regexps4, FALSE",
     })
     public void testRegex(String node, Tristate expected) {
-        PermissionCalculator calculator = createCalculator(new DirectProcessor(), new RegexProcessor());
+        testRegex(new RegexProcessor(false), node, expected);
+        testRegex(new RegexProcessor(true), node, expected);
+    }
+
+    private void testRegex(RegexProcessor processor, String node, Tristate expected) {
+        PermissionCalculator calculator = createCalculator(new DirectProcessor(), processor);
         calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
 
         TristateResult result = calculator.checkPermission(node, CheckOrigin.INTERNAL);
@@ -246,4 +259,46 @@ public class PermissionCalculatorTest {
         assertSame(WildcardProcessor.class, overriddenResult.processorClass());
     }
 
+    @Test
+    public void testLookupCacheCounters() {
+        PermissionCalculator calculator = createCalculator(new DirectProcessor());
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        calculator.checkPermission("test.node1", CheckOrigin.INTERNAL);
+        calculator.checkPermission("test.node1", CheckOrigin.INTERNAL);
+        calculator.checkPermission("test.node2", CheckOrigin.INTERNAL);
+
+        assertEquals(3, calculator.getLookupCount());
+        assertEquals(2, calculator.getMissCount());
+        assertEquals(1, calculator.getHitCount());
+        assertEquals(0, calculator.getEvictionCount());
+        assertEquals(2, calculator.getLookupCacheSize());
+
+        calculator.invalidateCache();
+        assertEquals(0, calculator.getLookupCacheSize());
+    }
+
+    @Test
+    public void testBoundedLookupCache() throws InterruptedException {
+        lenient().when(this.configuration.get(ConfigKeys.PERMISSION_LOOKUP_CACHE_SIZE)).thenReturn(10);
+
+        PermissionCalculator calculator = createCalculator(new DirectProcessor());
+        calculator.setSourcePermissions(EXAMPLE_PERMISSIONS);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Tristate.UNDEFINED, calculator.checkPermission("region." + i + ".build", CheckOrigin.INTERNAL).result());
+        }
+        assertEquals(Tristate.TRUE, calculator.checkPermission("test.node1", CheckOrigin.INTERNAL).result());
+
+        assertEquals(1001, calculator.getMissCount());
+
+        // eviction is performed asynchronously, so the size can briefly exceed the maximum
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((calculator.getLookupCacheSize() > 10 || calculator.getEvictionCount() < 991) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(calculator.getLookupCacheSize() <= 10);
+        assertEquals(991, calculator.getEvictionCount());
+    }
+
 }
@@ -0,0 +1,123 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import net.luckperms.api.util.Tristate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CombinedRegexTest {
+
+    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(RegexProcessor.class);
+
+    private static final TristateResult FIRST = RESULT_FACTORY.result(Tristate.TRUE);
+    private static final TristateResult SECOND = RESULT_FACTORY.result(Tristate.FALSE);
+    private static final TristateResult THIRD = RESULT_FACTORY.result(Tristate.TRUE);
+    private static final TristateResult FOURTH = RESULT_FACTORY.result(Tristate.FALSE);
+
+    private static final List<Map.Entry<Pattern, TristateResult>> PATTERNS = ImmutableList.of(
+            Maps.immutableEntry(Pattern.compile("region\\.(spawn|hub)\\.build"), FIRST),
+            Maps.immutableEntry(Pattern.compile("region\\..*"), SECOND),
+            Maps.immutableEntry(Pattern.compile("(a)\\1"), THIRD),
+            Maps.immutableEntry(Pattern.compile("(?i)ab|x(y)"), FOURTH)
+    );
+
+    @ParameterizedTest
+    @CsvSource({
+            "region.spawn.build, 1",
+            "region.hub.build, 1",
+            "region.spawn.break, 2",
+            "region., 2",
+            "aa, 3",
+            "AB, 4",
+            "xy, 4",
+            "XY, 4",
+            "ab.c, 0",
+    })
+    public void testMatch(String permission, int expected) {
+        List<CombinedRegex> combined = CombinedRegex.combine(PATTERNS);
+
+        TristateResult result = null;
+        for (CombinedRegex regex : combined) {
+            result = regex.match(permission);
+            if (result != null) {
+                break;
+            }
+        }
+
+        if (expected == 0) {
+            assertNull(result);
+        } else {
+            assertSame(PATTERNS.get(expected - 1).getValue(), result);
+        }
+    }
+
+    @Test
+    public void testCombineRuns() {
+        // the back-reference pattern splits the list into three parts
+        assertEquals(3, CombinedRegex.combine(PATTERNS).size());
+        assertEquals(1, CombinedRegex.combine(PATTERNS.subList(0, 2)).size());
+    }
+
+    @Test
+    public void testInlineFlagsScoped() {
+        List<CombinedRegex> combined = CombinedRegex.combine(ImmutableList.of(
+                Maps.immutableEntry(Pattern.compile("(?i)ab"), FIRST),
+                Maps.immutableEntry(Pattern.compile("cd"), SECOND)
+        ));
+        assertEquals(1, combined.size());
+
+        CombinedRegex regex = combined.get(0);
+        assertSame(FIRST, regex.match("AB"));
+        assertSame(SECOND, regex.match("cd"));
+        assertNull(regex.match("CD"));
+    }
+
+    @Test
+    public void testCanCombine() {
+        assertTrue(CombinedRegex.canCombine(Pattern.compile("hello\\d+")));
+        assertTrue(CombinedRegex.canCombine(Pattern.compile("(?i)hello")));
+        assertFalse(CombinedRegex.canCombine(Pattern.compile("(a)\\1")));
+        assertFalse(CombinedRegex.canCombine(Pattern.compile("(?<x>a)\\k<x>")));
+        assertFalse(CombinedRegex.canCombine(Pattern.compile("\\Qa.b")));
+        assertFalse(CombinedRegex.canCombine(Pattern.compile("(?x)a # comment")));
+    }
+
+}
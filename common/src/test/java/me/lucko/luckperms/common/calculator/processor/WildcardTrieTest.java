@@ -0,0 +1,113 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.calculator.processor;
+
+import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import net.luckperms.api.util.Tristate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class WildcardTrieTest {
+
+    private static final TristateResult.Factory RESULT_FACTORY = new TristateResult.Factory(WildcardProcessor.class);
+
+    private static final Map<String, TristateResult> PREFIXES = ImmutableMap.<String, TristateResult>builder()
+            .put("one", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("one.two", RESULT_FACTORY.result(Tristate.FALSE))
+            .put("one.two.three", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("one.twofold", RESULT_FACTORY.result(Tristate.FALSE))
+            .put("region.spawn", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("region.spawnpoint", RESULT_FACTORY.result(Tristate.FALSE))
+            .put("a", RESULT_FACTORY.result(Tristate.FALSE))
+            .put("a.", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("b", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("c", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("d", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("e", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("f", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("g", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("h", RESULT_FACTORY.result(Tristate.TRUE))
+            .put("i", RESULT_FACTORY.result(Tristate.TRUE))
+            .build();
+
+    @ParameterizedTest
+    @CsvSource({
+            "one.test, one",
+            "one.two.test, one.two",
+            "one.two.three.test, one.two.three",
+            "one.two.three.four.five, one.two.three",
+            "one.twofold.test, one.twofold",
+            "one.twofoldx.test, one",
+            "one.tw.test, one",
+            "one.two, one",
+            "one.two.three, one.two",
+            "region.spawn.build, region.spawn",
+            "region.spawnpoint.build, region.spawnpoint",
+            "region.spawnp.build, ",
+            "a..b, a.",
+            "a.b, a",
+            "h.test, h",
+            "i.test, i",
+    })
+    public void testLongestMatch(String permission, String expectedPrefix) {
+        WildcardTrie trie = WildcardTrie.compile(PREFIXES);
+
+        TristateResult result = trie.longestMatch(permission);
+        if (expectedPrefix == null) {
+            assertNull(result);
+        } else {
+            assertSame(PREFIXES.get(expectedPrefix), result);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "one",
+            "region",
+            "region.spawn",
+            "test",
+            "test.one",
+            "''",
+    })
+    public void testNoMatch(String permission) {
+        WildcardTrie trie = WildcardTrie.compile(PREFIXES);
+        assertNull(trie.longestMatch(permission));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame(WildcardTrie.EMPTY, WildcardTrie.compile(ImmutableMap.of()));
+        assertNull(WildcardTrie.EMPTY.longestMatch("one.two"));
+    }
+
+}
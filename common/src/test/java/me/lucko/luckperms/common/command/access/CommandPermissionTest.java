@@ -38,6 +38,7 @@ public class CommandPermissionTest {
             CommandPermission.INFO,
             CommandPermission.EDITOR,
             CommandPermission.VERBOSE,
+            CommandPermission.METRICS,
             CommandPermission.TREE,
             CommandPermission.SEARCH,
             CommandPermission.EXPORT,
@@ -0,0 +1,215 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.context.manager;
+
+import me.lucko.luckperms.common.config.ConfigKeys;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
+import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import net.luckperms.api.context.ContextCalculator;
+import net.luckperms.api.context.ContextConsumer;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.query.QueryOptions;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+public class ContextManagerTest {
+
+    @Mock private LuckPermsPlugin plugin;
+    @Mock private LuckPermsConfiguration configuration;
+
+    private TestContextManager contextManager;
+
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getConfiguration()).thenReturn(this.configuration);
+        lenient().when(this.plugin.getMetrics()).thenReturn(new PluginMetrics());
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        lenient().when(this.configuration.get(ConfigKeys.GLOBAL_QUERY_OPTIONS)).thenReturn(QueryOptionsImpl.DEFAULT_CONTEXTUAL);
+        lenient().when(this.configuration.get(ConfigKeys.DISABLED_CONTEXT_CALCULATORS)).thenReturn(Collections.emptySet());
+        this.contextManager = new TestContextManager(this.plugin);
+    }
+
+    @Test
+    public void testSignalDrivenCachedUntilSignalled() {
+        CountingCalculator calculator = new CountingCalculator("world", true);
+        this.contextManager.registerCalculator(calculator);
+
+        QueryOptions first = this.contextManager.getQueryOptions("subject");
+        assertEquals(ImmutableContextSetImpl.of("world", "world-1"), first.context());
+        assertEquals(1, calculator.calls.get());
+
+        // no polled calculators, so the result never expires
+        assertSame(first, this.contextManager.getQueryOptions("subject"));
+        assertEquals(1, calculator.calls.get());
+
+        this.contextManager.signalContextUpdate("subject");
+        assertEquals(ImmutableContextSetImpl.of("world", "world-2"), this.contextManager.getQueryOptions("subject").context());
+        assertEquals(2, calculator.calls.get());
+    }
+
+    @Test
+    public void testPolledCalculatorsExpire() throws InterruptedException {
+        CountingCalculator signalDriven = new CountingCalculator("world", true);
+        CountingCalculator polled = new CountingCalculator("polled", false);
+        polled.fixedValue = true;
+        this.contextManager.registerCalculator(signalDriven);
+        this.contextManager.registerCalculator(polled);
+
+        QueryOptions first = this.contextManager.getQueryOptions("subject");
+        assertEquals(new ImmutableContextSetImpl.BuilderImpl().add("world", "world-1").add("polled", "polled").build(), first.context());
+
+        Thread.sleep(60);
+
+        // the polled calculator is called again, but the signal-driven contexts are reused
+        QueryOptions second = this.contextManager.getQueryOptions("subject");
+        assertEquals(2, polled.calls.get());
+        assertEquals(1, signalDriven.calls.get());
+
+        // nothing changed, so the same instance is returned
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testRegistrationInvalidates() {
+        CountingCalculator first = new CountingCalculator("world", true);
+        this.contextManager.registerCalculator(first);
+        this.contextManager.getQueryOptions("subject");
+
+        CountingCalculator second = new CountingCalculator("server", true);
+        this.contextManager.registerCalculator(second);
+
+        ImmutableContextSet contexts = this.contextManager.getQueryOptions("subject").context();
+        assertEquals(new ImmutableContextSetImpl.BuilderImpl().add("world", "world-2").add("server", "server-1").build(), contexts);
+
+        this.contextManager.invalidateAllCaches();
+        contexts = this.contextManager.getQueryOptions("subject").context();
+        assertEquals(new ImmutableContextSetImpl.BuilderImpl().add("world", "world-3").add("server", "server-2").build(), contexts);
+    }
+
+    @Test
+    public void testPolledContextsMergedIncrementally() throws InterruptedException {
+        CountingCalculator signalDriven = new CountingCalculator("world", true);
+        CountingCalculator fixed = new CountingCalculator("fixed", false);
+        fixed.fixedValue = true;
+        CountingCalculator changing = new CountingCalculator("changing", false);
+        this.contextManager.registerCalculator(signalDriven);
+        this.contextManager.registerCalculator(fixed);
+        this.contextManager.registerCalculator(changing);
+
+        QueryOptions first = this.contextManager.getQueryOptions("subject");
+        Thread.sleep(60);
+        QueryOptions second = this.contextManager.getQueryOptions("subject");
+
+        // only the changing calculator's contribution differs
+        ImmutableContextSet expected = new ImmutableContextSetImpl.BuilderImpl()
+                .add("world", "world-1")
+                .add("fixed", "fixed")
+                .add("changing", "changing-2")
+                .build();
+        assertEquals(expected, second.context());
+        assertNotSame(first, second);
+        assertEquals(1, signalDriven.calls.get());
+    }
+
+    @Test
+    public void testCalculatorMetrics() {
+        CountingCalculator signalDriven = new CountingCalculator("world", true);
+        CountingCalculator polled = new CountingCalculator("polled", false);
+        this.contextManager.registerCalculator(signalDriven);
+        this.contextManager.registerCalculator(polled);
+
+        this.contextManager.getQueryOptions("a");
+        this.contextManager.getQueryOptions("b");
+
+        List<ContextCalculatorMetrics> metrics = this.contextManager.getCalculatorMetrics();
+        assertEquals(2, metrics.size());
+        for (ContextCalculatorMetrics m : metrics) {
+            assertEquals(CountingCalculator.class.getName(), m.getName());
+            assertEquals(2, m.getLatency().count());
+        }
+        assertEquals(1, metrics.stream().filter(ContextCalculatorMetrics::isSignalDriven).count());
+
+        this.contextManager.unregisterCalculator(polled);
+        assertEquals(1, this.contextManager.getCalculatorMetrics().size());
+        assertTrue(this.contextManager.getCalculatorMetrics().get(0).isSignalDriven());
+    }
+
+    private static final class CountingCalculator implements ContextCalculator<String> {
+        private final String key;
+        private final boolean signalDriven;
+        private final AtomicInteger calls = new AtomicInteger();
+        private boolean fixedValue = false;
+
+        CountingCalculator(String key, boolean signalDriven) {
+            this.key = key;
+            this.signalDriven = signalDriven;
+        }
+
+        @Override
+        public void calculate(@NonNull String target, @NonNull ContextConsumer consumer) {
+            int call = this.calls.incrementAndGet();
+            consumer.accept(this.key, this.fixedValue ? this.key : this.key + "-" + call);
+        }
+
+        @Override
+        public boolean isSignalDriven() {
+            return this.signalDriven;
+        }
+    }
+
+    private static final class TestContextManager extends SimpleContextManager<String, String> {
+        TestContextManager(LuckPermsPlugin plugin) {
+            super(plugin, String.class, String.class);
+        }
+
+        @Override
+        public UUID getUniqueId(String player) {
+            return UUID.nameUUIDFromBytes(player.getBytes());
+        }
+    }
+
+}
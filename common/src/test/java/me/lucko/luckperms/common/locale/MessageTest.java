@@ -32,6 +32,7 @@ import me.lucko.luckperms.common.command.spec.Argument;
 import me.lucko.luckperms.common.command.spec.CommandSpec;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.extension.SimpleExtensionManager;
+import me.lucko.luckperms.common.metrics.PluginMetrics;
 import me.lucko.luckperms.common.model.HolderType;
 import me.lucko.luckperms.common.model.InheritanceOrigin;
 import me.lucko.luckperms.common.model.PermissionHolder;
@@ -254,6 +255,8 @@ public class MessageTest {
             return ImmutableList.of();
         } else if (clazz == Collection.class) {
             return ImmutableList.of();
+        } else if (clazz == PluginMetrics.class) {
+            return new PluginMetrics();
         }
 
         Object mock;
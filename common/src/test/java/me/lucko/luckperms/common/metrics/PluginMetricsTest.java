@@ -0,0 +1,122 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.metrics;
+
+import me.lucko.luckperms.common.model.HolderType;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PluginMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100);
+        }
+        histogram.record(1_000_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count());
+        assertEquals(99 * 100 + 1_000_000, snapshot.totalNanos());
+        assertEquals(10_099, snapshot.meanNanos());
+        assertEquals(1_000_000, snapshot.maxNanos());
+
+        // percentiles are reported as the upper bound of the containing bucket
+        assertEquals(127, snapshot.percentileNanos(0.5));
+        assertEquals(127, snapshot.percentileNanos(0.99));
+        assertEquals(1_000_000, snapshot.percentileNanos(1));
+
+        histogram.reset();
+        snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.percentileNanos(0.99));
+    }
+
+    @Test
+    public void testHistogramEdgeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.count());
+        assertEquals(0, snapshot.percentileNanos(0.5));
+        assertEquals(Long.MAX_VALUE, snapshot.percentileNanos(1));
+    }
+
+    @Test
+    public void testPermissionChecks() {
+        PluginMetrics metrics = new PluginMetrics();
+        assertEquals(0, metrics.getPermissionCheckCacheHitRate());
+
+        for (int i = 0; i < 3; i++) {
+            metrics.recordPermissionCheck(CheckOrigin.PLATFORM_API_HAS_PERMISSION);
+        }
+        metrics.recordPermissionCheck(CheckOrigin.LUCKPERMS_API);
+        metrics.recordPermissionCalculation(1000);
+
+        assertEquals(4, metrics.getPermissionCheckCount());
+        assertEquals(3, metrics.getPermissionCheckCount(CheckOrigin.PLATFORM_API_HAS_PERMISSION));
+        assertEquals(1, metrics.getPermissionCheckCount(CheckOrigin.LUCKPERMS_API));
+        assertEquals(0, metrics.getPermissionCheckCount(CheckOrigin.INTERNAL));
+        assertEquals(0.75, metrics.getPermissionCheckCacheHitRate());
+
+        metrics.reset();
+        assertEquals(0, metrics.getPermissionCheckCount());
+        assertEquals(0, metrics.getPermissionCalculations().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDetails() {
+        PluginMetrics metrics = new PluginMetrics();
+        metrics.recordPermissionDataCalculation(HolderType.USER, 500);
+        metrics.recordMetaDataCalculation(HolderType.GROUP, 500);
+        metrics.recordStorageOperation(2000, true);
+        metrics.recordStorageOperation(3000, false);
+
+        Map<String, Object> details = metrics.getDetails();
+
+        Map<String, Object> permissionData = (Map<String, Object>) details.get("permissionDataCalculations");
+        assertEquals(1L, ((Map<String, Object>) permissionData.get("user")).get("count"));
+        assertEquals(0L, ((Map<String, Object>) permissionData.get("group")).get("count"));
+
+        Map<String, Object> metaData = (Map<String, Object>) details.get("metaDataCalculations");
+        assertEquals(1L, ((Map<String, Object>) metaData.get("group")).get("count"));
+
+        Map<String, Object> storage = (Map<String, Object>) details.get("storageOperations");
+        assertEquals(2L, storage.get("count"));
+        assertEquals(1L, storage.get("failures"));
+        assertEquals(2500L, storage.get("meanNanos"));
+    }
+
+}
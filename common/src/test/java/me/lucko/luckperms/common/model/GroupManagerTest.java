@@ -26,8 +26,13 @@
 package me.lucko.luckperms.common.model;
 
 import com.google.common.collect.ImmutableSet;
+import me.lucko.luckperms.common.config.LuckPermsConfiguration;
+import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
+import me.lucko.luckperms.common.node.types.Inheritance;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -38,6 +43,7 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -46,6 +52,11 @@ public class GroupManagerTest {
 
     @Mock private LuckPermsPlugin plugin;
 
+    @BeforeEach
+    public void setupMocks() {
+        lenient().when(this.plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(this.plugin));
+    }
+
     @Test
     public void testSanitizeIdentifier() {
         StandardGroupManager manager = new StandardGroupManager(this.plugin) {
@@ -88,4 +99,30 @@ public class GroupManagerTest {
         assertSame(memberGroup, manager.getByDisplayName("Member"));
     }
 
+    @Test
+    public void testInvalidateDependentCaches() {
+        lenient().when(this.plugin.getConfiguration()).thenReturn(mock(LuckPermsConfiguration.class));
+        lenient().when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+
+        StandardGroupManager manager = new StandardGroupManager(this.plugin);
+
+        Group member = manager.getOrMake("member");
+        Group helper = manager.getOrMake("helper");
+        Group mod = manager.getOrMake("mod");
+        Group vip = manager.getOrMake("vip");
+        manager.getOrMake("builder");
+
+        helper.normalData().add(Inheritance.builder("member").build());
+        mod.normalData().add(Inheritance.builder("helper").withContext("server", "survival").build());
+        vip.transientData().add(Inheritance.builder("member").build());
+
+        assertEquals(ImmutableSet.of("member", "helper", "mod", "vip"), manager.invalidateDependentCaches(member));
+        assertEquals(ImmutableSet.of("helper", "mod"), manager.invalidateDependentCaches(helper));
+        assertEquals(ImmutableSet.of("mod"), manager.invalidateDependentCaches(mod));
+
+        // cycles should not cause the traversal to loop forever
+        member.normalData().add(Inheritance.builder("mod").build());
+        assertEquals(ImmutableSet.of("member", "helper", "mod", "vip"), manager.invalidateDependentCaches(helper));
+    }
+
 }
@@ -28,7 +28,9 @@ package me.lucko.luckperms.common.model;
 import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
 import me.lucko.luckperms.common.graph.TraversalAlgorithm;
+import me.lucko.luckperms.common.inheritance.InheritanceGraph;
 import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.model.manager.group.GroupManager;
 import me.lucko.luckperms.common.model.manager.group.StandardGroupManager;
@@ -37,7 +39,10 @@ import me.lucko.luckperms.common.node.types.Weight;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.query.QueryOptionsImpl;
 import net.luckperms.api.context.ContextSatisfyMode;
+import net.luckperms.api.model.data.DataType;
+import net.luckperms.api.query.QueryOptions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -50,6 +55,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -126,6 +132,37 @@ public class InheritanceTest {
         assertEquals(expectedList, groups);
     }
 
+    @Test
+    public void testSuccessorsCached() {
+        Group member = this.groupManager.getOrMake("member");
+        Group vip = createGroup("vip", 5, member);
+        Group test = this.groupManager.getOrMake("test");
+        test.normalData().add(Inheritance.builder("vip").withContext("server", "survival").build());
+
+        QueryOptions queryOptions = QueryOptionsImpl.DEFAULT_CONTEXTUAL.toBuilder()
+                .context(ImmutableContextSetImpl.of("server", "survival"))
+                .build();
+        InheritanceGraph graph = this.plugin.getInheritanceGraphFactory().getGraph(queryOptions);
+
+        Iterable<? extends PermissionHolder> successors = graph.successors(test);
+        assertEquals(Collections.singletonList(vip), successors);
+        assertSame(successors, this.plugin.getInheritanceGraphFactory().getGraph(queryOptions).successors(test));
+
+        // a change to the holder's own data
+        test.setNode(DataType.NORMAL, Inheritance.builder("member").withContext("server", "survival").build(), false);
+        assertEquals(Arrays.asList(vip, member), graph.successors(test));
+
+        // a change to the data of another group
+        member.setNode(DataType.NORMAL, Weight.builder().weight(10).build(), false);
+        assertEquals(Arrays.asList(member, vip), graph.successors(test));
+
+        // a new group being loaded
+        test.setNode(DataType.NORMAL, Inheritance.builder("admin").withContext("server", "survival").build(), false);
+        assertEquals(Arrays.asList(member, vip), graph.successors(test));
+        Group admin = this.groupManager.getOrMake("admin");
+        assertEquals(Arrays.asList(member, vip, admin), graph.successors(test));
+    }
+
     private Group createGroup(String name, int weight, Group parent) {
         Group group = this.groupManager.getOrMake(name);
         group.normalData().add(Inheritance.builder().group(parent.getName()).build());
@@ -29,6 +29,8 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import me.lucko.luckperms.common.model.nodemap.NodeMap;
+import me.lucko.luckperms.common.model.nodemap.NodeMapCopyOnWrite;
 import me.lucko.luckperms.common.model.nodemap.NodeMapMutable;
 import me.lucko.luckperms.common.node.factory.NodeBuilders;
 import me.lucko.luckperms.common.query.QueryOptionsBuilderImpl;
@@ -52,13 +54,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -324,5 +332,177 @@ public class NodeMapTest {
         assertEquals(expectedInheritance, inheritanceOutput.size());
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "AT_LEAST_ONE_VALUE_PER_KEY",
+            "ALL_VALUES_PER_KEY"
+    })
+    public void testContextFilteringManyBuckets(ContextSatisfyMode satisfyMode) {
+        NodeMapMutable map = new NodeMapMutable(this.mockHolder, DataType.NORMAL) {
+            @Override
+            protected ContextSatisfyMode defaultSatisfyMode() {
+                return satisfyMode;
+            }
+        };
+
+        map.add(makeNode("test"));
+        map.add(makeNode("group.test"));
+        for (int i = 0; i < 50; i++) {
+            map.add(makeNode("test.region" + i).toBuilder().withContext("region", "r" + i).build());
+            map.add(makeNode("group.region" + i).toBuilder().withContext("region", "r" + i).withContext("server", "test").build());
+            map.add(makeNode("test.multi" + i).toBuilder().withContext("region", "r" + i).withContext("region", "r" + (i + 1)).build());
+        }
+
+        ImmutableContextSet context = new ImmutableContextSetImpl.BuilderImpl()
+                .add("region", "r10")
+                .add("region", "r11")
+                .add("server", "test")
+                .build();
+        QueryOptions options = new QueryOptionsBuilderImpl(QueryMode.CONTEXTUAL).context(context).build();
+
+        Set<Node> expected = new HashSet<>();
+        for (Node node : map.asList()) {
+            if (options.satisfies(node.getContexts(), satisfyMode)) {
+                expected.add(node);
+            }
+        }
+
+        Set<Node> output = new HashSet<>();
+        map.copyTo(output, options);
+        assertEquals(expected, output);
+
+        output.clear();
+        map.forEach(options, output::add);
+        assertEquals(expected, output);
+
+        // buckets added or removed after the index has been built
+        Node added = makeNode("test.added").toBuilder().withContext("region", "r11").build();
+        map.add(added);
+        expected.add(added);
+        map.clear(new ImmutableContextSetImpl.BuilderImpl().add("region", "r10").build());
+        expected.removeIf(node -> node.getContexts().equals(new ImmutableContextSetImpl.BuilderImpl().add("region", "r10").build()));
+
+        output.clear();
+        map.copyTo(output, options);
+        assertEquals(expected, output);
+
+        Set<InheritanceNode> inheritanceOutput = new HashSet<>();
+        map.copyInheritanceNodesTo(inheritanceOutput, options);
+        assertEquals(expected.stream().filter(n -> n instanceof InheritanceNode).collect(Collectors.toSet()), inheritanceOutput);
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        NodeMapMutable mutable = new NodeMapMutable(this.mockHolder, DataType.NORMAL) {
+            @Override
+            protected ContextSatisfyMode defaultSatisfyMode() {
+                return ContextSatisfyMode.AT_LEAST_ONE_VALUE_PER_KEY;
+            }
+        };
+        NodeMapCopyOnWrite copyOnWrite = new NodeMapCopyOnWrite(this.mockHolder, DataType.NORMAL) {
+            @Override
+            protected ContextSatisfyMode defaultSatisfyMode() {
+                return ContextSatisfyMode.AT_LEAST_ONE_VALUE_PER_KEY;
+            }
+        };
+
+        List<Function<NodeMap, Difference<Node>>> operations = ImmutableList.of(
+                map -> map.add(makeNode("test1")),
+                map -> map.add(makeNode("test1")),
+                map -> map.add(makeNode("test2").toBuilder().withContext("server", "test").build()),
+                map -> map.add(makeNode("group.test1").toBuilder().withContext("server", "test").build()),
+                map -> map.add(makeNode("group.test1").toBuilder().withContext("server", "test").value(false).build()),
+                map -> map.add(makeNode("group.test2").toBuilder().withContext("world", "test").build()),
+                map -> map.addAll(ImmutableList.of(makeNode("test3"), makeNode("test4").toBuilder().expiry(1, TimeUnit.HOURS).build())),
+                map -> map.remove(makeNode("test3")),
+                map -> map.removeExact(makeNode("test4")),
+                map -> map.removeIf(node -> node.getKey().equals("test1")),
+                map -> map.clear(new ImmutableContextSetImpl.BuilderImpl().add("world", "test").build()),
+                map -> map.removeThenAdd(makeNode("test2").toBuilder().withContext("server", "test").build(), makeNode("test5"))
+        );
+
+        for (Function<NodeMap, Difference<Node>> operation : operations) {
+            Difference<Node> expectedDiff = operation.apply(mutable);
+            Difference<Node> actualDiff = operation.apply(copyOnWrite);
+            assertEquals(expectedDiff.getAdded(), actualDiff.getAdded());
+            assertEquals(expectedDiff.getRemoved(), actualDiff.getRemoved());
+            assertEquals(mutable.asList(), copyOnWrite.asList());
+            assertEquals(mutable.inheritanceAsList(), copyOnWrite.inheritanceAsList());
+
+            QueryOptions options = new QueryOptionsBuilderImpl(QueryMode.CONTEXTUAL)
+                    .context(new ImmutableContextSetImpl.BuilderImpl().add("server", "test").build())
+                    .build();
+            assertEquals(mutable.asMap().keySet().stream().filter(c -> !mutable.nodesInContext(c).isEmpty()).collect(Collectors.toSet()), copyOnWrite.asMap().keySet());
+
+            List<Node> expected = new ArrayList<>();
+            List<Node> actual = new ArrayList<>();
+            mutable.copyTo(expected, options);
+            copyOnWrite.copyTo(actual, options);
+            assertEquals(expected, actual);
+        }
+
+        assertEquals(mutable.clear().getRemoved(), copyOnWrite.clear().getRemoved());
+        assertEquals(0, copyOnWrite.size());
+    }
+
+    @Test
+    public void testCopyOnWriteWithoutReads() {
+        NodeMapMutable mutable = new NodeMapMutable(this.mockHolder, DataType.NORMAL);
+        NodeMapCopyOnWrite copyOnWrite = new NodeMapCopyOnWrite(this.mockHolder, DataType.NORMAL);
+
+        // several modifications in a row, with no reads in between, are all applied to the same working copy
+        List<Function<NodeMap, Difference<Node>>> operations = ImmutableList.of(
+                map -> map.add(makeNode("test1")),
+                map -> map.add(makeNode("test2").toBuilder().withContext("server", "test").build()),
+                map -> map.add(makeNode("group.test1").toBuilder().withContext("server", "test").build()),
+                map -> map.remove(makeNode("test1")),
+                map -> map.add(makeNode("test3"))
+        );
+
+        for (Function<NodeMap, Difference<Node>> operation : operations) {
+            Difference<Node> expectedDiff = operation.apply(mutable);
+            Difference<Node> actualDiff = operation.apply(copyOnWrite);
+            assertEquals(expectedDiff.getAdded(), actualDiff.getAdded());
+            assertEquals(expectedDiff.getRemoved(), actualDiff.getRemoved());
+        }
+
+        assertEquals(mutable.asList(), copyOnWrite.asList());
+        assertEquals(mutable.inheritanceAsList(), copyOnWrite.inheritanceAsList());
+
+        // and modifications after a read are still applied
+        assertEquals(mutable.add(makeNode("test4")).getAdded(), copyOnWrite.add(makeNode("test4")).getAdded());
+        assertEquals(mutable.asList(), copyOnWrite.asList());
+    }
+
+    @Test
+    public void testCopyOnWriteNoOpRemovals() {
+        NodeMapCopyOnWrite copyOnWrite = new NodeMapCopyOnWrite(this.mockHolder, DataType.NORMAL);
+        copyOnWrite.add(makeNode("test1"));
+        copyOnWrite.add(makeNode("test2").toBuilder().withContext("server", "test").build());
+        assertEquals(2, copyOnWrite.size());
+
+        // a working copy is a NodeMapMutable, which looks up the holder's identifier when it is created
+        clearInvocations(this.mockHolder);
+
+        ImmutableContextSet server = new ImmutableContextSetImpl.BuilderImpl().add("server", "test").build();
+        ImmutableContextSet world = new ImmutableContextSetImpl.BuilderImpl().add("world", "test").build();
+        assertEquals(0, copyOnWrite.removeIf(Node::hasExpired).getRemoved().size());
+        assertEquals(0, copyOnWrite.removeIf(server, node -> node.getKey().equals("test1")).getRemoved().size());
+        assertEquals(0, copyOnWrite.remove(makeNode("test3")).getRemoved().size());
+        assertEquals(0, copyOnWrite.removeExact(makeNode("test1").toBuilder().value(false).build()).getRemoved().size());
+        assertEquals(0, copyOnWrite.clear(world).getRemoved().size());
+        verify(this.mockHolder, never()).getIdentifier();
+        assertEquals(2, copyOnWrite.size());
+
+        // removals which do change something still create one
+        assertEquals(1, copyOnWrite.removeIf(node -> node.getKey().equals("test1")).getRemoved().size());
+        verify(this.mockHolder).getIdentifier();
+        assertEquals(1, copyOnWrite.size());
+
+        assertEquals(1, copyOnWrite.clear().getRemoved().size());
+        clearInvocations(this.mockHolder);
+        assertEquals(0, copyOnWrite.clear().getRemoved().size());
+        verify(this.mockHolder, never()).getIdentifier();
+    }
 
 }
@@ -27,6 +27,7 @@ package me.lucko.luckperms.common.model;
 
 import com.google.common.collect.ImmutableList;
 import me.lucko.luckperms.common.event.EventDispatcher;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.node.types.Permission;
 import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import net.luckperms.api.model.data.DataMutateResult;
@@ -58,6 +59,7 @@ public class PermissionHolderTest {
     @BeforeEach
     public void setupMocks() {
         when(this.plugin.getEventDispatcher()).thenReturn(mock(EventDispatcher.class));
+        when(this.plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(this.plugin));
     }
 
     @Test
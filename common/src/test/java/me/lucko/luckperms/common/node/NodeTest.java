@@ -44,6 +44,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -63,6 +64,13 @@ public class NodeTest {
         assertFalse(node.hasExpiry());
     }
 
+    @Test
+    public void testKeyInterned() {
+        Node a = Permission.builder().permission(new StringBuilder("hello.").append("world").toString()).build();
+        Node b = Permission.builder().permission(new StringBuilder("hello.").append("world").toString()).build();
+        assertSame(a.getKey(), b.getKey());
+    }
+
     @Test
     public void testEscaping() {
         Node node = Meta.builder("hel.lo", "wo.rld").build();
@@ -25,6 +25,8 @@
 
 package me.lucko.luckperms.common.query;
 
+import me.lucko.luckperms.common.context.ImmutableContextSetImpl;
+import net.luckperms.api.context.ImmutableContextSet;
 import net.luckperms.api.query.Flag;
 import net.luckperms.api.query.QueryMode;
 import net.luckperms.api.query.QueryOptions;
@@ -32,6 +34,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -59,4 +62,23 @@ public class QueryOptionsTest {
         }
     }
 
+    @Test
+    public void testInterning() {
+        ImmutableContextSet context1 = new ImmutableContextSetImpl.BuilderImpl().add("server", "test").add("world", "nether").build();
+        ImmutableContextSet context2 = new ImmutableContextSetImpl.BuilderImpl().add("world", "nether").add("server", "test").build();
+        assertNotSame(context1, context2);
+        assertSame(QueryOptionsInterner.intern(context1), QueryOptionsInterner.intern(context2));
+
+        QueryOptions options1 = new QueryOptionsBuilderImpl(QueryMode.CONTEXTUAL).context(context1).build();
+        QueryOptions options2 = new QueryOptionsBuilderImpl(QueryMode.CONTEXTUAL).context(context2).build();
+        assertNotSame(options1, options2);
+
+        QueryOptions interned = QueryOptionsInterner.intern(options2);
+        assertSame(QueryOptionsInterner.intern(options1), interned);
+        assertSame(QueryOptionsInterner.intern(context1), interned.context());
+
+        QueryOptions nonContextual = new QueryOptionsBuilderImpl(QueryMode.NON_CONTEXTUAL).build();
+        assertSame(QueryOptionsInterner.intern(nonContextual), QueryOptionsInterner.intern(new QueryOptionsBuilderImpl(QueryMode.NON_CONTEXTUAL).build()));
+    }
+
 }
@@ -26,6 +26,7 @@
 package me.lucko.luckperms.common.storage;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import me.lucko.luckperms.common.actionlog.LogPage;
 import me.lucko.luckperms.common.actionlog.LoggedAction;
@@ -34,6 +35,7 @@ import me.lucko.luckperms.common.config.ConfigKeys;
 import me.lucko.luckperms.common.config.LuckPermsConfiguration;
 import me.lucko.luckperms.common.event.EventDispatcher;
 import me.lucko.luckperms.common.filter.PageParameters;
+import me.lucko.luckperms.common.inheritance.InheritanceGraphFactory;
 import me.lucko.luckperms.common.model.Group;
 import me.lucko.luckperms.common.model.PrimaryGroupHolder;
 import me.lucko.luckperms.common.model.User;
@@ -47,6 +49,7 @@ import me.lucko.luckperms.common.plugin.LuckPermsPlugin;
 import me.lucko.luckperms.common.plugin.bootstrap.LuckPermsBootstrap;
 import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
 import me.lucko.luckperms.common.storage.implementation.StorageImplementation;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
 import net.luckperms.api.actionlog.Action;
 import net.luckperms.api.model.PlayerSaveResult;
 import net.luckperms.api.model.PlayerSaveResult.Outcome;
@@ -62,7 +65,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -71,10 +77,12 @@ import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.AdditionalAnswers.answer;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.lenient;
@@ -259,6 +267,128 @@ public abstract class AbstractStorageTest {
         assertNull(r2.getPreviousUsername());
     }
 
+    @Test
+    public void testLoadUserForLogin() throws Exception {
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        UUID uniqueId = UUID.randomUUID();
+        PermissionNode examplePermission = Permission.builder().permission("test.1").build();
+
+        // first login - clean insert
+        LoginResult r1 = this.storage.loadUserForLogin(uniqueId, "Player1");
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT), r1.getSaveResult().getOutcomes());
+        assertNotNull(r1.getUser());
+        assertEquals(uniqueId, r1.getUser().getUniqueId());
+        assertEquals(GroupManager.DEFAULT_GROUP_NAME, r1.getUser().getPrimaryGroup().getStoredValue().orElse(null));
+
+        r1.getUser().setNode(DataType.NORMAL, examplePermission, true);
+        this.storage.saveUser(r1.getUser());
+
+        // second login with a new username - nodes are loaded
+        LoginResult r2 = this.storage.loadUserForLogin(uniqueId, "Player2");
+        assertEquals(ImmutableSet.of(Outcome.USERNAME_UPDATED), r2.getSaveResult().getOutcomes());
+        assertTrue(r2.getUser().normalData().asSet().contains(examplePermission));
+        assertTrue("Player2".equalsIgnoreCase(this.storage.getPlayerName(uniqueId)));
+    }
+
+    @Test
+    public void testLoadUsersForLogin() throws Exception {
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        UUID existing = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        PermissionNode examplePermission = Permission.builder().permission("test.1").build();
+
+        User user = this.storage.loadUserForLogin(existing, "Player1").getUser();
+        user.setNode(DataType.NORMAL, examplePermission, true);
+        this.storage.saveUser(user);
+
+        Map<UUID, LoginResult> results = this.storage.loadUsersForLogin(ImmutableMap.of(existing, "Player1", fresh, "Player2"));
+        assertEquals(2, results.size());
+
+        assertEquals(ImmutableSet.of(Outcome.NO_CHANGE), results.get(existing).getSaveResult().getOutcomes());
+        assertTrue(results.get(existing).getUser().normalData().asSet().contains(examplePermission));
+
+        assertEquals(ImmutableSet.of(Outcome.CLEAN_INSERT), results.get(fresh).getSaveResult().getOutcomes());
+        assertEquals(fresh, results.get(fresh).getUser().getUniqueId());
+        assertFalse(results.get(fresh).getUser().normalData().asSet().contains(examplePermission));
+        assertTrue("Player2".equalsIgnoreCase(this.storage.getPlayerName(fresh)));
+    }
+
+    @Test
+    public void testLoadUsers() throws Exception {
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        Set<UUID> saved = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            UUID uniqueId = UUID.randomUUID();
+            User user = this.storage.loadUser(uniqueId, "Player" + i);
+            user.setNode(DataType.NORMAL, Permission.builder().permission("test." + i).build(), true);
+            this.storage.saveUser(user);
+            saved.add(uniqueId);
+        }
+        UUID unknown = UUID.randomUUID();
+
+        Set<UUID> toLoad = new HashSet<>(saved);
+        toLoad.add(unknown);
+        saved.forEach(userManager::unload);
+
+        Map<UUID, User> users = this.storage.loadUsers(toLoad);
+        assertEquals(toLoad, users.keySet());
+        for (UUID uniqueId : saved) {
+            assertEquals(2, users.get(uniqueId).normalData().asSet().size());
+        }
+        assertEquals(unknown, users.get(unknown).getUniqueId());
+        assertEquals(1, users.get(unknown).normalData().asSet().size());
+    }
+
+    @Test
+    public void testIterateUsers() throws Exception {
+        StandardUserManager userManager = new StandardUserManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        when(this.plugin.getUserManager()).thenReturn((UserManager) userManager);
+
+        Set<UUID> saved = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            UUID uniqueId = UUID.randomUUID();
+            User user = this.storage.loadUser(uniqueId, "Player" + i);
+            user.setNode(DataType.NORMAL, Permission.builder().permission("test." + i).build(), true);
+            this.storage.saveUser(user);
+            saved.add(uniqueId);
+        }
+
+        Set<UUID> iterated = new HashSet<>();
+        this.storage.iterateUniqueUsers(iterated::add);
+        assertEquals(saved, iterated);
+
+        // stops when the action returns false
+        List<UUID> stopped = new ArrayList<>();
+        this.storage.iterateUniqueUsers(uniqueId -> stopped.add(uniqueId) && stopped.size() < 2);
+        assertEquals(2, stopped.size());
+
+        saved.forEach(userManager::unload);
+
+        Set<UUID> loaded = new HashSet<>();
+        this.storage.iterateUsers(2, page -> {
+            assertTrue(page.size() <= 2);
+            for (User user : page.values()) {
+                assertEquals(2, user.normalData().asSet().size());
+                loaded.add(user.getUniqueId());
+            }
+        });
+        assertEquals(saved, loaded);
+    }
+
     @Test
     public void testGetPlayerUniqueIdAndName() throws Exception {
         UUID uniqueId = UUID.randomUUID();
@@ -282,6 +412,7 @@ public abstract class AbstractStorageTest {
 
         //noinspection unchecked,rawtypes
         lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) groupManager);
+        lenient().when(this.plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(this.plugin));
 
         Group group = this.storage.createAndLoadGroup("test");
 
@@ -316,6 +447,30 @@ public abstract class AbstractStorageTest {
         assertEquals(nodes, loaded.normalData().asSet());
     }
 
+    @Test
+    public void testGroupRevisions() throws Exception {
+        StandardGroupManager groupManager = new StandardGroupManager(this.plugin);
+
+        //noinspection unchecked,rawtypes
+        lenient().when(this.plugin.getGroupManager()).thenReturn((GroupManager) groupManager);
+        lenient().when(this.plugin.getInheritanceGraphFactory()).thenReturn(new InheritanceGraphFactory(this.plugin));
+
+        Group group = this.storage.createAndLoadGroup("test");
+
+        Map<String, Long> r1 = this.storage.getGroupRevisions();
+        assumeTrue(r1 != null, "storage does not support revisions");
+        assertTrue(r1.containsKey("test"));
+
+        group.normalData().add(Permission.builder().permission("test.1").build());
+        this.storage.saveGroup(group);
+
+        Map<String, Long> r2 = this.storage.getGroupRevisions();
+        assertNotEquals(r1.get("test"), r2.get("test"));
+
+        this.storage.deleteGroup(group);
+        assertFalse(this.storage.getGroupRevisions().containsKey("test"));
+    }
+
     @Test
     public void testSaveAndDeleteUser() throws Exception {
         StandardUserManager userManager = new StandardUserManager(this.plugin);
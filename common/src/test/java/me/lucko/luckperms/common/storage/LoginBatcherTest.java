@@ -0,0 +1,164 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.storage;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
+import me.lucko.luckperms.common.storage.misc.LoginResult;
+import me.lucko.luckperms.common.storage.misc.PlayerSaveResultImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LoginBatcherTest {
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Map<UUID, String>> batches = new ArrayList<>();
+    private final List<UUID> retries = new ArrayList<>();
+
+    private LoginBatcher createBatcher(Set<UUID> failing) {
+        SchedulerAdapter scheduler = mock(SchedulerAdapter.class);
+        when(scheduler.asyncLater(any(), anyLong(), any())).thenAnswer(invocation -> {
+            this.scheduled.add(invocation.getArgument(0));
+            return mock(SchedulerTask.class);
+        });
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(scheduler).executeAsync(any());
+
+        return new LoginBatcher(scheduler, players -> {
+            this.batches.add(ImmutableMap.copyOf(players));
+            if (players.keySet().stream().anyMatch(failing::contains)) {
+                CompletableFuture<Map<UUID, LoginResult>> future = new CompletableFuture<>();
+                future.completeExceptionally(new RuntimeException("test"));
+                return future;
+            }
+
+            Map<UUID, LoginResult> results = new HashMap<>();
+            for (UUID uniqueId : players.keySet()) {
+                results.put(uniqueId, new LoginResult(PlayerSaveResultImpl.noChange(), null));
+            }
+            return CompletableFuture.completedFuture(results);
+        }, (uniqueId, username) -> {
+            this.retries.add(uniqueId);
+            if (failing.contains(uniqueId)) {
+                CompletableFuture<LoginResult> future = new CompletableFuture<>();
+                future.completeExceptionally(new RuntimeException("test"));
+                return future;
+            }
+            return CompletableFuture.completedFuture(new LoginResult(PlayerSaveResultImpl.noChange(), null));
+        });
+    }
+
+    @Test
+    public void testCoalesce() {
+        LoginBatcher batcher = createBatcher(Collections.emptySet());
+
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        CompletableFuture<LoginResult> fa = batcher.submit(a, "a");
+        CompletableFuture<LoginResult> fb = batcher.submit(b, "b");
+        CompletableFuture<LoginResult> fa2 = batcher.submit(a, "a");
+
+        // one flush scheduled for the batch, nothing loaded yet
+        assertEquals(1, this.scheduled.size());
+        assertTrue(this.batches.isEmpty());
+        assertFalse(fa.isDone());
+        assertSame(fa, fa2);
+
+        this.scheduled.get(0).run();
+        assertEquals(ImmutableMap.of(a, "a", b, "b"), this.batches.get(0));
+        assertTrue(fa.isDone());
+        assertTrue(fb.isDone());
+        assertNull(fa.join().getUser());
+
+        // the next submission starts a new batch
+        batcher.submit(UUID.randomUUID(), "c");
+        assertEquals(2, this.scheduled.size());
+    }
+
+    @Test
+    public void testFullBatch() {
+        LoginBatcher batcher = createBatcher(Collections.emptySet());
+
+        List<CompletableFuture<LoginResult>> futures = new ArrayList<>();
+        for (int i = 0; i < LoginBatcher.MAX_BATCH_SIZE; i++) {
+            futures.add(batcher.submit(UUID.randomUUID(), "player" + i));
+        }
+
+        // flushed immediately once full
+        assertEquals(1, this.batches.size());
+        assertEquals(LoginBatcher.MAX_BATCH_SIZE, this.batches.get(0).size());
+        assertTrue(futures.stream().allMatch(CompletableFuture::isDone));
+
+        // the scheduled flush for that batch is a no-op
+        this.scheduled.get(0).run();
+        assertEquals(1, this.batches.size());
+    }
+
+    @Test
+    public void testFailure() {
+        UUID bad = UUID.randomUUID();
+        UUID good = UUID.randomUUID();
+        LoginBatcher batcher = createBatcher(Collections.singleton(bad));
+
+        CompletableFuture<LoginResult> badFuture = batcher.submit(bad, "bad");
+        CompletableFuture<LoginResult> goodFuture = batcher.submit(good, "good");
+        this.scheduled.get(0).run();
+
+        // the batch failed, so each player was retried on their own
+        assertEquals(1, this.batches.size());
+        assertEquals(ImmutableList.of(bad, good), this.retries);
+
+        // only the player whose own retry failed is failed
+        assertThrows(CompletionException.class, badFuture::join);
+        assertNull(goodFuture.join().getUser());
+    }
+
+}
@@ -62,6 +62,7 @@ public class SchemaReaderTest {
                 "CREATE TABLE `{prefix}players` ( `uuid` VARCHAR(36) NOT NULL, `username` VARCHAR(16) NOT NULL, `primary_group` VARCHAR(36) NOT NULL, PRIMARY KEY (`uuid`))",
                 "CREATE INDEX ON `{prefix}players` (`username`)",
                 "CREATE TABLE `{prefix}groups` ( `name` VARCHAR(36) NOT NULL, PRIMARY KEY (`name`))",
+                "CREATE TABLE `{prefix}group_revisions` ( `name` VARCHAR(36) NOT NULL, `revision` BIGINT NOT NULL, PRIMARY KEY (`name`))",
                 "CREATE TABLE `{prefix}actions` ( `id` INT AUTO_INCREMENT NOT NULL, `time` BIGINT NOT NULL, `actor_uuid` VARCHAR(36) NOT NULL, `actor_name` VARCHAR(100) NOT NULL, `type` CHAR(1) NOT NULL, `acted_uuid` VARCHAR(36) NOT NULL, `acted_name` VARCHAR(36) NOT NULL, `action` VARCHAR(300) NOT NULL, PRIMARY KEY (`id`))",
                 "CREATE TABLE `{prefix}tracks` ( `name` VARCHAR(36) NOT NULL, `groups` TEXT NOT NULL, PRIMARY KEY (`name`))"
         ), readStatements("h2"));
@@ -77,6 +78,7 @@ public class SchemaReaderTest {
                 "CREATE TABLE `{prefix}players` ( `uuid` VARCHAR(36) NOT NULL, `username` VARCHAR(16) NOT NULL, `primary_group` VARCHAR(36) NOT NULL, PRIMARY KEY (`uuid`))",
                 "CREATE INDEX `{prefix}players_username` ON `{prefix}players` (`username`)",
                 "CREATE TABLE `{prefix}groups` ( `name` VARCHAR(36) NOT NULL, PRIMARY KEY (`name`))",
+                "CREATE TABLE `{prefix}group_revisions` ( `name` VARCHAR(36) NOT NULL, `revision` BIGINT NOT NULL, PRIMARY KEY (`name`))",
                 "CREATE TABLE `{prefix}actions` ( `id` INTEGER PRIMARY KEY NOT NULL, `time` BIGINT NOT NULL, `actor_uuid` VARCHAR(36) NOT NULL, `actor_name` VARCHAR(100) NOT NULL, `type` CHAR(1) NOT NULL, `acted_uuid` VARCHAR(36) NOT NULL, `acted_name` VARCHAR(36) NOT NULL, `action` VARCHAR(300) NOT NULL)",
                 "CREATE TABLE `{prefix}tracks` ( `name` VARCHAR(36) NOT NULL, `groups` TEXT NOT NULL, PRIMARY KEY (`name`))"
         ), readStatements("sqlite"));
@@ -92,6 +94,7 @@ public class SchemaReaderTest {
                 "CREATE TABLE `{prefix}players` ( `uuid` VARCHAR(36) NOT NULL, `username` VARCHAR(16) NOT NULL, `primary_group` VARCHAR(36) NOT NULL, PRIMARY KEY (`uuid`)) DEFAULT CHARSET = utf8mb4",
                 "CREATE INDEX `{prefix}players_username` ON `{prefix}players` (`username`)",
                 "CREATE TABLE `{prefix}groups` ( `name` VARCHAR(36) NOT NULL, PRIMARY KEY (`name`)) DEFAULT CHARSET = utf8mb4",
+                "CREATE TABLE `{prefix}group_revisions` ( `name` VARCHAR(36) NOT NULL, `revision` BIGINT NOT NULL, PRIMARY KEY (`name`)) DEFAULT CHARSET = utf8mb4",
                 "CREATE TABLE `{prefix}actions` ( `id` INT AUTO_INCREMENT NOT NULL, `time` BIGINT NOT NULL, `actor_uuid` VARCHAR(36) NOT NULL, `actor_name` VARCHAR(100) NOT NULL, `type` CHAR(1) NOT NULL, `acted_uuid` VARCHAR(36) NOT NULL, `acted_name` VARCHAR(36) NOT NULL, `action` VARCHAR(300) NOT NULL, PRIMARY KEY (`id`)) DEFAULT CHARSET = utf8mb4",
                 "CREATE TABLE `{prefix}tracks` ( `name` VARCHAR(36) NOT NULL, `groups` TEXT NOT NULL, PRIMARY KEY (`name`)) DEFAULT CHARSET = utf8mb4"
         );
@@ -109,6 +112,7 @@ public class SchemaReaderTest {
                 "CREATE TABLE \"{prefix}players\" ( \"uuid\" VARCHAR(36) PRIMARY KEY NOT NULL, \"username\" VARCHAR(16) NOT NULL, \"primary_group\" VARCHAR(36) NOT NULL)",
                 "CREATE INDEX \"{prefix}players_username\" ON \"{prefix}players\" (\"username\")",
                 "CREATE TABLE \"{prefix}groups\" ( \"name\" VARCHAR(36) PRIMARY KEY NOT NULL)",
+                "CREATE TABLE \"{prefix}group_revisions\" ( \"name\" VARCHAR(36) PRIMARY KEY NOT NULL, \"revision\" BIGINT NOT NULL)",
                 "CREATE TABLE \"{prefix}actions\" ( \"id\" SERIAL PRIMARY KEY NOT NULL, \"time\" BIGINT NOT NULL, \"actor_uuid\" VARCHAR(36) NOT NULL, \"actor_name\" VARCHAR(100) NOT NULL, \"type\" CHAR(1) NOT NULL, \"acted_uuid\" VARCHAR(36) NOT NULL, \"acted_name\" VARCHAR(36) NOT NULL, \"action\" VARCHAR(300) NOT NULL)",
                 "CREATE TABLE \"{prefix}tracks\" ( \"name\" VARCHAR(36) PRIMARY KEY NOT NULL, \"groups\" TEXT NOT NULL)"
         ), readStatements("postgresql"));
@@ -121,6 +125,7 @@ public class SchemaReaderTest {
                 "luckperms_group_permissions",
                 "luckperms_players",
                 "luckperms_groups",
+                "luckperms_group_revisions",
                 "luckperms_actions",
                 "luckperms_tracks"
         );
@@ -150,6 +155,7 @@ public class SchemaReaderTest {
                 "luckperms_group_permissions",
                 "luckperms_players",
                 "luckperms_groups",
+                "luckperms_group_revisions",
                 "luckperms_actions",
                 "luckperms_tracks"
         ));
@@ -160,6 +166,7 @@ public class SchemaReaderTest {
                 "luckperms_user_permissions",
                 "luckperms_players",
                 "luckperms_groups",
+                "luckperms_group_revisions",
                 "luckperms_actions",
                 "luckperms_tracks"
         ));
@@ -26,6 +26,8 @@
 package me.lucko.luckperms.common.treeview;
 
 import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerAdapter;
+import me.lucko.luckperms.common.plugin.scheduler.SchedulerTask;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableSet;
 
@@ -33,6 +35,11 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class PermissionRegistryTest {
 
@@ -64,6 +71,92 @@ public class PermissionRegistryTest {
         );
     }
 
+    @Test
+    public void testNormalisation() {
+        PermissionRegistry registry = new PermissionRegistry();
+        registry.insert("Minecraft..Command.GIVE.");
+        registry.insert("minecraft.command.give");
+
+        assertEquals(
+                ImmutableSet.of("minecraft", "minecraft.command", "minecraft.command.give"),
+                ImmutableSet.copyOf(registry.rootAsList())
+        );
+    }
+
+    @Test
+    public void testKnown() {
+        PermissionRegistry registry = new PermissionRegistry();
+        assertFalse(registry.isKnown("minecraft.command.give"));
+
+        registry.insert("minecraft.command.give");
+        assertTrue(registry.isKnown("minecraft.command.give"));
+        assertFalse(registry.isKnown("minecraft.command"));
+
+        // already known permissions are skipped, so re-inserting doesn't change the tree
+        registry.insert("minecraft.command.give");
+        assertEquals(1, registry.getRootNode().getChildrenSize());
+    }
+
+    @Test
+    public void testAsyncBatching() throws InterruptedException {
+        SchedulerAdapter scheduler = mock(SchedulerAdapter.class);
+        when(scheduler.asyncRepeating(any(), anyLong(), any())).thenReturn(mock(SchedulerTask.class));
+
+        try (AsyncPermissionRegistry registry = new AsyncPermissionRegistry(scheduler)) {
+            // enough distinct permissions to overflow the per-thread buffers
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                int thread = i;
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        registry.offer("test.thread" + thread + ".perm" + j);
+                        registry.offer("test.thread" + thread + ".perm" + j);
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            registry.offer("test.local");
+
+            // nothing is inserted until the buffers are flushed
+            assertFalse(registry.getRootNode().getChildren().isPresent());
+
+            registry.flush();
+            List<String> permissions = registry.rootAsList();
+            assertTrue(permissions.contains("test.local"));
+            for (int i = 0; i < threads.length; i++) {
+                assertTrue(permissions.contains("test.thread" + i + ".perm0"));
+                assertTrue(permissions.contains("test.thread" + i + ".perm199"));
+            }
+            assertTrue(registry.isKnown("test.thread0.perm50"));
+        }
+    }
+
+    @Test
+    public void testAsyncOverflowBounded() {
+        SchedulerAdapter scheduler = mock(SchedulerAdapter.class);
+        when(scheduler.asyncRepeating(any(), anyLong(), any())).thenReturn(mock(SchedulerTask.class));
+
+        try (AsyncPermissionRegistry registry = new AsyncPermissionRegistry(scheduler)) {
+            // fill 66 buffers, 2 more than can be held between flushes
+            for (int i = 0; i < 128 * 66; i++) {
+                registry.offer("test.perm" + i);
+            }
+            assertEquals(128 * 2, registry.getDroppedCount());
+
+            registry.flush();
+            assertTrue(registry.isKnown("test.perm0"));
+            assertFalse(registry.isKnown("test.perm" + (128 * 66 - 1)));
+
+            // dropped permissions are accepted again once the queue has been drained
+            registry.offer("test.perm" + (128 * 66 - 1));
+            registry.flush();
+            assertTrue(registry.isKnown("test.perm" + (128 * 66 - 1)));
+        }
+    }
+
     @Test
     public void testExport() {
         PermissionRegistry registry = new PermissionRegistry();
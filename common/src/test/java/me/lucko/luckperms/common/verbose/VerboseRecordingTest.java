@@ -0,0 +1,179 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.verbose;
+
+import com.google.gson.JsonObject;
+import me.lucko.luckperms.common.cacheddata.result.StringResult;
+import me.lucko.luckperms.common.cacheddata.result.TristateResult;
+import me.lucko.luckperms.common.query.QueryOptionsImpl;
+import me.lucko.luckperms.common.util.StackTracePrinter;
+import me.lucko.luckperms.common.verbose.event.CheckOrigin;
+import me.lucko.luckperms.common.verbose.event.MetaCheckEvent;
+import me.lucko.luckperms.common.verbose.event.PermissionCheckEvent;
+import me.lucko.luckperms.common.verbose.event.VerboseEvent;
+import net.luckperms.api.util.Tristate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VerboseRecordingTest {
+
+    private static final StackTracePrinter PRINTER = StackTracePrinter.builder().build();
+
+    private static VerboseEvent permissionEvent(String target, String permission, Tristate result) {
+        return new PermissionCheckEvent(
+                CheckOrigin.INTERNAL,
+                VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, target),
+                QueryOptionsImpl.DEFAULT_CONTEXTUAL,
+                System.currentTimeMillis(),
+                new Throwable().getStackTrace(),
+                "test",
+                permission,
+                TristateResult.forMonitoredResult(result)
+        );
+    }
+
+    private static VerboseEvent metaEvent(String target, String key, String result) {
+        return new MetaCheckEvent(
+                CheckOrigin.INTERNAL,
+                VerboseCheckTarget.of(VerboseCheckTarget.USER_TYPE, target),
+                QueryOptionsImpl.DEFAULT_CONTEXTUAL,
+                System.currentTimeMillis(),
+                new Throwable().getStackTrace(),
+                "test",
+                key,
+                StringResult.of(result)
+        );
+    }
+
+    private static List<VerboseRecording.Entry> readAll(Path directory) throws IOException {
+        List<VerboseRecording.Entry> entries = new ArrayList<>();
+        VerboseRecording.read(directory, entries::add);
+        return entries;
+    }
+
+    @Test
+    public void testWriteAndRead(@TempDir Path tempDir) throws Exception {
+        List<VerboseEvent> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(permissionEvent("Player" + (i % 2), "luckperms.test." + i, i % 3 == 0 ? Tristate.TRUE : Tristate.UNDEFINED));
+        }
+        events.add(metaEvent("Player1", "prefix", "admin"));
+
+        VerboseRecording recording = VerboseRecording.create(tempDir);
+        try (recording) {
+            for (VerboseEvent event : events) {
+                recording.write(event, event.toJson(PRINTER));
+            }
+        }
+        assertEquals(events.size(), recording.getCount());
+        assertEquals(List.of(recording.getName()), VerboseRecording.list(tempDir));
+
+        List<VerboseRecording.Entry> entries = readAll(recording.getDirectory());
+        assertEquals(events.size(), entries.size());
+
+        for (int i = 0; i < events.size(); i++) {
+            VerboseEvent event = events.get(i);
+            VerboseRecording.Entry entry = entries.get(i);
+
+            JsonObject expected = event.toJson(PRINTER);
+            assertEquals(expected, entry.toJson());
+            assertEquals(event.getCheckTime(), entry.getCheckTime());
+        }
+
+        // filters evaluate the same against recorded entries as live events
+        for (String expression : new String[]{"Player1", "luckperms.test.1", "true", "meta", "prefix & admin", "permission & !Player0"}) {
+            VerboseFilter filter = VerboseFilter.compile(expression);
+            for (int i = 0; i < events.size(); i++) {
+                assertEquals(filter.evaluate(events.get(i)), filter.evaluate(entries.get(i)), expression);
+            }
+        }
+    }
+
+    @Test
+    public void testPartialRecord(@TempDir Path tempDir) throws Exception {
+        VerboseRecording recording = VerboseRecording.create(tempDir);
+        VerboseEvent event = permissionEvent("Player1", "test", Tristate.TRUE);
+        recording.write(event, event.toJson(PRINTER));
+        recording.write(event, event.toJson(PRINTER));
+        recording.close();
+
+        // simulate a crash part-way through writing the segment
+        Path segment;
+        try (Stream<Path> stream = Files.list(recording.getDirectory())) {
+            segment = stream.collect(Collectors.toList()).get(0);
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        try (OutputStream out = Files.newOutputStream(segment, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(bytes, 0, bytes.length - 20);
+        }
+
+        // whatever could be read is returned, without an exception
+        List<VerboseRecording.Entry> entries = readAll(recording.getDirectory());
+        assertTrue(entries.size() < 2);
+    }
+
+    @Test
+    public void testCorruptSegments(@TempDir Path tempDir) throws Exception {
+        VerboseRecording recording = VerboseRecording.create(tempDir);
+        VerboseEvent event = permissionEvent("Player1", "test", Tristate.TRUE);
+        recording.write(event, event.toJson(PRINTER));
+        recording.close();
+
+        // move the valid segment after two corrupt ones
+        Path directory = recording.getDirectory();
+        Files.move(directory.resolve("0.lpverbose.gz"), directory.resolve("2.lpverbose.gz"));
+
+        // a record with an impossible length
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(directory.resolve("0.lpverbose.gz"))))) {
+            out.writeInt(-1);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        // not gzip at all
+        Files.write(directory.resolve("1.lpverbose.gz"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+
+        // the corrupt segments are skipped, and the valid one is still read
+        List<VerboseRecording.Entry> entries = readAll(directory);
+        assertEquals(1, entries.size());
+        assertEquals(event.toJson(PRINTER), entries.get(0).toJson());
+    }
+
+}
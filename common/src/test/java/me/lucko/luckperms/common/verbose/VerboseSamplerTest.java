@@ -0,0 +1,103 @@
+/*
+ * This file is part of LuckPerms, licensed under the MIT License.
+ *
+ *  Copyright (c) lucko (Luck) <luck@lucko.me>
+ *  Copyright (c) contributors
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+
+package me.lucko.luckperms.common.verbose;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VerboseSamplerTest {
+
+    @Test
+    public void testSampleAll() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(VerboseSampler.ALL.sample());
+        }
+    }
+
+    @Test
+    public void testSampleRate() {
+        VerboseSampler sampler = new VerboseSampler(10, 0, 0);
+
+        int sampled = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+
+        // expected ~1000
+        assertTrue(sampled > 500 && sampled < 1500, "sampled " + sampled);
+    }
+
+    @Test
+    public void testRateLimit() {
+        VerboseSampler.RateLimiter rateLimiter = new VerboseSampler(1, 3, 0).newRateLimiter();
+
+        assertTrue(rateLimiter.tryAcquire("test", 1000));
+        assertTrue(rateLimiter.tryAcquire("test", 1100));
+        assertTrue(rateLimiter.tryAcquire("test", 1200));
+        assertFalse(rateLimiter.tryAcquire("test", 1300));
+        assertTrue(rateLimiter.tryAcquire("other", 1300));
+
+        // the limit is reset each second
+        assertTrue(rateLimiter.tryAcquire("test", 2000));
+    }
+
+    @Test
+    public void testRateLimitPerListener() {
+        VerboseSampler sampler = new VerboseSampler(1, 1, 0);
+        VerboseSampler.RateLimiter first = sampler.newRateLimiter();
+        VerboseSampler.RateLimiter second = sampler.newRateLimiter();
+
+        // each listener has its own budget
+        assertTrue(first.tryAcquire("test", 1000));
+        assertFalse(first.tryAcquire("test", 1000));
+        assertTrue(second.tryAcquire("test", 1000));
+    }
+
+    @Test
+    public void testNoRateLimit() {
+        VerboseSampler.RateLimiter rateLimiter = new VerboseSampler(1, 0, 0).newRateLimiter();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(rateLimiter.tryAcquire("test", 1000));
+        }
+    }
+
+    @Test
+    public void testCaptureTrace() {
+        StackTraceElement[] trace = new VerboseSampler(1, 0, 2).captureTrace(0);
+        assertEquals(2, trace.length);
+        assertEquals("testCaptureTrace", trace[0].getMethodName());
+        assertEquals(VerboseSamplerTest.class.getName(), trace[0].getClassName());
+
+        assertEquals(0, new VerboseSampler(1, 0, 0).captureTrace(0).length);
+        assertFalse(VerboseSampler.ALL.captureTrace(0).length < 2);
+    }
+
+}
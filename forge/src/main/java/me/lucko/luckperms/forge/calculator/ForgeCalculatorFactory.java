@@ -55,7 +55,7 @@ public class ForgeCalculatorFactory implements CalculatorFactory {
         processors.add(new DirectProcessor());
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX)) {
-            processors.add(new RegexProcessor());
+            processors.add(new RegexProcessor(this.plugin.getConfiguration().get(ConfigKeys.APPLYING_REGEX_COMBINED)));
         }
 
         if (this.plugin.getConfiguration().get(ConfigKeys.APPLYING_WILDCARDS)) {
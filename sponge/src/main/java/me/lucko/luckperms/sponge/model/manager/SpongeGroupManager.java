@@ -95,6 +95,11 @@ public class SpongeGroupManager extends AbstractGroupManager<SpongeGroup> implem
         return new SpongeGroup(name, this.plugin);
     }
 
+    @Override
+    protected void onLoadedGroupsChange() {
+        this.plugin.getInheritanceGraphFactory().invalidate();
+    }
+
     @Override
     public synchronized SubjectCollection sponge() {
         if (this.spongeProxy == null) {
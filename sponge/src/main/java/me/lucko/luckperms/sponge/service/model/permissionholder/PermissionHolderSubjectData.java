@@ -61,6 +61,7 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 
@@ -359,8 +360,8 @@ public class PermissionHolderSubjectData implements LPSubjectData {
     private CompletableFuture<Void> save(PermissionHolder t) {
         // if the holder is a group, invalidate caches.
         if (t.getType() == HolderType.GROUP) {
-            this.service.getPlugin().getGroupManager().invalidateAllGroupCaches();
-            this.service.getPlugin().getUserManager().invalidateAllUserCaches();
+            Set<String> groups = this.service.getPlugin().getGroupManager().invalidateDependentCaches((Group) t);
+            this.service.getPlugin().getUserManager().invalidateDependentCaches(groups);
         }
 
         // no further action required for transient types